@@ -0,0 +1,62 @@
+package com.supera.acessos.acesso.controller;
+
+import com.supera.acessos.acesso.dto.MarcaConsistenciaDTO;
+import com.supera.acessos.acesso.dto.ResultadoVerificacaoDTO;
+import com.supera.acessos.acesso.dto.VerificacaoAcessoDTO;
+import com.supera.acessos.acesso.dto.VerificacaoLoteDTO;
+import com.supera.acessos.acesso.service.AcessoIndexService;
+import com.supera.acessos.exceptions.ApiException;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+//consultas de acesso respondidas só pelo índice em memória, sem ir ao banco
+@RestController
+@RequestMapping("/acessos")
+@RequiredArgsConstructor
+public class AcessoController {
+
+    private static final int LIMITE_LOTE = 1000;
+
+    private final AcessoIndexService acessoIndex;
+
+    @GetMapping("/verificar")
+    public ResponseEntity<VerificacaoAcessoDTO> verificar(
+            @RequestParam Long usuarioId,
+            @RequestParam Long moduloId
+    ) {
+        MarcaConsistenciaDTO marca = acessoIndex.marca();
+
+        return ResponseEntity.ok()
+                .header("X-Acessos-Versao", String.valueOf(marca.versao()))
+                .body(new VerificacaoAcessoDTO(usuarioId, moduloId, acessoIndex.possuiAcesso(usuarioId, moduloId)));
+    }
+
+    @PostMapping("/verificar")
+    public ResponseEntity<ResultadoVerificacaoDTO> verificarLote(@Valid @RequestBody VerificacaoLoteDTO dto) {
+
+        if (dto.consultas().size() > LIMITE_LOTE) {
+            throw new ApiException("Máximo de " + LIMITE_LOTE + " consultas por lote");
+        }
+
+        //a marca é lida antes das respostas: elas refletem pelo menos essa versão
+        MarcaConsistenciaDTO marca = acessoIndex.marca();
+
+        List<VerificacaoAcessoDTO> resultados = dto.consultas().stream()
+                .map(c -> new VerificacaoAcessoDTO(
+                        c.usuarioId(),
+                        c.moduloId(),
+                        acessoIndex.possuiAcesso(c.usuarioId(), c.moduloId())))
+                .toList();
+
+        return ResponseEntity.ok(new ResultadoVerificacaoDTO(resultados, marca));
+    }
+
+    @GetMapping("/marca")
+    public ResponseEntity<MarcaConsistenciaDTO> marca() {
+        return ResponseEntity.ok(acessoIndex.marca());
+    }
+}
@@ -0,0 +1,13 @@
+package com.supera.acessos.acesso.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public record ConsultaAcessoDTO(
+
+        @NotNull(message = "O usuário é obrigatório")
+        Long usuarioId,
+
+        @NotNull(message = "O módulo é obrigatório")
+        Long moduloId
+
+) {}
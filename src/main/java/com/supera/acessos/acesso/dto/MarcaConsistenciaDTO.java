@@ -0,0 +1,15 @@
+package com.supera.acessos.acesso.dto;
+
+import java.time.Instant;
+
+//versao cresce a cada concessão/revogação aplicada no índice
+//reconstruidoEm indica a última leitura completa de usuarios_modulos
+//ultimaAlteracao é o último id de acessos_alteracoes aplicado: mudanças feitas em qualquer nó até ele estão no índice
+//sincronizadoEm é a última leitura desse registro; a defasagem em relação aos outros nós é o tempo desde ela
+public record MarcaConsistenciaDTO(
+        long versao,
+        Instant atualizadoEm,
+        Instant reconstruidoEm,
+        long ultimaAlteracao,
+        Instant sincronizadoEm
+) {}
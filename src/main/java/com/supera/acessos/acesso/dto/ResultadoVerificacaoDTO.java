@@ -0,0 +1,8 @@
+package com.supera.acessos.acesso.dto;
+
+import java.util.List;
+
+public record ResultadoVerificacaoDTO(
+        List<VerificacaoAcessoDTO> resultados,
+        MarcaConsistenciaDTO marca
+) {}
@@ -0,0 +1,7 @@
+package com.supera.acessos.acesso.dto;
+
+public record VerificacaoAcessoDTO(
+        Long usuarioId,
+        Long moduloId,
+        boolean possuiAcesso
+) {}
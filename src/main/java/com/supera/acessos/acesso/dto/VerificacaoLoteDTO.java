@@ -0,0 +1,13 @@
+package com.supera.acessos.acesso.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record VerificacaoLoteDTO(
+
+        @NotEmpty(message = "Informe ao menos uma consulta")
+        List<@Valid ConsultaAcessoDTO> consultas
+
+) {}
@@ -0,0 +1,3 @@
+package com.supera.acessos.acesso.event;
+
+public record AcessoConcedido(Long usuarioId, Long moduloId) {}
@@ -0,0 +1,3 @@
+package com.supera.acessos.acesso.event;
+
+public record AcessoRevogado(Long usuarioId, Long moduloId) {}
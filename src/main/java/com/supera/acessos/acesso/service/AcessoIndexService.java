@@ -0,0 +1,293 @@
+package com.supera.acessos.acesso.service;
+
+import com.supera.acessos.acesso.dto.MarcaConsistenciaDTO;
+import com.supera.acessos.acesso.event.AcessoConcedido;
+import com.supera.acessos.acesso.event.AcessoRevogado;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//índice em memória de quem tem acesso a qual módulo: usuário -> bitset com o id do módulo como posição
+//leituras não travam; escritas trocam o array inteiro (copy-on-write) sob um lock curto
+//várias instâncias: toda concessão/revogação fica em acessos_alteracoes e cada nó aplica as linhas novas a cada poucos segundos
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AcessoIndexService {
+
+    //limita o tamanho do bitset por usuário (1024 longs = 8 KB no pior caso)
+    //módulos com id acima disso não entram no índice e são consultados direto no banco
+    private static final long MAIOR_MODULO_ID = (1L << 16) - 1;
+
+    //id pulado (transação ainda não commitada em outro nó, ou desfeita) é procurado de novo por esse tempo
+    private static final Duration ESPERA_LACUNA = Duration.ofMinutes(1);
+    private static final int MAXIMO_LACUNAS = 1000;
+
+    //um nó parado mais que isso reconstrói tudo ao subir; o registro não precisa guardar mais
+    private static final Duration RETENCAO_ALTERACOES = Duration.ofDays(1);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Object lock = new Object();
+
+    private volatile Map<Long, long[]> acessos = new ConcurrentHashMap<>();
+    private volatile long versao;
+    private volatile Instant atualizadoEm;
+    private volatile Instant reconstruidoEm;
+
+    //último id de acessos_alteracoes lido e quando o registro foi lido pela última vez
+    private volatile long ultimaAlteracao;
+    private volatile Instant sincronizadoEm;
+
+    //ids abaixo de ultimaAlteracao que ainda não apareceram, com o momento em que foram notados
+    private final Map<Long, Instant> lacunas = new LinkedHashMap<>();
+
+    //não nulo enquanto uma reconstrução está lendo o banco
+    private List<Alteracao> pendentes;
+
+    public boolean possuiAcesso(long usuarioId, long moduloId) {
+
+        if (moduloId > MAIOR_MODULO_ID) {
+            return possuiAcessoNoBanco(usuarioId, moduloId);
+        }
+
+        long[] bits = acessos.get(usuarioId);
+
+        if (bits == null || moduloId < 0 || moduloId >= (long) bits.length << 6) {
+            return false;
+        }
+
+        return (bits[(int) (moduloId >>> 6)] & (1L << moduloId)) != 0;
+    }
+
+    public MarcaConsistenciaDTO marca() {
+        synchronized (lock) {
+            return new MarcaConsistenciaDTO(versao, atualizadoEm, reconstruidoEm, ultimaAlteracao, sincronizadoEm);
+        }
+    }
+
+    //registro para os outros nós, na mesma transação da gravação em usuarios_modulos
+    @EventListener
+    public void registrarConcessao(AcessoConcedido evento) {
+        registrar(evento.usuarioId(), evento.moduloId(), true);
+    }
+
+    @EventListener
+    public void registrarRevogacao(AcessoRevogado evento) {
+        registrar(evento.usuarioId(), evento.moduloId(), false);
+    }
+
+    //o próprio nó não espera o poll: com transação ativa aplica depois do commit; sem transação aplica na hora
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoConceder(AcessoConcedido evento) {
+        aplicar(new Alteracao(evento.usuarioId(), evento.moduloId(), true));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoRevogar(AcessoRevogado evento) {
+        aplicar(new Alteracao(evento.usuarioId(), evento.moduloId(), false));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void aoIniciar() {
+        reconstruir();
+    }
+
+    //aplica, na ordem, o que qualquer nó gravou desde a última leitura
+    @Scheduled(
+            fixedDelayString = "${acesso.indice.sincronizacao-ms:2000}",
+            initialDelayString = "${acesso.indice.sincronizacao-ms:2000}"
+    )
+    public synchronized void sincronizar() {
+
+        List<Registro> registros = new ArrayList<>(jdbcTemplate.query(
+                "select id, usuario_id, modulo_id, concedido from acessos_alteracoes where id > ? order by id",
+                Registro.MAPEADOR, ultimaAlteracao));
+
+        Instant agora = Instant.now();
+        List<Long> procuradas = lacunasAProcurar(agora);
+
+        if (!procuradas.isEmpty()) {
+            registros.addAll(jdbcTemplate.query(
+                    "select id, usuario_id, modulo_id, concedido from acessos_alteracoes where id in ("
+                            + String.join(",", Collections.nCopies(procuradas.size(), "?")) + ")",
+                    Registro.MAPEADOR, procuradas.toArray()));
+            registros.sort(Comparator.comparingLong(Registro::id));
+        }
+
+        long ultima = ultimaAlteracao;
+
+        for (Registro registro : registros) {
+            Alteracao alteracao = registro.alteracao();
+
+            //linha atrasada pode ser mais velha que outra já aplicada para o mesmo par: vale o que está no banco
+            if (lacunas.remove(registro.id()) != null) {
+                alteracao = new Alteracao(alteracao.usuarioId(), alteracao.moduloId(),
+                        possuiAcessoNoBanco(alteracao.usuarioId(), alteracao.moduloId()));
+            }
+
+            for (long id = Math.max(ultima + 1, registro.id() - MAXIMO_LACUNAS); id < registro.id(); id++) {
+                lacunas.putIfAbsent(id, agora);
+            }
+            ultima = Math.max(ultima, registro.id());
+
+            aplicar(alteracao);
+        }
+
+        //muitas lacunas de uma vez só vêm de rollbacks em massa; as mais antigas ficam para a reconstrução
+        while (lacunas.size() > MAXIMO_LACUNAS) {
+            lacunas.remove(lacunas.keySet().iterator().next());
+        }
+
+        synchronized (lock) {
+            ultimaAlteracao = ultima;
+            sincronizadoEm = agora;
+        }
+    }
+
+    private List<Long> lacunasAProcurar(Instant agora) {
+        lacunas.values().removeIf(notadaEm -> notadaEm.isBefore(agora.minus(ESPERA_LACUNA)));
+        return List.copyOf(lacunas.keySet());
+    }
+
+    //corrige divergências de gravações feitas fora da aplicação
+    @Scheduled(
+            fixedDelayString = "${acesso.indice.reconstrucao-ms:600000}",
+            initialDelayString = "${acesso.indice.reconstrucao-ms:600000}"
+    )
+    public synchronized void reconstruir() {
+
+        synchronized (lock) {
+            pendentes = new ArrayList<>();
+        }
+
+        //na primeira leitura o registro começa do que já existe: o que vier depois do max é aplicado pelo poll
+        Long maiorAlteracao = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from acessos_alteracoes", Long.class);
+
+        Map<Long, long[]> novo = new ConcurrentHashMap<>();
+        int[] linhas = {0};
+
+        try {
+            jdbcTemplate.query("select usuario_id, modulo_id from usuarios_modulos", rs -> {
+                alterar(novo, new Alteracao(rs.getLong(1), rs.getLong(2), true));
+                linhas[0]++;
+            });
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                pendentes = null;
+            }
+            throw e;
+        }
+
+        synchronized (lock) {
+            //o que chegou durante a leitura é reaplicado na ordem; conceder/revogar são idempotentes
+            pendentes.forEach(alteracao -> alterar(novo, alteracao));
+            pendentes = null;
+
+            acessos = novo;
+            versao++;
+            reconstruidoEm = Instant.now();
+            atualizadoEm = reconstruidoEm;
+
+            if (sincronizadoEm == null && maiorAlteracao != null) {
+                ultimaAlteracao = maiorAlteracao;
+                sincronizadoEm = reconstruidoEm;
+            }
+        }
+
+        jdbcTemplate.update("delete from acessos_alteracoes where registrado_em < ?",
+                Timestamp.from(Instant.now().minus(RETENCAO_ALTERACOES)));
+
+        log.info("Índice de acessos reconstruído ({} acessos, {} usuários)", linhas[0], novo.size());
+    }
+
+    private void registrar(long usuarioId, long moduloId, boolean concedido) {
+        jdbcTemplate.update(
+                "insert into acessos_alteracoes (usuario_id, modulo_id, concedido, registrado_em) values (?, ?, ?, ?)",
+                usuarioId, moduloId, concedido, Timestamp.from(Instant.now()));
+    }
+
+    //busca pela PK de usuarios_modulos
+    private boolean possuiAcessoNoBanco(long usuarioId, long moduloId) {
+        Integer quantidade = jdbcTemplate.queryForObject(
+                "select count(*) from usuarios_modulos where usuario_id = ? and modulo_id = ?",
+                Integer.class, usuarioId, moduloId);
+
+        return quantidade != null && quantidade > 0;
+    }
+
+    private void aplicar(Alteracao alteracao) {
+        synchronized (lock) {
+            alterar(acessos, alteracao);
+
+            if (pendentes != null) {
+                pendentes.add(alteracao);
+            }
+
+            versao++;
+            atualizadoEm = Instant.now();
+        }
+    }
+
+    private static void alterar(Map<Long, long[]> mapa, Alteracao alteracao) {
+
+        long moduloId = alteracao.moduloId();
+
+        //fora da faixa do bitset: a leitura vai ao banco, não há o que guardar
+        if (moduloId < 0 || moduloId > MAIOR_MODULO_ID) {
+            return;
+        }
+
+        int palavra = (int) (moduloId >>> 6);
+        long mascara = 1L << moduloId;
+        long[] atual = mapa.get(alteracao.usuarioId());
+
+        if (alteracao.concedido()) {
+            long[] novo = atual == null
+                    ? new long[palavra + 1]
+                    : Arrays.copyOf(atual, Math.max(atual.length, palavra + 1));
+            novo[palavra] |= mascara;
+            mapa.put(alteracao.usuarioId(), novo);
+            return;
+        }
+
+        if (atual == null || palavra >= atual.length || (atual[palavra] & mascara) == 0) {
+            return;
+        }
+
+        long[] novo = atual.clone();
+        novo[palavra] &= ~mascara;
+
+        if (Arrays.stream(novo).allMatch(bits -> bits == 0)) {
+            mapa.remove(alteracao.usuarioId());
+        } else {
+            mapa.put(alteracao.usuarioId(), novo);
+        }
+    }
+
+    private record Alteracao(long usuarioId, long moduloId, boolean concedido) {}
+
+    private record Registro(long id, Alteracao alteracao) {
+
+        static final RowMapper<Registro> MAPEADOR = (rs, linha) -> new Registro(
+                rs.getLong(1), new Alteracao(rs.getLong(2), rs.getLong(3), rs.getBoolean(4)));
+    }
+}
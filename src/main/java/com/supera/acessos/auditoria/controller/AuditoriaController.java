@@ -0,0 +1,28 @@
+package com.supera.acessos.auditoria.controller;
+
+import com.supera.acessos.auditoria.dto.HistoricoSolicitacaoDTO;
+import com.supera.acessos.auditoria.service.HistoricoAuditoriaService;
+import com.supera.acessos.usuario.entity.Usuario;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/auditoria")
+@RequiredArgsConstructor
+public class AuditoriaController {
+
+    private final HistoricoAuditoriaService historicoService;
+
+    //quem fez o quê e quando, em ordem cronológica
+    @GetMapping("/solicitacoes/{id}")
+    public ResponseEntity<List<HistoricoSolicitacaoDTO>> historico(
+            @PathVariable Long id,
+            @AuthenticationPrincipal Usuario usuario
+    ) {
+        return ResponseEntity.ok(historicoService.historico(id, usuario));
+    }
+}
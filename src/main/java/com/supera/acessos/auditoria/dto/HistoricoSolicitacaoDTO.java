@@ -0,0 +1,14 @@
+package com.supera.acessos.auditoria.dto;
+
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+
+import java.time.LocalDateTime;
+
+public record HistoricoSolicitacaoDTO(
+        String id,
+        Long usuarioId,
+        StatusSolicitacao statusAnterior,
+        StatusSolicitacao statusNovo,
+        String motivo,
+        LocalDateTime ocorridoEm
+) {}
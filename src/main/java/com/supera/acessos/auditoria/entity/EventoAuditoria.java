@@ -0,0 +1,50 @@
+package com.supera.acessos.auditoria.entity;
+
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+//linha do outbox de auditoria: gravada junto com a transição, na mesma transação
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "auditoria_outbox")
+public class EventoAuditoria implements Persistable<String> {
+
+    //UUID gerado na aplicação: o insert entra no batch JDBC, ao contrário de IDENTITY
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false)
+    private Long solicitacaoId;
+
+    //quem executou; nulo quando foi o sistema (expiração)
+    private Long usuarioId;
+
+    //nulo na criação
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30)
+    private StatusSolicitacao statusAnterior;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private StatusSolicitacao statusNovo;
+
+    private String motivo;
+
+    @Column(nullable = false)
+    private LocalDateTime ocorridoEm;
+
+    //somente inserção: o save vira persist direto, sem o select do merge por causa do id preenchido
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package com.supera.acessos.auditoria.event;
+
+import com.supera.acessos.auditoria.entity.EventoAuditoria;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+
+import java.time.LocalDateTime;
+
+public record TransicaoRegistrada(
+        String id,
+        Long solicitacaoId,
+        Long usuarioId,
+        StatusSolicitacao statusAnterior,
+        StatusSolicitacao statusNovo,
+        String motivo,
+        LocalDateTime ocorridoEm
+) {
+
+    public static TransicaoRegistrada de(EventoAuditoria evento) {
+        return new TransicaoRegistrada(
+                evento.getId(),
+                evento.getSolicitacaoId(),
+                evento.getUsuarioId(),
+                evento.getStatusAnterior(),
+                evento.getStatusNovo(),
+                evento.getMotivo(),
+                evento.getOcorridoEm()
+        );
+    }
+}
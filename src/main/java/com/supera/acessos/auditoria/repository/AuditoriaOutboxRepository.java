@@ -0,0 +1,7 @@
+package com.supera.acessos.auditoria.repository;
+
+import com.supera.acessos.auditoria.entity.EventoAuditoria;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AuditoriaOutboxRepository extends JpaRepository<EventoAuditoria, String> {
+}
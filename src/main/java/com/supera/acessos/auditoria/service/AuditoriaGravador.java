@@ -0,0 +1,219 @@
+package com.supera.acessos.auditoria.service;
+
+import com.supera.acessos.auditoria.event.TransicaoRegistrada;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+//move o outbox de auditoria para a trilha definitiva em lotes, numa thread própria
+//caminho rápido: eventos commitados entram num buffer circular limitado e saem em batch JDBC
+//caminho durável: a varredura relê do outbox o que o buffer não gravou (buffer cheio, falha, queda do processo)
+@Slf4j
+@Service
+public class AuditoriaGravador {
+
+    //select ... where not exists: evento gravado pelo buffer e pela varredura (ou por dois nós) entra uma vez só
+    private static final String INSERIR = """
+            insert into auditoria_solicitacoes
+                (id, solicitacao_id, usuario_id, status_anterior, status_novo, motivo, ocorrido_em, gravado_em)
+            select ?, ?, ?, ?, ?, ?, ?, ?
+            where not exists (select 1 from auditoria_solicitacoes where id = ?)
+            """;
+
+    private static final String PENDENTES = """
+            select id, solicitacao_id, usuario_id, status_anterior, status_novo, motivo, ocorrido_em
+            from auditoria_outbox
+            where ocorrido_em < ?
+            order by ocorrido_em
+            fetch first ? rows only
+            """;
+
+    private static final RowMapper<TransicaoRegistrada> MAPEADOR = (rs, linha) -> new TransicaoRegistrada(
+            rs.getString("id"),
+            rs.getLong("solicitacao_id"),
+            rs.getObject("usuario_id", Long.class),
+            rs.getString("status_anterior") == null ? null : StatusSolicitacao.valueOf(rs.getString("status_anterior")),
+            StatusSolicitacao.valueOf(rs.getString("status_novo")),
+            rs.getString("motivo"),
+            rs.getTimestamp("ocorrido_em").toLocalDateTime()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<TransicaoRegistrada> buffer;
+    private final int tamanhoLote;
+    private final long idadeMinimaMs;
+    private final Timer tempoGravacao;
+    private final Counter gravados;
+    private final Counter transbordos;
+    private final Thread descarregador;
+
+    private volatile boolean ativo = true;
+
+    //algum evento não coube no buffer: a próxima folga do descarregador varre o outbox sem esperar a idade mínima
+    private volatile boolean transbordou;
+
+    public AuditoriaGravador(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${auditoria.buffer.capacidade:8192}") int capacidade,
+            @Value("${auditoria.lote:500}") int tamanhoLote,
+            @Value("${auditoria.varredura.idade-minima-ms:10000}") long idadeMinimaMs
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.buffer = new ArrayBlockingQueue<>(capacidade);
+        this.tamanhoLote = tamanhoLote;
+        this.idadeMinimaMs = idadeMinimaMs;
+
+        this.tempoGravacao = Timer.builder("auditoria.gravacao")
+                .description("Tempo de gravação de um lote na trilha de auditoria")
+                .register(meterRegistry);
+        this.gravados = Counter.builder("auditoria.gravados")
+                .description("Eventos copiados do outbox para a trilha de auditoria")
+                .register(meterRegistry);
+        this.transbordos = Counter.builder("auditoria.transbordos")
+                .description("Eventos que não couberam no buffer e ficaram para a varredura do outbox")
+                .register(meterRegistry);
+        Gauge.builder("auditoria.buffer", buffer, BlockingQueue::size).register(meterRegistry);
+
+        this.descarregador = new Thread(this::descarregar, "auditoria-gravador");
+        this.descarregador.setDaemon(true);
+        this.descarregador.start();
+    }
+
+    //nunca bloqueia a thread da transição: buffer cheio é contramedida, não espera
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoRegistrar(TransicaoRegistrada evento) {
+        if (!buffer.offer(evento)) {
+            transbordos.increment();
+            transbordou = true;
+        }
+    }
+
+    //recupera o que ficou no outbox: eventos transbordados, lotes que falharam e o buffer perdido numa queda
+    @Scheduled(
+            fixedDelayString = "${auditoria.varredura.intervalo-ms:30000}",
+            initialDelayString = "${auditoria.varredura.intervalo-ms:30000}"
+    )
+    public void varrerAgendado() {
+        int total = varrer(LocalDateTime.now().minusNanos(idadeMinimaMs * 1_000_000));
+
+        if (total > 0) {
+            log.info("{} eventos de auditoria recuperados do outbox", total);
+        }
+    }
+
+    //a idade mínima evita disputar com o buffer eventos que ele ainda vai gravar em milissegundos
+    public int varrer(LocalDateTime ocorridosAntesDe) {
+
+        int total = 0;
+        List<TransicaoRegistrada> lote;
+
+        do {
+            lote = jdbcTemplate.query(PENDENTES, MAPEADOR, Timestamp.valueOf(ocorridosAntesDe), tamanhoLote);
+
+            if (!lote.isEmpty()) {
+                gravar(lote);
+                total += lote.size();
+            }
+        } while (lote.size() == tamanhoLote);
+
+        return total;
+    }
+
+    //insert na trilha e delete do outbox na mesma transação: ou o evento está em um, ou no outro
+    synchronized void gravar(List<TransicaoRegistrada> lote) {
+
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+
+        tempoGravacao.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERIR, lote, lote.size(), (ps, evento) -> {
+                ps.setString(1, evento.id());
+                ps.setLong(2, evento.solicitacaoId());
+
+                if (evento.usuarioId() == null) {
+                    ps.setNull(3, Types.BIGINT);
+                } else {
+                    ps.setLong(3, evento.usuarioId());
+                }
+
+                ps.setString(4, evento.statusAnterior() == null ? null : evento.statusAnterior().name());
+                ps.setString(5, evento.statusNovo().name());
+                ps.setString(6, evento.motivo());
+                ps.setTimestamp(7, Timestamp.valueOf(evento.ocorridoEm()));
+                ps.setTimestamp(8, agora);
+                ps.setString(9, evento.id());
+            });
+
+            jdbcTemplate.batchUpdate("delete from auditoria_outbox where id = ?", lote, lote.size(),
+                    (ps, evento) -> ps.setString(1, evento.id()));
+        }));
+
+        gravados.increment(lote.size());
+    }
+
+    private void descarregar() {
+
+        List<TransicaoRegistrada> lote = new ArrayList<>(tamanhoLote);
+
+        while (ativo || !buffer.isEmpty()) {
+            try {
+                TransicaoRegistrada primeiro = buffer.poll(200, TimeUnit.MILLISECONDS);
+
+                if (primeiro == null) {
+                    if (transbordou) {
+                        transbordou = false;
+                        varrer(LocalDateTime.now());
+                    }
+                    continue;
+                }
+
+                //o que acumulou enquanto o lote anterior gravava sai junto
+                lote.add(primeiro);
+                buffer.drainTo(lote, tamanhoLote - 1);
+                gravar(lote);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+
+            } catch (RuntimeException e) {
+                //o lote continua no outbox e volta pela varredura
+                log.warn("Falha ao gravar {} eventos de auditoria, ficam para a varredura do outbox", lote.size(), e);
+
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    //esvazia o buffer antes de o pool de conexões fechar; o que não der tempo continua no outbox
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        ativo = false;
+        descarregador.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
@@ -0,0 +1,50 @@
+package com.supera.acessos.auditoria.service;
+
+import com.supera.acessos.auditoria.entity.EventoAuditoria;
+import com.supera.acessos.auditoria.event.TransicaoRegistrada;
+import com.supera.acessos.auditoria.repository.AuditoriaOutboxRepository;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.usuario.entity.Usuario;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+//registra cada transição no outbox, dentro da transação de quem chama: se a transição commitou, o registro também
+//a cópia para a trilha definitiva é do AuditoriaGravador, depois do commit e fora da requisição
+@Service
+@RequiredArgsConstructor
+public class AuditoriaService {
+
+    private final AuditoriaOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    //usa o status atual da solicitação como destino; a solicitação precisa já ter id
+    public void registrar(SolicitacaoModulo solicitacao, StatusSolicitacao anterior, Usuario ator, String motivo) {
+        registrar(solicitacao.getId(), anterior, solicitacao.getStatus(), ator == null ? null : ator.getId(), motivo);
+    }
+
+    public void registrar(
+            Long solicitacaoId,
+            StatusSolicitacao anterior,
+            StatusSolicitacao novo,
+            Long usuarioId,
+            String motivo
+    ) {
+        EventoAuditoria evento = outboxRepository.save(EventoAuditoria.builder()
+                .id(UUID.randomUUID().toString())
+                .solicitacaoId(solicitacaoId)
+                .usuarioId(usuarioId)
+                .statusAnterior(anterior)
+                .statusNovo(novo)
+                .motivo(motivo)
+                .ocorridoEm(LocalDateTime.now())
+                .build());
+
+        //só chega ao buffer depois do commit; rollback descarta o evento junto com a linha do outbox
+        eventPublisher.publishEvent(TransicaoRegistrada.de(evento));
+    }
+}
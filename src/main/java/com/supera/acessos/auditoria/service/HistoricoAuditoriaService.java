@@ -0,0 +1,62 @@
+package com.supera.acessos.auditoria.service;
+
+import com.supera.acessos.auditoria.dto.HistoricoSolicitacaoDTO;
+import com.supera.acessos.exceptions.ApiException;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.usuario.entity.Usuario;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class HistoricoAuditoriaService {
+
+    private static final String COLUNAS = "id, usuario_id, status_anterior, status_novo, motivo, ocorrido_em";
+
+    private static final RowMapper<HistoricoSolicitacaoDTO> MAPEADOR = (rs, linha) -> new HistoricoSolicitacaoDTO(
+            rs.getString("id"),
+            rs.getObject("usuario_id", Long.class),
+            rs.getString("status_anterior") == null ? null : StatusSolicitacao.valueOf(rs.getString("status_anterior")),
+            StatusSolicitacao.valueOf(rs.getString("status_novo")),
+            rs.getString("motivo"),
+            rs.getTimestamp("ocorrido_em").toLocalDateTime()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    //trilha definitiva mais o que ainda está no outbox: transição recém-commitada já aparece
+    //mesma regra do detalhe: só o solicitante vê; para os demais a solicitação não existe
+    public List<HistoricoSolicitacaoDTO> historico(Long solicitacaoId, Usuario usuario) {
+
+        List<Long> solicitante = jdbcTemplate.queryForList("""
+                select usuario_id from solicitacoes where id = ?
+                union all
+                select usuario_id from solicitacoes_historico where id = ?
+                """, Long.class, solicitacaoId, solicitacaoId);
+
+        if (solicitante.isEmpty() || !solicitante.get(0).equals(usuario.getId())) {
+            throw new ApiException("Solicitação não encontrada", HttpStatus.NOT_FOUND);
+        }
+
+        Map<String, HistoricoSolicitacaoDTO> porId = new LinkedHashMap<>();
+
+        //outbox antes da trilha: o que o gravador mover entre as duas leituras aparece na segunda
+        jdbcTemplate.query("select " + COLUNAS + " from auditoria_outbox where solicitacao_id = ?",
+                MAPEADOR, solicitacaoId).forEach(h -> porId.put(h.id(), h));
+
+        jdbcTemplate.query("select " + COLUNAS + " from auditoria_solicitacoes where solicitacao_id = ?",
+                MAPEADOR, solicitacaoId).forEach(h -> porId.put(h.id(), h));
+
+        return porId.values().stream()
+                .sorted(Comparator.comparing(HistoricoSolicitacaoDTO::ocorridoEm))
+                .toList();
+    }
+}
@@ -2,6 +2,7 @@ package com.supera.acessos.auth.controller;
 
 import com.supera.acessos.auth.dto.LoginRequestDTO;
 import com.supera.acessos.auth.dto.LoginResponseDTO;
+import com.supera.acessos.auth.dto.RefreshRequestDTO;
 import com.supera.acessos.auth.service.AuthService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -19,4 +20,10 @@ public class AuthController {
     public ResponseEntity<LoginResponseDTO> login(@Valid @RequestBody LoginRequestDTO dto) {
         return ResponseEntity.ok(authService.login(dto));
     }
+
+    //o refresh token usado deixa de valer; a resposta traz o próximo
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponseDTO> refresh(@Valid @RequestBody RefreshRequestDTO dto) {
+        return ResponseEntity.ok(authService.renovar(dto));
+    }
 }
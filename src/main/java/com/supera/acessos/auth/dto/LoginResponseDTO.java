@@ -2,5 +2,6 @@ package com.supera.acessos.auth.dto;
 
 public record LoginResponseDTO(
         String token,
-        String expiraEm
+        String expiraEm,
+        String refreshToken
 ) {}
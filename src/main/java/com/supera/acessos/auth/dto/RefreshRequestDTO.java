@@ -0,0 +1,9 @@
+package com.supera.acessos.auth.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshRequestDTO(
+
+        @NotBlank(message = "O refresh token é obrigatório")
+        String refreshToken
+) {}
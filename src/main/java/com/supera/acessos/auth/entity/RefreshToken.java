@@ -0,0 +1,43 @@
+package com.supera.acessos.auth.entity;
+
+import com.supera.acessos.usuario.entity.Usuario;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "refresh_tokens")
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
+
+    //todos os tokens gerados a partir do mesmo login
+    @Column(nullable = false, length = 36)
+    private String familia;
+
+    //SHA-256 em hex; o token em si nunca é gravado
+    @Column(nullable = false, unique = true, length = 64)
+    private String hashToken;
+
+    @Column(nullable = false)
+    private LocalDateTime criadoEm;
+
+    @Column(nullable = false)
+    private LocalDateTime expiraEm;
+
+    //preenchido na rotação: reapresentar um token usado é sinal de roubo
+    private LocalDateTime usadoEm;
+    private LocalDateTime revogadoEm;
+}
@@ -0,0 +1,46 @@
+package com.supera.acessos.auth.repository;
+
+import com.supera.acessos.auth.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    //o usuário vem junto: o novo access token precisa de id, e-mail e departamento
+    @Query("""
+            select r from RefreshToken r
+            join fetch r.usuario
+            where r.hashToken = :hashToken
+            """)
+    Optional<RefreshToken> buscarPorHash(String hashToken);
+
+    //só um de dois refresh simultâneos com o mesmo token consegue marcá-lo como usado
+    @Modifying
+    @Query("""
+            update RefreshToken r
+            set r.usadoEm = :agora
+            where r.id = :id
+              and r.usadoEm is null
+              and r.revogadoEm is null
+            """)
+    int marcarUsado(Long id, LocalDateTime agora);
+
+    @Modifying
+    @Query("""
+            update RefreshToken r
+            set r.revogadoEm = :agora
+            where r.familia = :familia
+              and r.revogadoEm is null
+            """)
+    int revogarFamilia(String familia, LocalDateTime agora);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken r where r.expiraEm < :limite")
+    int excluirVencidos(LocalDateTime limite);
+}
@@ -0,0 +1,144 @@
+package com.supera.acessos.auth.security;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+//token bucket em memória, uma cota por chave (id do usuário ou hash do IP/e-mail)
+//as chaves ficam em listras com lock próprio; cada listra é uma tabela de endereçamento aberto pré-alocada,
+//então consumir não cria objeto nenhum: sem boxing de chave, sem nó de mapa, sem resultado embrulhado
+final class BaldeDeTokens {
+
+    //posições consultadas a partir do hash; chave que não está nelas é tratada como nova
+    private static final int SONDAGEM = 8;
+
+    private final int capacidade;
+    private final double tokensPorNano;
+    private final long nanosParaEncher;
+    private final Listra[] listras;
+    private final int mascaraListras;
+
+    BaldeDeTokens(int capacidade, double reposicaoPorSegundo, int chavesMaximas) {
+
+        if (capacidade < 1 || reposicaoPorSegundo <= 0) {
+            throw new IllegalArgumentException("Limite inválido: " + capacidade + "/" + reposicaoPorSegundo);
+        }
+
+        this.capacidade = capacidade;
+        this.tokensPorNano = reposicaoPorSegundo / 1_000_000_000d;
+        this.nanosParaEncher = (long) Math.ceil(capacidade / tokensPorNano);
+
+        int quantidade = potenciaDeDois(Runtime.getRuntime().availableProcessors() * 4);
+        int entradas = potenciaDeDois(Math.max(SONDAGEM, chavesMaximas / quantidade));
+
+        this.listras = new Listra[quantidade];
+        this.mascaraListras = quantidade - 1;
+
+        for (int i = 0; i < quantidade; i++) {
+            listras[i] = new Listra(entradas);
+        }
+    }
+
+    int capacidade() {
+        return capacidade;
+    }
+
+    //>= 0: consumiu, valor = tokens restantes; < 0: cota esgotada, valor = -nanos até o próximo token
+    long consumir(long chave, long agora) {
+
+        long hash = misturar(chave);
+        Listra listra = listras[(int) (hash >>> 32) & mascaraListras];
+
+        listra.lock.lock();
+        try {
+            return listra.consumir(chave, (int) hash, agora);
+        } finally {
+            listra.lock.unlock();
+        }
+    }
+
+    //quanto falta para a cota voltar a ficar cheia, para o RateLimit-Reset
+    long segundosParaEncher(long restantes) {
+        double faltam = capacidade - restantes;
+        return faltam <= 0 ? 0 : (long) Math.ceil(faltam / tokensPorNano / 1_000_000_000d);
+    }
+
+    private final class Listra {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final long[] chaves;
+        final double[] tokens;
+        final long[] atualizadoEm;
+        final boolean[] ocupado;
+        final int mascara;
+
+        Listra(int entradas) {
+            chaves = new long[entradas];
+            tokens = new double[entradas];
+            atualizadoEm = new long[entradas];
+            ocupado = new boolean[entradas];
+            mascara = entradas - 1;
+        }
+
+        long consumir(long chave, int hash, long agora) {
+
+            int posicao = -1;
+            int livre = -1;
+            int maisAntiga = -1;
+
+            for (int i = 0; i < SONDAGEM; i++) {
+                int p = (hash + i) & mascara;
+
+                if (!ocupado[p]) {
+                    if (livre < 0) {
+                        livre = p;
+                    }
+                    continue;
+                }
+
+                if (chaves[p] == chave) {
+                    posicao = p;
+                    break;
+                }
+
+                //cota que já teria enchido de novo equivale a uma posição vazia
+                if (livre < 0 && agora - atualizadoEm[p] >= nanosParaEncher) {
+                    livre = p;
+                }
+
+                if (maisAntiga < 0 || atualizadoEm[p] - atualizadoEm[maisAntiga] < 0) {
+                    maisAntiga = p;
+                }
+            }
+
+            if (posicao < 0) {
+                //tabela cheia nesta vizinhança: a chave parada há mais tempo perde a cota e recomeça cheia
+                posicao = livre >= 0 ? livre : maisAntiga;
+                chaves[posicao] = chave;
+                tokens[posicao] = capacidade;
+                atualizadoEm[posicao] = agora;
+                ocupado[posicao] = true;
+            }
+
+            double disponiveis = Math.min(capacidade,
+                    tokens[posicao] + (agora - atualizadoEm[posicao]) * tokensPorNano);
+            atualizadoEm[posicao] = agora;
+
+            if (disponiveis >= 1) {
+                tokens[posicao] = disponiveis - 1;
+                return (long) tokens[posicao];
+            }
+
+            tokens[posicao] = disponiveis;
+            return -Math.max(1, (long) Math.ceil((1 - disponiveis) / tokensPorNano));
+        }
+    }
+
+    //ids sequenciais cairiam todos na mesma listra sem espalhar os bits
+    private static long misturar(long chave) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static int potenciaDeDois(int valor) {
+        return valor <= 1 ? 1 : Integer.highestOneBit(valor - 1) << 1;
+    }
+}
@@ -1,7 +1,6 @@
 package com.supera.acessos.auth.security;
 
-import com.supera.acessos.usuario.repository.UsuarioRepository;
-import com.supera.acessos.usuario.entity.Usuario;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,7 +18,7 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenService jwtTokenService;
-    private final UsuarioRepository usuarioRepository;
+    private final JwtPrincipalResolver principalResolver;
 
     @Override
     protected void doFilterInternal(
@@ -35,20 +34,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = header.replace("Bearer ", "");
 
             try {
-                // extrai subject (id do usuario)
-                String subject = jwtTokenService.validarTokenEObterSubject(token);
-                Long userId = Long.parseLong(subject);
+                // valida o token e monta o principal a partir das claims
+                Claims claims = jwtTokenService.validarTokenEObterClaims(token);
 
-                Usuario usuario = usuarioRepository.findById(userId).orElse(null);
-
-                if (usuario != null) {
+                principalResolver.resolver(claims).ifPresent(usuario -> {
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
                                     usuario, null, null
                             );
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
-                }
+                });
 
             } catch (Exception e) {
                 // token inválido ou expirado – não autentica
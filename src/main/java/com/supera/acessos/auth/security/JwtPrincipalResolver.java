@@ -0,0 +1,37 @@
+package com.supera.acessos.auth.security;
+
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.service.UsuarioCacheService;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+@Component
+@RequiredArgsConstructor
+public class JwtPrincipalResolver {
+
+    private final UsuarioCacheService usuarioCacheService;
+
+    public Optional<Usuario> resolver(Claims claims) {
+
+        Long userId = Long.parseLong(claims.getSubject());
+
+        String email = claims.get("email", String.class);
+        String departamento = claims.get("departamento", String.class);
+
+        //token completo: monta o principal direto das claims, sem ir ao banco
+        if (email != null && departamento != null) {
+            return Optional.of(Usuario.builder()
+                    .id(userId)
+                    .email(email)
+                    .departamento(Departamento.valueOf(departamento))
+                    .build());
+        }
+
+        //tokens sem as claims completas caem no cache de usuários
+        return usuarioCacheService.buscarPorId(userId);
+    }
+}
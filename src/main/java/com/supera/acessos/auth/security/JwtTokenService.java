@@ -1,9 +1,12 @@
 package com.supera.acessos.auth.security;
 
 import com.supera.acessos.usuario.entity.Usuario;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -24,8 +27,30 @@ public class JwtTokenService {
     @Value("${jwt.expiration}")
     private Long expirationMillis;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.cache-tokens.habilitado:true}")
+    private boolean cacheHabilitado;
+
+    @Value("${jwt.cache-tokens.tamanho-maximo:10000}")
+    private int cacheTamanhoMaximo;
+
+    @Value("${jwt.cache-tokens.ttl-segundos:60}")
+    private long cacheTtlSegundos;
+
+    //chave e parser são imutáveis e thread-safe, então são criados uma única vez
+    private Key signingKey;
+    private JwtParser parser;
+    private TokenVerificadoCache tokenCache;
+
+    @PostConstruct
+    void inicializar() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+
+        if (cacheHabilitado) {
+            tokenCache = new TokenVerificadoCache(cacheTamanhoMaximo, cacheTtlSegundos * 1000);
+        }
     }
 
     public String gerarToken(Usuario usuario) {
@@ -38,7 +63,7 @@ public class JwtTokenService {
                 .claim("departamento", usuario.getDepartamento().name())
                 .setIssuedAt(agora)
                 .setExpiration(expiracao)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -50,11 +75,23 @@ public class JwtTokenService {
     }
 
     public String validarTokenEObterSubject(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return validarTokenEObterClaims(token).getSubject();
+    }
+
+    public Claims validarTokenEObterClaims(String token) {
+
+        if (tokenCache == null) {
+            return parser.parseClaimsJws(token).getBody();
+        }
+
+        //token já verificado e ainda dentro do exp: evita HMAC e parse do JSON
+        Claims claims = tokenCache.buscar(token);
+        if (claims != null) {
+            return claims;
+        }
+
+        claims = parser.parseClaimsJws(token).getBody();
+        tokenCache.guardar(token, claims);
+        return claims;
     }
 }
@@ -0,0 +1,98 @@
+package com.supera.acessos.auth.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supera.acessos.exceptions.ApiError;
+import com.supera.acessos.usuario.entity.Usuario;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+//token bucket logo depois do JWT: a cota é do usuário autenticado, ou do IP quando não há usuário (login, refresh)
+//responde com os cabeçalhos RateLimit-* e, sem cota, 429 com Retry-After antes de chegar ao controller
+@Component
+public class LimiteTaxaFilter extends OncePerRequestFilter {
+
+    static final String CABECALHO_LIMITE = "RateLimit-Limit";
+    static final String CABECALHO_RESTANTE = "RateLimit-Remaining";
+    static final String CABECALHO_RESET = "RateLimit-Reset";
+
+    //ids de usuário e hashes de IP dividem a tabela; o sal afasta os hashes da faixa dos ids
+    private static final long SAL_IP = 0x5bd1e9955bd1e995L;
+
+    private final LimitesDeTaxa limites;
+    private final ObjectMapper objectMapper;
+    private final Counter rejeitadas;
+
+    public LimiteTaxaFilter(LimitesDeTaxa limites, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.limites = limites;
+        this.objectMapper = objectMapper;
+        this.rejeitadas = Counter.builder("limite.taxa.rejeitadas")
+                .description("Requisições recusadas com 429 por cota de requisições esgotada")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        LimitesDeTaxa.Regra regra = limites.regraPara(request);
+
+        if (regra == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long restantes = regra.balde.consumir(chave(request), System.nanoTime());
+
+        response.setHeader(CABECALHO_LIMITE, regra.limite);
+
+        if (restantes >= 0) {
+            response.setHeader(CABECALHO_RESTANTE, regra.numero(restantes));
+            response.setHeader(CABECALHO_RESET, regra.numero(regra.balde.segundosParaEncher(restantes)));
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        rejeitadas.increment();
+
+        long segundos = LimitesDeTaxa.segundos(-restantes);
+
+        response.setHeader(CABECALHO_RESTANTE, regra.numero(0));
+        response.setHeader(CABECALHO_RESET, regra.numero(segundos));
+        response.setHeader(HttpHeaders.RETRY_AFTER, regra.numero(segundos));
+
+        ApiError erro = new ApiError("Limite de requisições excedido, tente novamente mais tarde",
+                HttpStatus.TOO_MANY_REQUESTS.value(), LocalDateTime.now());
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), erro);
+    }
+
+    //o principal do JWT é montado a cada requisição, então vale o id e não a instância
+    private static long chave(HttpServletRequest request) {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+
+        if (autenticacao != null && autenticacao.getPrincipal() instanceof Usuario usuario) {
+            return usuario.getId();
+        }
+
+        return LimitesDeTaxa.hash(request.getRemoteAddr()) ^ SAL_IP;
+    }
+}
@@ -0,0 +1,167 @@
+package com.supera.acessos.auth.security;
+
+import com.supera.acessos.exceptions.LimiteExcedidoException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+//limites por rota lidos da configuração, no formato capacidade/reposição por segundo
+//ex.: "GET /solicitacoes=30/10" aceita rajada de 30 e depois 10 por segundo; sem método vale para todos
+//a rota mais específica (prefixo mais longo) ganha; o que não casa com nenhuma usa o padrão
+@Component
+public class LimitesDeTaxa {
+
+    //maior valor de cabeçalho que fica pré-montado; acima disso o número é formatado na hora
+    private static final int NUMEROS_PRE_MONTADOS = 3600;
+
+    private final boolean habilitado;
+    private final Regra padrao;
+    private final Regra[] regras;
+    private final String[] rotasLivres;
+    private final BaldeDeTokens loginPorEmail;
+
+    public LimitesDeTaxa(
+            @Value("${limite-taxa.habilitado:true}") boolean habilitado,
+            @Value("${limite-taxa.padrao:120/60}") String padrao,
+            @Value("${limite-taxa.rotas:}") List<String> rotas,
+            @Value("${limite-taxa.login-por-email:5/0.05}") String loginPorEmail,
+            @Value("${limite-taxa.rotas-livres:/actuator}") List<String> rotasLivres,
+            @Value("${limite-taxa.chaves-maximas:100000}") int chavesMaximas
+    ) {
+        this.habilitado = habilitado;
+        this.padrao = regra(null, "/", padrao, chavesMaximas);
+        this.rotasLivres = rotasLivres.toArray(String[]::new);
+        this.loginPorEmail = balde(loginPorEmail, chavesMaximas);
+
+        List<Regra> lidas = new ArrayList<>();
+
+        for (String rota : rotas) {
+            int igual = rota.lastIndexOf('=');
+            if (igual < 0) {
+                throw new IllegalArgumentException("Limite de rota inválido: " + rota);
+            }
+
+            String caminho = rota.substring(0, igual).trim();
+            int espaco = caminho.indexOf(' ');
+            String metodo = espaco < 0 ? null : caminho.substring(0, espaco).toUpperCase();
+            String prefixo = espaco < 0 ? caminho : caminho.substring(espaco + 1).trim();
+
+            lidas.add(regra(metodo, prefixo, rota.substring(igual + 1), chavesMaximas));
+        }
+
+        //prefixo mais longo primeiro; no empate, a regra com método vem antes da genérica
+        lidas.sort(Comparator.comparingInt((Regra r) -> r.prefixo.length()).reversed()
+                .thenComparing(r -> r.metodo == null));
+
+        this.regras = lidas.toArray(Regra[]::new);
+    }
+
+    //null: a requisição não passa pelo limitador
+    Regra regraPara(HttpServletRequest request) {
+
+        if (!habilitado) {
+            return null;
+        }
+
+        String uri = request.getRequestURI();
+
+        for (String livre : rotasLivres) {
+            if (uri.startsWith(livre)) {
+                return null;
+            }
+        }
+
+        String metodo = request.getMethod();
+
+        for (Regra regra : regras) {
+            if ((regra.metodo == null || regra.metodo.equals(metodo)) && uri.startsWith(regra.prefixo)) {
+                return regra;
+            }
+        }
+
+        return padrao;
+    }
+
+    //o e-mail só é conhecido depois de ler o corpo, por isso a checagem fica no login e não no filtro
+    //tentativas contra a mesma conta esgotam a cota mesmo vindo de IPs diferentes
+    public void verificarLoginPorEmail(String email) {
+
+        if (!habilitado || email == null) {
+            return;
+        }
+
+        long restantes = loginPorEmail.consumir(hash(email), System.nanoTime());
+
+        if (restantes < 0) {
+            throw new LimiteExcedidoException(
+                    "Muitas tentativas de login para este usuário, tente novamente mais tarde",
+                    segundos(-restantes));
+        }
+    }
+
+    //FNV-1a direto sobre os caracteres, sem criar a versão minúscula da string
+    static long hash(String valor) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < valor.length(); i++) {
+            hash ^= Character.toLowerCase(valor.charAt(i));
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+    static long segundos(long nanos) {
+        return Math.max(1, (nanos + 999_999_999) / 1_000_000_000);
+    }
+
+    private static Regra regra(String metodo, String prefixo, String limite, int chavesMaximas) {
+        return new Regra(metodo, prefixo, balde(limite, chavesMaximas));
+    }
+
+    private static BaldeDeTokens balde(String limite, int chavesMaximas) {
+        int barra = limite.indexOf('/');
+        if (barra < 0) {
+            throw new IllegalArgumentException("Limite inválido: " + limite);
+        }
+
+        return new BaldeDeTokens(
+                Integer.parseInt(limite.substring(0, barra).trim()),
+                Double.parseDouble(limite.substring(barra + 1).trim()),
+                chavesMaximas);
+    }
+
+    static final class Regra {
+
+        final String metodo;
+        final String prefixo;
+        final BaldeDeTokens balde;
+        final String limite;
+
+        //valores de cabeçalho montados uma vez; o caminho quente só indexa o array
+        private final String[] numeros;
+
+        private Regra(String metodo, String prefixo, BaldeDeTokens balde) {
+            this.metodo = metodo;
+            this.prefixo = prefixo;
+            this.balde = balde;
+            this.limite = Integer.toString(balde.capacidade());
+
+            int tamanho = (int) Math.min(NUMEROS_PRE_MONTADOS,
+                    Math.max(balde.capacidade(), balde.segundosParaEncher(0))) + 1;
+
+            this.numeros = new String[tamanho];
+            for (int i = 0; i < tamanho; i++) {
+                numeros[i] = Integer.toString(i);
+            }
+        }
+
+        String numero(long valor) {
+            return valor < numeros.length ? numeros[(int) valor] : Long.toString(valor);
+        }
+    }
+}
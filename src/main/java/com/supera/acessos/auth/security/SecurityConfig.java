@@ -15,6 +15,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtFilter;
+    private final LimiteTaxaFilter limiteTaxaFilter;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -23,10 +24,12 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable()) // não usamos CSRF com JWT
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // sem sessões
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/auth/login").permitAll() // login liberado
+                        .requestMatchers("/auth/login", "/auth/refresh").permitAll() // login e renovação liberados
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // probes e scrape
                         .anyRequest().authenticated() // resto exige token
                 )
-                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(limiteTaxaFilter, JwtAuthenticationFilter.class); // cota por usuário depois de autenticar
 
         return http.build();
     }
@@ -0,0 +1,17 @@
+package com.supera.acessos.auth.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@Configuration
+public class SenhaConfig {
+
+    //um encoder só para cadastro e login; hashes com custo menor são refeitos no próximo login
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${auth.senha.custo:10}") int custo) {
+        return new BCryptPasswordEncoder(custo);
+    }
+}
@@ -0,0 +1,90 @@
+package com.supera.acessos.auth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+//cache de tokens já verificados, indexado pelo SHA-256 do token (o token em si não fica em memória)
+//o Caffeine limita o tamanho e expira cada entrada no próprio prazo, sem varrer o mapa na thread da requisição
+//a admissão por frequência também impede que uma rajada de tokens distintos expulse os tokens em uso
+class TokenVerificadoCache {
+
+    private final long ttlMillis;
+    private final Cache<String, Entrada> entradas;
+
+    TokenVerificadoCache(int tamanhoMaximo, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entradas = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfter(new ExpiraNoPrazo())
+                .build();
+    }
+
+    Claims buscar(String token) {
+
+        Entrada entrada = entradas.getIfPresent(digest(token));
+
+        //o Caffeine só limpa no próximo ciclo de manutenção; o exp continua valendo até lá
+        if (entrada == null || entrada.expiraEm() <= System.currentTimeMillis()) {
+            return null;
+        }
+
+        return entrada.claims();
+    }
+
+    void guardar(String token, Claims claims) {
+
+        long agora = System.currentTimeMillis();
+        long expiraEm = agora + ttlMillis;
+
+        //a entrada nunca sobrevive ao exp do próprio token
+        Date exp = claims.getExpiration();
+        if (exp != null) {
+            expiraEm = Math.min(expiraEm, exp.getTime());
+        }
+
+        if (expiraEm <= agora) {
+            return;
+        }
+
+        entradas.put(digest(token), new Entrada(claims, expiraEm));
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private record Entrada(Claims claims, long expiraEm) {}
+
+    //cada entrada vence no seu expiraEm; leituras não estendem o prazo
+    private static final class ExpiraNoPrazo implements Expiry<String, Entrada> {
+
+        @Override
+        public long expireAfterCreate(String chave, Entrada entrada, long agoraNanos) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entrada.expiraEm() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String chave, Entrada entrada, long agoraNanos, long restanteNanos) {
+            return expireAfterCreate(chave, entrada, agoraNanos);
+        }
+
+        @Override
+        public long expireAfterRead(String chave, Entrada entrada, long agoraNanos, long restanteNanos) {
+            return restanteNanos;
+        }
+    }
+}
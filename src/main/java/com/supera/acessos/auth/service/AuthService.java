@@ -2,11 +2,13 @@ package com.supera.acessos.auth.service;
 
 import com.supera.acessos.auth.dto.LoginRequestDTO;
 import com.supera.acessos.auth.dto.LoginResponseDTO;
+import com.supera.acessos.auth.dto.RefreshRequestDTO;
 import com.supera.acessos.auth.security.JwtTokenService;
+import com.supera.acessos.auth.security.LimitesDeTaxa;
+import com.supera.acessos.infra.BulkheadBanco;
 import com.supera.acessos.usuario.entity.Usuario;
 import com.supera.acessos.usuario.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -15,27 +17,54 @@ public class AuthService {
 
     private final UsuarioService usuarioService;
     private final JwtTokenService jwtTokenService;
-
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final VerificacaoSenhaService verificacaoSenha;
+    private final RefreshTokenService refreshTokenService;
+    private final LimitesDeTaxa limites;
+    private final BulkheadBanco bulkheadBanco;
 
     public LoginResponseDTO login(LoginRequestDTO dto) {
 
+        //cota por conta antes de qualquer consulta ou BCrypt
+        limites.verificarLoginPorEmail(dto.email());
+
+        //a rota fica fora do BulkheadBancoFilter para não segurar vaga durante o BCrypt:
+        //cada acesso ao banco pega a sua
         //buscar usuario pelo e-mail
-        Usuario usuario = usuarioService.buscarPorEmail(dto.email())
+        Usuario usuario = bulkheadBanco.executar(() -> usuarioService.buscarPorEmail(dto.email()))
                 .orElseThrow(() -> new RuntimeException("Usuário ou senha inválidos"));
 
-        //validara senha
-        if (!passwordEncoder.matches(dto.senha(), usuario.getSenha())) {
+        //validar a senha no pool do BCrypt
+        VerificacaoSenhaService.Verificacao verificacao = verificacaoSenha.verificar(dto.senha(), usuario.getSenha());
+
+        if (!verificacao.confere()) {
             throw new RuntimeException("Usuário ou senha inválidos");
         }
 
+        //hash com custo antigo é trocado de forma transparente
+        if (verificacao.novoHash() != null) {
+            bulkheadBanco.executar(() -> usuarioService.atualizarHashSenha(usuario.getId(), verificacao.novoHash()));
+        }
+
         //gerar token
         String token = jwtTokenService.gerarToken(usuario);
 
         //retornar resposta com token tempo
         return new LoginResponseDTO(
                 token,
-                jwtTokenService.getExpiracao()
+                jwtTokenService.getExpiracao(),
+                bulkheadBanco.executar(() -> refreshTokenService.emitir(usuario))
+        );
+    }
+
+    //novo access token sem senha: nem BCrypt nem busca por e-mail
+    public LoginResponseDTO renovar(RefreshRequestDTO dto) {
+
+        RefreshTokenService.Rotacao rotacao = refreshTokenService.rotacionar(dto.refreshToken());
+
+        return new LoginResponseDTO(
+                jwtTokenService.gerarToken(rotacao.usuario()),
+                jwtTokenService.getExpiracao(),
+                rotacao.refreshToken()
         );
     }
 }
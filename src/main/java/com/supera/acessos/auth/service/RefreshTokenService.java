@@ -0,0 +1,157 @@
+package com.supera.acessos.auth.service;
+
+import com.supera.acessos.auth.entity.RefreshToken;
+import com.supera.acessos.auth.repository.RefreshTokenRepository;
+import com.supera.acessos.exceptions.ApiException;
+import com.supera.acessos.usuario.entity.Usuario;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+//refresh tokens opacos e rotativos: cada uso devolve um token novo da mesma família e invalida o anterior
+//como o token tem 256 bits aleatórios, SHA-256 basta para guardá-lo; BCrypt só no login com senha
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final String INVALIDO = "Refresh token inválido ou expirado";
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long validadeDias;
+
+    private final Counter renovados;
+    private final Counter reusos;
+    private final Counter invalidos;
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${auth.refresh.validade-dias:14}") long validadeDias
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validadeDias = validadeDias;
+
+        this.renovados = contador(meterRegistry, "renovado");
+        this.reusos = contador(meterRegistry, "reuso");
+        this.invalidos = contador(meterRegistry, "invalido");
+    }
+
+    //login com senha: começa uma família nova
+    public String emitir(Usuario usuario) {
+        String token = gerar();
+        refreshTokenRepository.save(novo(usuario, UUID.randomUUID().toString(), token, LocalDateTime.now()));
+        return token;
+    }
+
+    public Rotacao rotacionar(String token) {
+
+        Resultado resultado = transactionTemplate.execute(status -> trocar(hash(token)));
+
+        switch (resultado.situacao()) {
+            case REUSO -> {
+                reusos.increment();
+                log.warn("Refresh token reutilizado; família {} revogada", resultado.familia());
+                throw new ApiException(INVALIDO, HttpStatus.UNAUTHORIZED);
+            }
+            case INVALIDO -> {
+                invalidos.increment();
+                throw new ApiException(INVALIDO, HttpStatus.UNAUTHORIZED);
+            }
+            default -> {
+                renovados.increment();
+                return resultado.rotacao();
+            }
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${auth.refresh.limpeza-ms:3600000}",
+            initialDelayString = "${auth.refresh.limpeza-ms:3600000}"
+    )
+    public void excluirVencidos() {
+        int excluidos = refreshTokenRepository.excluirVencidos(LocalDateTime.now());
+
+        if (excluidos > 0) {
+            log.info("{} refresh tokens vencidos excluídos", excluidos);
+        }
+    }
+
+    //select com o usuário, update condicional do atual e insert do próximo, na mesma transação
+    private Resultado trocar(String hash) {
+
+        RefreshToken atual = refreshTokenRepository.buscarPorHash(hash).orElse(null);
+        LocalDateTime agora = LocalDateTime.now();
+
+        if (atual == null || atual.getRevogadoEm() != null || atual.getExpiraEm().isBefore(agora)) {
+            return new Resultado(Situacao.INVALIDO, null, null);
+        }
+
+        //já rotacionado (ou rotacionado agora por outra requisição): alguém tem uma cópia do token
+        if (atual.getUsadoEm() != null || refreshTokenRepository.marcarUsado(atual.getId(), agora) == 0) {
+            refreshTokenRepository.revogarFamilia(atual.getFamilia(), agora);
+            return new Resultado(Situacao.REUSO, atual.getFamilia(), null);
+        }
+
+        String proximo = gerar();
+        refreshTokenRepository.save(novo(atual.getUsuario(), atual.getFamilia(), proximo, agora));
+
+        return new Resultado(Situacao.RENOVADO, atual.getFamilia(), new Rotacao(atual.getUsuario(), proximo));
+    }
+
+    private RefreshToken novo(Usuario usuario, String familia, String token, LocalDateTime agora) {
+        return RefreshToken.builder()
+                .usuario(usuario)
+                .familia(familia)
+                .hashToken(hash(token))
+                .criadoEm(agora)
+                .expiraEm(agora.plusDays(validadeDias))
+                .build();
+    }
+
+    private static String gerar() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("auth.refresh")
+                .description("Renovações de token por resultado")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    public record Rotacao(Usuario usuario, String refreshToken) {}
+
+    private enum Situacao { RENOVADO, REUSO, INVALIDO }
+
+    private record Resultado(Situacao situacao, String familia, Rotacao rotacao) {}
+}
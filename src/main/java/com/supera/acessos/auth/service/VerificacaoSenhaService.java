@@ -0,0 +1,108 @@
+package com.supera.acessos.auth.service;
+
+import com.supera.acessos.exceptions.ApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//BCrypt fora da thread da requisição, num pool próprio e limitado (threads = metade dos núcleos, fila curta)
+//pico de logins enche a fila e recebe 429 na hora, em vez de tomar a CPU do resto da API
+@Slf4j
+@Service
+public class VerificacaoSenhaService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer tempoHash;
+    private final Counter rejeitadas;
+
+    public VerificacaoSenhaService(
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${auth.senha.threads:0}") int threads,
+            @Value("${auth.senha.fila:32}") int fila
+    ) {
+        this.passwordEncoder = passwordEncoder;
+
+        //0 = metade dos núcleos: BCrypt é CPU pura e uma rajada de logins não pode tomar todos eles
+        //do restante das requisições
+        int tamanho = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger contador = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(
+                tamanho, tamanho,
+                0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fila),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "bcrypt-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        this.tempoHash = Timer.builder("auth.senha.hash")
+                .description("Tempo de verificação (e rehash) da senha")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejeitadas = Counter.builder("auth.senha.rejeitadas")
+                .description("Logins recusados com o pool de verificação cheio")
+                .register(meterRegistry);
+        Gauge.builder("auth.senha.fila", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("auth.senha.ativas", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+
+        log.info("Verificação de senha com {} threads e fila de {}", tamanho, fila);
+    }
+
+    //confere a senha e, se o hash guardado tiver custo menor que o configurado, já devolve o novo hash
+    public Verificacao verificar(String senha, String hash) {
+
+        Future<Verificacao> resultado;
+
+        try {
+            resultado = executor.submit(() -> tempoHash.record(() -> {
+                if (!passwordEncoder.matches(senha, hash)) {
+                    return new Verificacao(false, null);
+                }
+
+                String novoHash = passwordEncoder.upgradeEncoding(hash) ? passwordEncoder.encode(senha) : null;
+                return new Verificacao(true, novoHash);
+            }));
+        } catch (RejectedExecutionException e) {
+            rejeitadas.increment();
+            throw new ApiException("Muitos logins simultâneos, tente novamente", HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        try {
+            return resultado.get();
+        } catch (InterruptedException e) {
+            resultado.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Verificação de senha interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha na verificação de senha", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdownNow();
+    }
+
+    public record Verificacao(boolean confere, String novoHash) {}
+}
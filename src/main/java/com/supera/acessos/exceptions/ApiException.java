@@ -1,7 +1,21 @@
 package com.supera.acessos.exceptions;
 
+import org.springframework.http.HttpStatus;
+
 public class ApiException extends RuntimeException {
+
+    private final HttpStatus status;
+
     public ApiException(String mensagem) {
+        this(mensagem, HttpStatus.BAD_REQUEST);
+    }
+
+    public ApiException(String mensagem, HttpStatus status) {
         super(mensagem);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
     }
-}
\ No newline at end of file
+}
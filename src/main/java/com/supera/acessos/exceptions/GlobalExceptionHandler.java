@@ -1,25 +1,56 @@
 package com.supera.acessos.exceptions;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> erros = new ConcurrentHashMap<>();
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(ApiException.class)
     public ResponseEntity<ApiError> handleApiException(ApiException ex) {
 
+        contar(ex);
+
         ApiError error = new ApiError(
                 ex.getMessage(),
-                HttpStatus.BAD_REQUEST.value(),
+                ex.getStatus().value(),
                 LocalDateTime.now()
         );
 
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.status(ex.getStatus());
+
+        //cota esgotada: o limitador sabe quando volta a ter vaga
+        //sobrecarga momentânea: o cliente pode repetir logo em seguida
+        if (ex instanceof LimiteExcedidoException limite) {
+            resposta.header(HttpHeaders.RETRY_AFTER, String.valueOf(limite.getSegundosParaTentar()));
+        } else if (ex.getStatus() == HttpStatus.TOO_MANY_REQUESTS || ex.getStatus() == HttpStatus.SERVICE_UNAVAILABLE) {
+            resposta.header(HttpHeaders.RETRY_AFTER, "1");
+        }
+
+        return resposta.body(error);
+    }
+
+    //as tentativas do serviço se esgotaram: o cliente relê e decide se repete
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiError> handleConflitoDeVersao(OptimisticLockingFailureException ex) {
+        return handleApiException(new ApiException("Registro alterado por outra operação, tente novamente", HttpStatus.CONFLICT));
     }
 
     @ExceptionHandler(Exception.class)
@@ -33,4 +64,17 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
-}
\ No newline at end of file
+
+    //tags só com a classe da exceção e o status: a mensagem pode levar e-mail ou id e o /actuator/prometheus é aberto
+    private void contar(ApiException ex) {
+        String excecao = ex.getClass().getSimpleName();
+        String status = String.valueOf(ex.getStatus().value());
+
+        erros.computeIfAbsent(excecao + ' ' + status, chave -> Counter.builder("api.erros")
+                        .description("ApiException devolvidas ao cliente, por tipo e status")
+                        .tag("excecao", excecao)
+                        .tag("status", status)
+                        .register(meterRegistry))
+                .increment();
+    }
+}
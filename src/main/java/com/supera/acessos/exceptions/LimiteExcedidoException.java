@@ -0,0 +1,18 @@
+package com.supera.acessos.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+//cota de requisições esgotada: 429 com o Retry-After calculado pelo limitador
+public class LimiteExcedidoException extends ApiException {
+
+    private final long segundosParaTentar;
+
+    public LimiteExcedidoException(String mensagem, long segundosParaTentar) {
+        super(mensagem, HttpStatus.TOO_MANY_REQUESTS);
+        this.segundosParaTentar = segundosParaTentar;
+    }
+
+    public long getSegundosParaTentar() {
+        return segundosParaTentar;
+    }
+}
@@ -0,0 +1,105 @@
+package com.supera.acessos.infra;
+
+import com.supera.acessos.exceptions.ApiException;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//no máximo N usos simultâneos do banco, N = tamanho do pool
+//com virtual threads não há mais limite de threads, então é este semáforo que protege o Postgres
+//o BulkheadBancoFilter segura uma vaga pela requisição inteira; rotas livres do filtro pegam vaga só em volta das consultas
+@Slf4j
+@Component
+public class BulkheadBanco {
+
+    private final Semaphore vagas;
+    private final int capacidade;
+    private final long esperaMaximaMs;
+
+    private final AtomicInteger aguardando = new AtomicInteger();
+    private final Counter rejeitadas;
+    private final Timer espera;
+
+    public BulkheadBanco(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${bulkhead.banco.vagas:0}") int vagas,
+            @Value("${bulkhead.banco.espera-maxima-ms:1000}") long esperaMaximaMs
+    ) {
+        //0 = acompanha o maximumPoolSize do Hikari
+        this.capacidade = vagas > 0 ? vagas : tamanhoDoPool(dataSource);
+        this.vagas = new Semaphore(capacidade, true);
+        this.esperaMaximaMs = esperaMaximaMs;
+
+        Gauge.builder("bulkhead.banco.capacidade", () -> capacidade).register(meterRegistry);
+        Gauge.builder("bulkhead.banco.ocupadas", this.vagas, s -> capacidade - s.availablePermits()).register(meterRegistry);
+        Gauge.builder("bulkhead.banco.aguardando", aguardando, AtomicInteger::get).register(meterRegistry);
+        this.rejeitadas = Counter.builder("bulkhead.banco.rejeitadas").register(meterRegistry);
+        this.espera = Timer.builder("bulkhead.banco.espera").publishPercentiles(0.5, 0.99).register(meterRegistry);
+
+        log.info("Bulkhead do banco com {} vagas", capacidade);
+    }
+
+    //quem não consegue vaga dentro da espera máxima recebe 503 em vez de ficar preso no pool do Hikari
+    public <T> T executar(Supplier<T> acao) {
+
+        if (!entrar()) {
+            throw new ApiException("Servidor ocupado, tente novamente", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        try {
+            return acao.get();
+        } finally {
+            sair();
+        }
+    }
+
+    public void executar(Runnable acao) {
+        executar(() -> {
+            acao.run();
+            return null;
+        });
+    }
+
+    boolean entrar() {
+        long inicio = System.nanoTime();
+        aguardando.incrementAndGet();
+
+        try {
+            if (vagas.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            aguardando.decrementAndGet();
+            espera.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+
+        rejeitadas.increment();
+        return false;
+    }
+
+    void sair() {
+        vagas.release();
+    }
+
+    private static int tamanhoDoPool(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) {
+            return hikari.getMaximumPoolSize();
+        }
+        return 10;
+    }
+}
@@ -0,0 +1,77 @@
+package com.supera.acessos.infra;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supera.acessos.exceptions.ApiError;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+//bulkhead na frente das rotas que usam o banco: cada requisição ocupa uma vaga do BulkheadBanco até terminar
+//quem não consegue vaga dentro da espera máxima recebe 503 em vez de ficar preso no pool do Hikari
+@Component
+public class BulkheadBancoFilter extends OncePerRequestFilter {
+
+    private final BulkheadBanco bulkhead;
+    private final List<String> rotasLivres;
+    private final ObjectMapper objectMapper;
+
+    public BulkheadBancoFilter(
+            BulkheadBanco bulkhead,
+            ObjectMapper objectMapper,
+            @Value("${bulkhead.banco.rotas-livres:/actuator,/modulos,/acessos,/auth/login}") List<String> rotasLivres
+    ) {
+        this.bulkhead = bulkhead;
+        this.rotasLivres = rotasLivres;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        //catálogo, índice de acessos e actuator respondem da memória
+        //o login passa a maior parte do tempo no pool do BCrypt: o AuthService pega vaga só em volta das consultas
+        String uri = request.getRequestURI();
+        return rotasLivres.stream().anyMatch(uri::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        if (!bulkhead.entrar()) {
+            recusar(response);
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            bulkhead.sair();
+        }
+    }
+
+    private void recusar(HttpServletResponse response) throws IOException {
+        ApiError erro = new ApiError(
+                "Servidor ocupado, tente novamente",
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                LocalDateTime.now()
+        );
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), erro);
+    }
+}
@@ -0,0 +1,91 @@
+package com.supera.acessos.infra;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//cache de segundo nível do Hibernate (JCache + Caffeine, em memória)
+//as regiões são criadas aqui com tamanho e TTL da configuração; o Hibernate falha na subida se faltar alguma
+@Slf4j
+@Configuration
+public class CacheSegundoNivelConfig {
+
+    public static final String REGIAO_MODULOS = "modulos";
+    public static final String REGIAO_USUARIOS = "usuarios";
+    public static final String REGIAO_MODULOS_DO_USUARIO = "usuarios-modulos";
+    public static final String REGIAO_USUARIO_POR_EMAIL = "usuarios-por-email";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerSegundoNivel(
+            MeterRegistry meterRegistry,
+            @Value("${cache.segundo-nivel.estatisticas:true}") boolean estatisticas,
+            @Value("${cache.segundo-nivel.modulos.tamanho-maximo:1000}") long modulos,
+            @Value("${cache.segundo-nivel.modulos.ttl-segundos:600}") long ttlModulos,
+            @Value("${cache.segundo-nivel.usuarios.tamanho-maximo:10000}") long usuarios,
+            @Value("${cache.segundo-nivel.usuarios.ttl-segundos:300}") long ttlUsuarios,
+            @Value("${cache.segundo-nivel.consultas.tamanho-maximo:10000}") long consultas,
+            @Value("${cache.segundo-nivel.consultas.ttl-segundos:60}") long ttlConsultas
+    ) {
+        //um gerenciador por contexto: testes com contextos diferentes não dividem (nem fecham) as mesmas regiões
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("acessos-modulos-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        Regioes regioes = new Regioes(cacheManager, meterRegistry, estatisticas);
+        regioes.criar(REGIAO_MODULOS, modulos, ttlModulos);
+        regioes.criar(REGIAO_USUARIOS, usuarios, ttlUsuarios);
+        regioes.criar(REGIAO_MODULOS_DO_USUARIO, usuarios, ttlUsuarios);
+        regioes.criar(REGIAO_USUARIO_POR_EMAIL, consultas, ttlConsultas);
+        regioes.criar(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, consultas, ttlConsultas);
+
+        //o cache de consultas só é seguro se os timestamps das tabelas nunca forem despejados
+        regioes.criar(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, 0, 0);
+
+        log.info("Cache de segundo nível com as regiões {}", cacheManager.getCacheNames());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivel(CacheManager cacheManagerSegundoNivel) {
+        return propriedades -> propriedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerSegundoNivel);
+    }
+
+    private record Regioes(CacheManager cacheManager, MeterRegistry meterRegistry, boolean estatisticas) {
+
+        //tamanho e ttl 0 = sem limite
+        void criar(String nome, long tamanhoMaximo, long ttlSegundos) {
+
+            CaffeineConfiguration<Object, Object> configuracao = new CaffeineConfiguration<>()
+                    .setTypes(Object.class, Object.class)
+                    //as entradas do Hibernate já são cópias desmontadas: guardar por referência evita serializar a cada leitura
+                    .setStoreByValue(false)
+                    .setStatisticsEnabled(estatisticas)
+                    .setMaximumSize(tamanhoMaximo > 0 ? OptionalLong.of(tamanhoMaximo) : OptionalLong.empty())
+                    .setExpireAfterWrite(ttlSegundos > 0
+                            ? OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSegundos))
+                            : OptionalLong.empty());
+
+            Cache<Object, Object> cache = cacheManager.createCache(nome, configuracao);
+
+            //cache.gets (hit/miss), cache.puts, cache.removals e cache.evictions por região
+            if (estatisticas) {
+                JCacheMetrics.monitor(meterRegistry, cache);
+            }
+        }
+    }
+}
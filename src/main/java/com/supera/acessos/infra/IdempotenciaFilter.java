@@ -0,0 +1,381 @@
+package com.supera.acessos.infra;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.supera.acessos.exceptions.ApiError;
+import com.supera.acessos.usuario.entity.Usuario;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+//Idempotency-Key nas rotas de escrita: a primeira resposta fica guardada e as repetições recebem a mesma, sem passar pelo serviço
+//a chave vale por usuário, método e caminho; repetições que chegam com a original em andamento esperam o resultado dela
+//a mesma chave com outro corpo é erro do cliente (422), nunca a resposta de uma operação diferente
+//o corpo fica em memória para a comparação, então acima de corpo-maximo-bytes a requisição é recusada (413)
+//roda depois do Spring Security (precisa do usuário) e antes do bulkhead: a repetição não ocupa vaga do banco
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    static final String CABECALHO = "Idempotency-Key";
+    static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    //peso da entrada enquanto a original ainda não respondeu
+    private static final int PESO_EM_ANDAMENTO = 1;
+
+    //o container calcula estes de novo na repetição; o tipo do conteúdo é guardado à parte
+    private static final Set<String> CABECALHOS_NAO_GUARDADOS = Set.of(
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.CONTENT_TYPE.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.CONNECTION.toLowerCase(),
+            HttpHeaders.DATE.toLowerCase()
+    );
+
+    private final Cache<String, Execucao> execucoes;
+    private final List<String> rotas;
+    private final long esperaMaximaMs;
+    private final long corpoMaximoBytes;
+    private final ObjectMapper objectMapper;
+
+    private final Counter repetidas;
+    private final Counter agrupadas;
+
+    public IdempotenciaFilter(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${idempotencia.memoria-maxima-mb:64}") long memoriaMaximaMb,
+            @Value("${idempotencia.ttl-segundos:86400}") long ttlSegundos,
+            @Value("${idempotencia.espera-maxima-ms:10000}") long esperaMaximaMs,
+            @Value("${idempotencia.corpo-maximo-bytes:1048576}") long corpoMaximoBytes,
+            @Value("${idempotencia.rotas:/solicitacoes}") List<String> rotas
+    ) {
+        //limitado pelo tamanho das respostas guardadas, não pela quantidade de chaves
+        this.execucoes = Caffeine.newBuilder()
+                .maximumWeight(memoriaMaximaMb * 1024 * 1024)
+                .weigher((String chave, Execucao execucao) -> chave.length() + execucao.peso())
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .build();
+        this.rotas = rotas;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.corpoMaximoBytes = corpoMaximoBytes;
+        this.objectMapper = objectMapper;
+
+        this.repetidas = Counter.builder("idempotencia.repetidas")
+                .description("Requisições respondidas com a resposta guardada da mesma Idempotency-Key")
+                .register(meterRegistry);
+        this.agrupadas = Counter.builder("idempotencia.agrupadas")
+                .description("Repetições que chegaram com a requisição original ainda em andamento")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        //sem o cabeçalho a requisição segue normal; leituras não precisam de proteção contra repetição
+        String metodo = request.getMethod();
+        String uri = request.getRequestURI();
+
+        return request.getHeader(CABECALHO) == null
+                || HttpMethod.GET.matches(metodo)
+                || HttpMethod.HEAD.matches(metodo)
+                || HttpMethod.OPTIONS.matches(metodo)
+                || rotas.stream().noneMatch(uri::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String chave = request.getHeader(CABECALHO).trim();
+
+        if (chave.isEmpty() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            responderErro(response, HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+            return;
+        }
+
+        String id = usuario() + ' ' + request.getMethod() + ' ' + request.getRequestURI() + ' ' + chave;
+
+        //Content-Length declarado recusa antes de ler; sem ele (chunked) a leitura para um byte depois do limite
+        if (request.getContentLengthLong() > corpoMaximoBytes) {
+            recusarCorpo(response);
+            return;
+        }
+
+        //o corpo é lido antes para comparar com o da original; a cadeia recebe a cópia
+        CorpoLido lido = new CorpoLido(request, corpoMaximoBytes);
+
+        if (lido.corpo.length > corpoMaximoBytes) {
+            recusarCorpo(response);
+            return;
+        }
+
+        Execucao nova = new Execucao(impressao(lido.corpo), new CompletableFuture<>());
+        Execucao existente = execucoes.asMap().putIfAbsent(id, nova);
+
+        if (existente != null) {
+            if (!MessageDigest.isEqual(existente.impressao(), nova.impressao())) {
+                responderErro(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key já usada com outro corpo de requisição");
+                return;
+            }
+            repetir(existente, response);
+            return;
+        }
+
+        executar(id, nova, lido, response, filterChain);
+    }
+
+    private void executar(
+            String id,
+            Execucao execucao,
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        ContentCachingResponseWrapper copia = new ContentCachingResponseWrapper(response);
+
+        try {
+            filterChain.doFilter(request, copia);
+
+        } catch (ServletException | IOException | RuntimeException e) {
+            //nada a repetir: a próxima tentativa executa de novo
+            execucoes.asMap().remove(id, execucao);
+            execucao.resposta().completeExceptionally(e);
+            throw e;
+        }
+
+        RespostaGuardada resposta = new RespostaGuardada(
+                copia.getStatus(), copia.getContentType(), cabecalhos(copia), copia.getContentAsByteArray());
+
+        execucao.resposta().complete(resposta);
+
+        //só 2xx e 4xx que não mudam ao repetir valem até o TTL; o replace reavalia o peso agora que o tamanho é conhecido
+        if (definitiva(resposta.status(), copia.getHeader(HttpHeaders.RETRY_AFTER))) {
+            execucoes.asMap().replace(id, execucao, execucao);
+        } else {
+            execucoes.asMap().remove(id, execucao);
+        }
+
+        copia.copyBodyToResponse();
+    }
+
+    //5xx, conflito (409), limite de taxa (429) ou qualquer resposta com Retry-After pedem nova tentativa:
+    //guardadas, a repetição devolveria o erro antigo em vez de executar
+    private static boolean definitiva(int status, String retryAfter) {
+        return status < 500
+                && status != HttpStatus.CONFLICT.value()
+                && status != HttpStatus.TOO_MANY_REQUESTS.value()
+                && retryAfter == null;
+    }
+
+    private void repetir(Execucao execucao, HttpServletResponse response) throws IOException {
+
+        if (!execucao.resposta().isDone()) {
+            agrupadas.increment();
+        }
+
+        RespostaGuardada resposta;
+
+        try {
+            resposta = execucao.resposta().get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+
+        } catch (TimeoutException e) {
+            responderConflito(response, "Requisição com a mesma Idempotency-Key ainda em andamento");
+            return;
+        } catch (ExecutionException e) {
+            responderConflito(response, "Requisição com a mesma Idempotency-Key falhou, tente novamente");
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            responderConflito(response, "Requisição com a mesma Idempotency-Key ainda em andamento");
+            return;
+        }
+
+        repetidas.increment();
+
+        response.setStatus(resposta.status());
+
+        //Location, ETag e afins da original; o que os filtros anteriores já puseram nesta resposta
+        //(RateLimit-* da cota atual, por exemplo) continua valendo
+        resposta.cabecalhos().forEach((nome, valores) -> {
+            if (!response.containsHeader(nome)) {
+                valores.forEach(valor -> response.addHeader(nome, valor));
+            }
+        });
+
+        response.setHeader(CABECALHO_REPETIDA, "true");
+        if (resposta.contentType() != null) {
+            response.setContentType(resposta.contentType());
+        }
+        response.setContentLength(resposta.corpo().length);
+        response.getOutputStream().write(resposta.corpo());
+    }
+
+    private static Map<String, List<String>> cabecalhos(HttpServletResponse response) {
+        Map<String, List<String>> cabecalhos = new LinkedHashMap<>();
+
+        for (String nome : response.getHeaderNames()) {
+            if (!CABECALHOS_NAO_GUARDADOS.contains(nome.toLowerCase())) {
+                cabecalhos.putIfAbsent(nome, List.copyOf(response.getHeaders(nome)));
+            }
+        }
+
+        return cabecalhos;
+    }
+
+    private void recusarCorpo(HttpServletResponse response) throws IOException {
+        responderErro(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                "Corpo acima de " + corpoMaximoBytes + " bytes não aceita Idempotency-Key");
+    }
+
+    private void responderConflito(HttpServletResponse response, String mensagem) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        responderErro(response, HttpStatus.CONFLICT, mensagem);
+    }
+
+    private void responderErro(HttpServletResponse response, HttpStatus status, String mensagem) throws IOException {
+        ApiError erro = new ApiError(mensagem, status.value(), LocalDateTime.now());
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), erro);
+    }
+
+    //as rotas protegidas sempre têm usuário; a chave de um nunca responde pelo outro
+    //o principal do JWT é montado a cada requisição, então vale o id e não a instância
+    private static String usuario() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+
+        if (autenticacao == null) {
+            return "anonimo";
+        }
+
+        return autenticacao.getPrincipal() instanceof Usuario usuario
+                ? String.valueOf(usuario.getId())
+                : autenticacao.getName();
+    }
+
+    private static byte[] impressao(byte[] corpo) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(corpo);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private record Execucao(byte[] impressao, CompletableFuture<RespostaGuardada> resposta) {
+
+        int peso() {
+            RespostaGuardada guardada = resposta.getNow(null);
+            return impressao.length + (guardada != null ? guardada.peso() : PESO_EM_ANDAMENTO);
+        }
+    }
+
+    private record RespostaGuardada(int status, String contentType, Map<String, List<String>> cabecalhos, byte[] corpo) {
+
+        int peso() {
+            int peso = corpo.length;
+            for (Map.Entry<String, List<String>> cabecalho : cabecalhos.entrySet()) {
+                peso += cabecalho.getKey().length();
+                for (String valor : cabecalho.getValue()) {
+                    peso += valor.length();
+                }
+            }
+            return peso;
+        }
+    }
+
+    //corpo lido uma vez e servido de novo para o restante da cadeia
+    private static final class CorpoLido extends HttpServletRequestWrapper {
+
+        private final byte[] corpo;
+
+        //lê no máximo um byte além do limite: o suficiente para saber que passou
+        CorpoLido(HttpServletRequest request, long limite) throws IOException {
+            super(request);
+            this.corpo = request.getInputStream().readNBytes((int) Math.min(limite + 1, Integer.MAX_VALUE - 8));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(corpo);
+
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String charset = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -1,22 +1,36 @@
 package com.supera.acessos.modulo.controller;
 
-import com.supera.acessos.modulo.entity.Modulo;
-import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.modulo.service.ModuloCatalogoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/modulos")
 @RequiredArgsConstructor
 public class ModuloController {
 
-    private final ModuloRepository moduloRepository;
+    private final ModuloCatalogoService moduloCatalogo;
 
+    //serve o JSON pré-serializado do catálogo; If-None-Match igual ao ETag responde 304 sem corpo
     @GetMapping
-    public ResponseEntity<List<Modulo>> listar() {
-        return ResponseEntity.ok(moduloRepository.findAll());
+    public ResponseEntity<byte[]> listar(
+            @RequestParam(defaultValue = "false") boolean somenteAtivos,
+            WebRequest request
+    ) {
+        ModuloCatalogoService.Representacao catalogo = moduloCatalogo.representacao(somenteAtivos);
+
+        if (request.checkNotModified(catalogo.etag())) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(catalogo.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogo.json());
     }
-}
\ No newline at end of file
+}
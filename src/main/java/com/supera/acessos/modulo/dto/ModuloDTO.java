@@ -0,0 +1,39 @@
+package com.supera.acessos.modulo.dto;
+
+import com.supera.acessos.modulo.entity.Modulo;
+
+public record ModuloDTO(
+        Long id,
+        String nome,
+        String descricao,
+        boolean exigeAprovacaoGestor,
+        boolean exigeAprovacaoSeguranca,
+        Integer prazoExpiracaoDias,
+        boolean ativo
+) {
+
+    public static ModuloDTO de(Modulo modulo) {
+        return new ModuloDTO(
+                modulo.getId(),
+                modulo.getNome(),
+                modulo.getDescricao(),
+                modulo.isExigeAprovacaoGestor(),
+                modulo.isExigeAprovacaoSeguranca(),
+                modulo.getPrazoExpiracaoDias(),
+                modulo.isAtivo()
+        );
+    }
+
+    //cópia desanexada, usada como referência de FK sem ir ao banco
+    public Modulo paraEntidade() {
+        return Modulo.builder()
+                .id(id)
+                .nome(nome)
+                .descricao(descricao)
+                .exigeAprovacaoGestor(exigeAprovacaoGestor)
+                .exigeAprovacaoSeguranca(exigeAprovacaoSeguranca)
+                .prazoExpiracaoDias(prazoExpiracaoDias)
+                .ativo(ativo)
+                .build();
+    }
+}
@@ -1,7 +1,11 @@
 package com.supera.acessos.modulo.entity;
 
+import com.supera.acessos.infra.CacheSegundoNivelConfig;
+import com.supera.acessos.modulo.service.ModuloCatalogoListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Getter
 @Setter
@@ -10,10 +14,15 @@ import lombok.*;
 @Builder
 @Entity
 @Table(name = "modulos")
+@EntityListeners(ModuloCatalogoListener.class)
+//lido em toda criação/aprovação e quase nunca alterado; READ_WRITE mantém o cache certo nas gravações do próprio serviço
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheSegundoNivelConfig.REGIAO_MODULOS)
 public class Modulo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "modulos_seq")
+    @SequenceGenerator(name = "modulos_seq", sequenceName = "modulos_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 80)
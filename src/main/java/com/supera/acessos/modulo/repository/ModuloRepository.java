@@ -2,7 +2,15 @@ package com.supera.acessos.modulo.repository;
 
 import com.supera.acessos.modulo.entity.Modulo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ModuloRepository extends JpaRepository<Modulo, Long> {
 
-}
\ No newline at end of file
+    //projeção escalar: lê o banco mesmo com a entidade no cache de segundo nível
+    @Query("select m.id from Modulo m where m.id in :ids and m.ativo = true")
+    List<Long> buscarAtivos(@Param("ids") Collection<Long> ids);
+}
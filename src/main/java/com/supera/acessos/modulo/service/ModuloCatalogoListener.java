@@ -0,0 +1,36 @@
+package com.supera.acessos.modulo.service;
+
+import com.supera.acessos.modulo.entity.Modulo;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//recarrega o catálogo quando um módulo é gravado pela aplicação, só depois do commit
+//ObjectProvider evita o ciclo EntityManagerFactory -> listener -> repositório
+@RequiredArgsConstructor
+public class ModuloCatalogoListener {
+
+    private final ObjectProvider<ModuloCatalogoService> catalogo;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void aoAlterar(Modulo modulo) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            catalogo.getObject().recarregar();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                catalogo.getObject().recarregar();
+            }
+        });
+    }
+}
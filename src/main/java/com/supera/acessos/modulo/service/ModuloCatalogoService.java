@@ -0,0 +1,129 @@
+package com.supera.acessos.modulo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supera.acessos.modulo.dto.ModuloDTO;
+import com.supera.acessos.modulo.repository.ModuloRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//snapshot do catálogo de módulos em memória, com o JSON já serializado e ETag por conteúdo
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ModuloCatalogoService {
+
+    private final ModuloRepository moduloRepository;
+    private final ObjectMapper objectMapper;
+
+    private volatile Snapshot snapshot;
+
+    public Optional<ModuloDTO> buscarPorId(Long id) {
+        return Optional.ofNullable(snapshotAtual().porId().get(id));
+    }
+
+    //o snapshot é por nó: um módulo desativado em outra instância continua ativo aqui até a próxima recarga
+    //quem vai criar solicitação confirma no banco os módulos que o snapshot ainda dá como ativos
+    public Set<Long> confirmarAtivos(Collection<Long> ids) {
+
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<Long> ativos = new HashSet<>(moduloRepository.buscarAtivos(ids));
+
+        //snapshot desatualizado: recarrega já em vez de esperar o agendamento
+        if (ativos.size() < ids.size()) {
+            log.debug("Módulos desativados fora deste nó: {}", ids.stream().filter(id -> !ativos.contains(id)).toList());
+            recarregar();
+        }
+
+        return ativos;
+    }
+
+    public Representacao representacao(boolean somenteAtivos) {
+        Snapshot atual = snapshotAtual();
+        return somenteAtivos ? atual.ativos() : atual.todos();
+    }
+
+    public long versao() {
+        return snapshotAtual().versao();
+    }
+
+    //alterações feitas por outros nós (ou direto no banco) entram na próxima recarga
+    @Scheduled(
+            fixedDelayString = "${modulo.catalogo.recarga-ms:300000}",
+            initialDelayString = "${modulo.catalogo.recarga-ms:300000}"
+    )
+    public synchronized void recarregar() {
+
+        List<ModuloDTO> modulos = moduloRepository.findAll().stream()
+                .map(ModuloDTO::de)
+                .sorted(Comparator.comparing(ModuloDTO::id))
+                .toList();
+
+        long versao = snapshot == null ? 1 : snapshot.versao() + 1;
+
+        snapshot = new Snapshot(
+                versao,
+                modulos.stream().collect(Collectors.toUnmodifiableMap(ModuloDTO::id, Function.identity())),
+                serializar(modulos),
+                serializar(modulos.stream().filter(ModuloDTO::ativo).toList())
+        );
+
+        log.debug("Catálogo de módulos recarregado (versão {}, {} módulos)", versao, modulos.size());
+    }
+
+    private Snapshot snapshotAtual() {
+        Snapshot atual = snapshot;
+
+        if (atual == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    recarregar();
+                }
+                atual = snapshot;
+            }
+        }
+
+        return atual;
+    }
+
+    private Representacao serializar(List<ModuloDTO> modulos) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(modulos);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+
+            //ETag forte derivado do conteúdo: igual em todos os nós para o mesmo catálogo
+            String etag = "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+            return new Representacao(json, etag);
+
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Falha ao serializar o catálogo de módulos", e);
+        }
+    }
+
+    public record Representacao(byte[] json, String etag) {}
+
+    private record Snapshot(
+            long versao,
+            Map<Long, ModuloDTO> porId,
+            Representacao todos,
+            Representacao ativos
+    ) {}
+}
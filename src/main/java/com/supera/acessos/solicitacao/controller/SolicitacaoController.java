@@ -1,16 +1,29 @@
 package com.supera.acessos.solicitacao.controller;
 
 import com.supera.acessos.solicitacao.dto.CriarSolicitacaoDTO;
+import com.supera.acessos.solicitacao.dto.CriarSolicitacoesLoteDTO;
+import com.supera.acessos.solicitacao.dto.DecisaoLoteDTO;
+import com.supera.acessos.solicitacao.dto.FilaAprovacaoDTO;
+import com.supera.acessos.solicitacao.dto.FiltroSolicitacoesDTO;
+import com.supera.acessos.solicitacao.dto.ItemCriacaoLoteDTO;
+import com.supera.acessos.solicitacao.dto.PaginaDTO;
 import com.supera.acessos.solicitacao.dto.ReprovarSolicitacaoDTO;
-import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.dto.ResultadoLoteDTO;
+import com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.service.DecisaoLoteService;
+import com.supera.acessos.solicitacao.service.FilaAprovacaoService;
 import com.supera.acessos.solicitacao.service.SolicitacaoModuloService;
+import com.supera.acessos.usuario.entity.Departamento;
 import com.supera.acessos.usuario.entity.Usuario;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -19,9 +32,11 @@ import java.util.List;
 public class SolicitacaoController {
 
     private final SolicitacaoModuloService solicitacaoService;
+    private final DecisaoLoteService decisaoLoteService;
+    private final FilaAprovacaoService filaAprovacaoService;
 
     @PostMapping
-    public ResponseEntity<SolicitacaoModulo> criar(
+    public ResponseEntity<SolicitacaoResponseDTO> criar(
             @AuthenticationPrincipal Usuario usuario,
             @Valid @RequestBody CriarSolicitacaoDTO dto
     ) {
@@ -29,15 +44,41 @@ public class SolicitacaoController {
     }
 
     @PostMapping("/{id}/aprovar")
-    public ResponseEntity<SolicitacaoModulo> aprovar(
+    public ResponseEntity<SolicitacaoResponseDTO> aprovar(
             @PathVariable Long id,
             @AuthenticationPrincipal Usuario aprovador
     ) {
         return ResponseEntity.ok(solicitacaoService.aprovarSolicitacao(id, aprovador));
     }
 
+    //um item por módulo pedido, dizendo se foi criada ou por que foi ignorada
+    @PostMapping("/lote")
+    public ResponseEntity<List<ItemCriacaoLoteDTO>> criarLote(
+            @AuthenticationPrincipal Usuario usuario,
+            @Valid @RequestBody CriarSolicitacoesLoteDTO dto
+    ) {
+        return ResponseEntity.ok(solicitacaoService.criarSolicitacoes(usuario, dto));
+    }
+
+    //ids ou filtro; a resposta traz o resultado de cada solicitação
+    @PostMapping("/lote/aprovar")
+    public ResponseEntity<ResultadoLoteDTO> aprovarLote(
+            @AuthenticationPrincipal Usuario aprovador,
+            @RequestBody DecisaoLoteDTO dto
+    ) {
+        return ResponseEntity.ok(decisaoLoteService.aprovar(dto, aprovador));
+    }
+
+    @PostMapping("/lote/reprovar")
+    public ResponseEntity<ResultadoLoteDTO> reprovarLote(
+            @AuthenticationPrincipal Usuario aprovador,
+            @RequestBody DecisaoLoteDTO dto
+    ) {
+        return ResponseEntity.ok(decisaoLoteService.reprovar(dto, aprovador));
+    }
+
     @PostMapping("/{id}/reprovar")
-    public ResponseEntity<SolicitacaoModulo> reprovar(
+    public ResponseEntity<SolicitacaoResponseDTO> reprovar(
             @PathVariable Long id,
             @AuthenticationPrincipal Usuario aprovador,
             @Valid @RequestBody ReprovarSolicitacaoDTO dto
@@ -48,7 +89,7 @@ public class SolicitacaoController {
     }
 
     @PostMapping("/{id}/renovar")
-    public ResponseEntity<SolicitacaoModulo> renovar(
+    public ResponseEntity<SolicitacaoResponseDTO> renovar(
             @PathVariable Long id,
             @AuthenticationPrincipal Usuario usuario
     ) {
@@ -58,7 +99,7 @@ public class SolicitacaoController {
     }
 
     @PostMapping("/{id}/cancelar")
-    public ResponseEntity<SolicitacaoModulo> cancelar(
+    public ResponseEntity<SolicitacaoResponseDTO> cancelar(
             @PathVariable Long id,
             @AuthenticationPrincipal Usuario usuario
     ) {
@@ -68,16 +109,43 @@ public class SolicitacaoController {
     }
 
     @GetMapping
-    public ResponseEntity<List<SolicitacaoModulo>> listarMinhasSolicitacoes(
-            @AuthenticationPrincipal Usuario usuario
+    public ResponseEntity<PaginaDTO<SolicitacaoResponseDTO>> listarMinhasSolicitacoes(
+            @AuthenticationPrincipal Usuario usuario,
+            @RequestParam(required = false) StatusSolicitacao status,
+            @RequestParam(required = false) Long moduloId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limite
+    ) {
+        return ResponseEntity.ok(
+                solicitacaoService.listarSolicitacoesDoUsuario(
+                        usuario,
+                        new FiltroSolicitacoesDTO(status, moduloId, de, ate),
+                        cursor,
+                        limite
+                )
+        );
+    }
+
+    //o que aguarda o aprovador, mais antigas primeiro; status é AGUARDANDO_GESTOR ou AGUARDANDO_SEGURANCA
+    //aprovadores em solicitacao.aprovadores.*; o gestor vê só o próprio departamento
+    @GetMapping("/filas/{status}")
+    public ResponseEntity<FilaAprovacaoDTO> listarFila(
+            @AuthenticationPrincipal Usuario aprovador,
+            @PathVariable StatusSolicitacao status,
+            @RequestParam(required = false) Long moduloId,
+            @RequestParam(required = false) Departamento departamento,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limite
     ) {
         return ResponseEntity.ok(
-                solicitacaoService.listarSolicitacoesDoUsuario(usuario)
+                filaAprovacaoService.listar(aprovador, status, moduloId, departamento, cursor, limite)
         );
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<SolicitacaoModulo> detalhar(
+    public ResponseEntity<SolicitacaoResponseDTO> detalhar(
             @PathVariable Long id,
             @AuthenticationPrincipal Usuario usuario
     ) {
@@ -0,0 +1,13 @@
+package com.supera.acessos.solicitacao.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public record CriarSolicitacoesLoteDTO(
+
+        @NotEmpty(message = "Informe ao menos um módulo")
+        List<@NotNull Long> moduloIds
+
+) {}
@@ -0,0 +1,34 @@
+package com.supera.acessos.solicitacao.dto;
+
+import com.supera.acessos.exceptions.ApiException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+//posição da paginação por keyset: (dataAbertura, id) do último item entregue
+public record CursorSolicitacao(
+        LocalDateTime dataAbertura,
+        Long id
+) {
+
+    public String codificar() {
+        String valor = dataAbertura + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorSolicitacao decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf('|');
+
+            return new CursorSolicitacao(
+                    LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.parseLong(valor.substring(separador + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new ApiException("Cursor inválido");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.supera.acessos.solicitacao.dto;
+
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+
+import java.util.List;
+
+//informar ids ou filtro; o motivo só é usado (e obrigatório) na reprovação
+public record DecisaoLoteDTO(
+        List<Long> ids,
+        Filtro filtro,
+        String motivo
+) {
+
+    //sem status usa as duas filas de aprovação
+    public record Filtro(
+            StatusSolicitacao status,
+            Long moduloId
+    ) {}
+}
@@ -0,0 +1,12 @@
+package com.supera.acessos.solicitacao.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+//página da fila mais o total aproximado, vindo da última contagem periódica (contadoEm)
+public record FilaAprovacaoDTO(
+        List<SolicitacaoResponseDTO> itens,
+        String proximoCursor,
+        long totalAproximado,
+        Instant contadoEm
+) {}
@@ -0,0 +1,13 @@
+package com.supera.acessos.solicitacao.dto;
+
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+
+import java.time.LocalDate;
+
+//filtros opcionais da listagem; datas referem-se à data de abertura (ate é inclusivo)
+public record FiltroSolicitacoesDTO(
+        StatusSolicitacao status,
+        Long moduloId,
+        LocalDate de,
+        LocalDate ate
+) {}
@@ -0,0 +1,16 @@
+package com.supera.acessos.solicitacao.dto;
+
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+
+//solicitacaoId e status só vêm preenchidos quando o resultado é CRIADA
+public record ItemCriacaoLoteDTO(
+        Long moduloId,
+        ResultadoCriacao resultado,
+        Long solicitacaoId,
+        StatusSolicitacao status
+) {
+
+    public static ItemCriacaoLoteDTO ignorado(Long moduloId, ResultadoCriacao resultado) {
+        return new ItemCriacaoLoteDTO(moduloId, resultado, null, null);
+    }
+}
@@ -0,0 +1,19 @@
+package com.supera.acessos.solicitacao.dto;
+
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+
+public record ItemLoteDTO(
+        Long id,
+        boolean sucesso,
+        StatusSolicitacao status,
+        String erro
+) {
+
+    public static ItemLoteDTO sucesso(Long id, StatusSolicitacao status) {
+        return new ItemLoteDTO(id, true, status, null);
+    }
+
+    public static ItemLoteDTO falha(Long id, String erro) {
+        return new ItemLoteDTO(id, false, null, erro);
+    }
+}
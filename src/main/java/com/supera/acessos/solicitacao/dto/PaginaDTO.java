@@ -0,0 +1,8 @@
+package com.supera.acessos.solicitacao.dto;
+
+import java.util.List;
+
+public record PaginaDTO<T>(
+        List<T> itens,
+        String proximoCursor //null quando não há mais páginas
+) {}
@@ -0,0 +1,11 @@
+package com.supera.acessos.solicitacao.dto;
+
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.usuario.entity.Departamento;
+
+public record PendenciaPorModuloDTO(
+        Long moduloId,
+        Departamento departamento,
+        StatusSolicitacao status,
+        long total
+) {}
@@ -0,0 +1,9 @@
+package com.supera.acessos.solicitacao.dto;
+
+public enum ResultadoCriacao {
+    CRIADA,
+    JA_POSSUI_ACESSO,
+    PENDENTE_EXISTENTE,
+    MODULO_NAO_ENCONTRADO,
+    MODULO_INATIVO
+}
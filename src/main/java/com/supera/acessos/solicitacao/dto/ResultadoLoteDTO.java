@@ -0,0 +1,16 @@
+package com.supera.acessos.solicitacao.dto;
+
+import java.util.List;
+
+public record ResultadoLoteDTO(
+        int total,
+        int sucessos,
+        int falhas,
+        List<ItemLoteDTO> itens
+) {
+
+    public static ResultadoLoteDTO de(List<ItemLoteDTO> itens) {
+        int sucessos = (int) itens.stream().filter(ItemLoteDTO::sucesso).count();
+        return new ResultadoLoteDTO(itens.size(), sucessos, itens.size() - sucessos, itens);
+    }
+}
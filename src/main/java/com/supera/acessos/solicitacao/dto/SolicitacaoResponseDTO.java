@@ -1,8 +1,11 @@
 package com.supera.acessos.solicitacao.dto;
 
 import com.supera.acessos.modulo.dto.ModuloResumoDTO;
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
 import com.supera.acessos.usuario.dto.UsuarioResumoDTO;
 import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.usuario.entity.Usuario;
 
 import java.time.LocalDateTime;
 
@@ -17,4 +20,56 @@ public record SolicitacaoResponseDTO(
         LocalDateTime dataExpiracao,
         LocalDateTime dataCancelamento,
         String motivoRecusa
-) {}
\ No newline at end of file
+) {
+
+    //construtor plano usado nas projeções JPQL (select new ...)
+    public SolicitacaoResponseDTO(
+            Long id,
+            Long solicitanteId,
+            String solicitanteNome,
+            String solicitanteEmail,
+            Long moduloId,
+            String moduloNome,
+            boolean moduloAtivo,
+            StatusSolicitacao status,
+            LocalDateTime dataAbertura,
+            LocalDateTime dataAprovacao,
+            LocalDateTime dataReprovacao,
+            LocalDateTime dataExpiracao,
+            LocalDateTime dataCancelamento,
+            String motivoRecusa
+    ) {
+        this(
+                id,
+                new UsuarioResumoDTO(solicitanteId, solicitanteNome, solicitanteEmail),
+                new ModuloResumoDTO(moduloId, moduloNome, moduloAtivo),
+                status,
+                dataAbertura,
+                dataAprovacao,
+                dataReprovacao,
+                dataExpiracao,
+                dataCancelamento,
+                motivoRecusa
+        );
+    }
+
+    //solicitante e módulo precisam estar carregados (findById já traz os dois com join)
+    public static SolicitacaoResponseDTO de(SolicitacaoModulo solicitacao) {
+
+        Usuario solicitante = solicitacao.getSolicitante();
+        Modulo modulo = solicitacao.getModulo();
+
+        return new SolicitacaoResponseDTO(
+                solicitacao.getId(),
+                new UsuarioResumoDTO(solicitante.getId(), solicitante.getNome(), solicitante.getEmail()),
+                new ModuloResumoDTO(modulo.getId(), modulo.getNome(), modulo.isAtivo()),
+                solicitacao.getStatus(),
+                solicitacao.getDataAbertura(),
+                solicitacao.getDataAprovacao(),
+                solicitacao.getDataReprovacao(),
+                solicitacao.getDataExpiracao(),
+                solicitacao.getDataCancelamento(),
+                solicitacao.getMotivoRecusa()
+        );
+    }
+}
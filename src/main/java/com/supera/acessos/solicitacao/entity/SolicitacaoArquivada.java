@@ -0,0 +1,47 @@
+package com.supera.acessos.solicitacao.entity;
+
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.usuario.entity.Usuario;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+//solicitação em status final movida para o histórico pelo ArquivamentoSolicitacaoService; nunca mais muda
+@Getter
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "solicitacoes_historico")
+public class SolicitacaoArquivada {
+
+    //o mesmo id que tinha em solicitacoes
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario solicitante;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "modulo_id", nullable = false)
+    private Modulo modulo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private StatusSolicitacao status;
+
+    @Column(nullable = false)
+    private LocalDateTime dataAbertura;
+
+    private LocalDateTime dataAprovacao;
+    private LocalDateTime dataReprovacao;
+    private LocalDateTime dataExpiracao;
+    private LocalDateTime dataCancelamento;
+
+    private String motivoRecusa;
+
+    @Column(nullable = false)
+    private LocalDateTime arquivadaEm;
+}
@@ -17,7 +17,9 @@ import java.time.LocalDateTime;
 public class SolicitacaoModulo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    //sequence com reserva de 50 ids por ida ao banco: o insert não precisa ser imediato e entra no batch JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "solicitacoes_seq")
+    @SequenceGenerator(name = "solicitacoes_seq", sequenceName = "solicitacoes_seq", allocationSize = 50)
     private Long id;
 
     //quem pediu
@@ -43,4 +45,8 @@ public class SolicitacaoModulo {
     private LocalDateTime dataCancelamento;
 
     private String motivoRecusa;
+
+    //update com versão desatualizada falha em vez de sobrescrever a decisão concorrente
+    @Version
+    private Long versao;
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.supera.acessos.solicitacao.repository;
+
+import com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO;
+import com.supera.acessos.solicitacao.entity.SolicitacaoArquivada;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+//histórico frio: só é lido quando a solicitação não está mais em solicitacoes
+public interface SolicitacaoArquivadaRepository
+        extends JpaRepository<SolicitacaoArquivada, Long> {
+
+    @Query("""
+            select new com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO(
+                s.id, u.id, u.nome, u.email, m.id, m.nome, m.ativo, s.status,
+                s.dataAbertura, s.dataAprovacao, s.dataReprovacao, s.dataExpiracao,
+                s.dataCancelamento, s.motivoRecusa)
+            from SolicitacaoArquivada s
+            join s.solicitante u
+            join s.modulo m
+            where s.id = :id
+            """)
+    Optional<SolicitacaoResponseDTO> buscarResumoPorId(Long id);
+
+    //mesmo keyset de SolicitacaoModuloRepository.listarPaginaDoUsuario (idx_solicitacoes_historico_usuario_abertura)
+    @Query("""
+            select new com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO(
+                s.id, u.id, u.nome, u.email, m.id, m.nome, m.ativo, s.status,
+                s.dataAbertura, s.dataAprovacao, s.dataReprovacao, s.dataExpiracao,
+                s.dataCancelamento, s.motivoRecusa)
+            from SolicitacaoArquivada s
+            join s.solicitante u
+            join s.modulo m
+            where s.solicitante.id = :usuarioId
+              and (s.dataAbertura, s.id) < (:cursorData, :cursorId)
+              and s.dataAbertura >= :de
+              and (:status is null or s.status = :status)
+              and (:moduloId is null or s.modulo.id = :moduloId)
+            order by s.dataAbertura desc, s.id desc
+            """)
+    List<SolicitacaoResponseDTO> listarPaginaDoUsuario(
+            Long usuarioId,
+            LocalDateTime cursorData,
+            Long cursorId,
+            LocalDateTime de,
+            StatusSolicitacao status,
+            Long moduloId,
+            Limit limite
+    );
+
+    //cópia direta no banco, sem carregar as linhas; a remoção de solicitacoes vem em seguida, na mesma transação
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "solicitacoes_historico"))
+    @Query(value = """
+            insert into solicitacoes_historico (
+                id, usuario_id, modulo_id, status, data_abertura, data_aprovacao, data_reprovacao,
+                data_expiracao, data_cancelamento, motivo_recusa, arquivada_em)
+            select id, usuario_id, modulo_id, status, data_abertura, data_aprovacao, data_reprovacao,
+                   data_expiracao, data_cancelamento, motivo_recusa, :arquivadaEm
+            from solicitacoes
+            where id in (:ids)
+            """, nativeQuery = true)
+    int copiarDeSolicitacoes(Collection<Long> ids, LocalDateTime arquivadaEm);
+}
@@ -1,16 +1,48 @@
 package com.supera.acessos.solicitacao.repository;
 
+import com.supera.acessos.solicitacao.dto.PendenciaPorModuloDTO;
+import com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO;
 import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
 import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.usuario.entity.Departamento;
 import com.supera.acessos.usuario.entity.Usuario;
 import com.supera.acessos.modulo.entity.Modulo;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface SolicitacaoModuloRepository
         extends JpaRepository<SolicitacaoModulo, Long> {
 
+    //as operações sempre usam solicitante e módulo, então vêm no mesmo select
+    @Override
+    @EntityGraph(attributePaths = {"solicitante", "modulo"})
+    Optional<SolicitacaoModulo> findById(Long id);
+
+    @Query("""
+            select new com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO(
+                s.id, u.id, u.nome, u.email, m.id, m.nome, m.ativo, s.status,
+                s.dataAbertura, s.dataAprovacao, s.dataReprovacao, s.dataExpiracao,
+                s.dataCancelamento, s.motivoRecusa)
+            from SolicitacaoModulo s
+            join s.solicitante u
+            join s.modulo m
+            where s.id = :id
+            """)
+    Optional<SolicitacaoResponseDTO> buscarResumoPorId(Long id);
+
     boolean existsBySolicitanteAndModuloAndStatusIn(
             Usuario solicitante,
             Modulo modulo,
@@ -19,4 +51,177 @@ public interface SolicitacaoModuloRepository
 
     List<SolicitacaoModulo> findBySolicitante(Usuario usuario);
 
+    //criação em lote: quais dos módulos pedidos já têm solicitação pendente, numa consulta só
+    @Query("""
+            select distinct s.modulo.id from SolicitacaoModulo s
+            where s.solicitante.id = :usuarioId
+              and s.modulo.id in :moduloIds
+              and s.status in :status
+            """)
+    List<Long> buscarModulosComPendencia(Long usuarioId, Collection<Long> moduloIds, Collection<StatusSolicitacao> status);
+
+    //keyset: (dataAbertura, id) abaixo do cursor, mais recentes primeiro; sempre cai no índice (usuario_id, data_abertura, id)
+    @Query("""
+            select new com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO(
+                s.id, u.id, u.nome, u.email, m.id, m.nome, m.ativo, s.status,
+                s.dataAbertura, s.dataAprovacao, s.dataReprovacao, s.dataExpiracao,
+                s.dataCancelamento, s.motivoRecusa)
+            from SolicitacaoModulo s
+            join s.solicitante u
+            join s.modulo m
+            where s.solicitante.id = :usuarioId
+              and (s.dataAbertura, s.id) < (:cursorData, :cursorId)
+              and s.dataAbertura >= :de
+              and (:status is null or s.status = :status)
+              and (:moduloId is null or s.modulo.id = :moduloId)
+            order by s.dataAbertura desc, s.id desc
+            """)
+    List<SolicitacaoResponseDTO> listarPaginaDoUsuario(
+            Long usuarioId,
+            LocalDateTime cursorData,
+            Long cursorId,
+            LocalDateTime de,
+            StatusSolicitacao status,
+            Long moduloId,
+            Limit limite
+    );
+
+    //fila do aprovador: keyset (dataAbertura, id) acima do cursor, mais antigas primeiro (idx_solicitacoes_fila)
+    //o módulo tem consulta própria: um "(:moduloId is null or ...)" impediria o uso do índice por módulo
+    @Query("""
+            select new com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO(
+                s.id, u.id, u.nome, u.email, m.id, m.nome, m.ativo, s.status,
+                s.dataAbertura, s.dataAprovacao, s.dataReprovacao, s.dataExpiracao,
+                s.dataCancelamento, s.motivoRecusa)
+            from SolicitacaoModulo s
+            join s.solicitante u
+            join s.modulo m
+            where s.status = :status
+              and (s.dataAbertura, s.id) > (:cursorData, :cursorId)
+              and (:departamento is null or u.departamento = :departamento)
+            order by s.dataAbertura, s.id
+            """)
+    List<SolicitacaoResponseDTO> listarFila(
+            StatusSolicitacao status,
+            LocalDateTime cursorData,
+            Long cursorId,
+            Departamento departamento,
+            Limit limite
+    );
+
+    //idx_solicitacoes_fila_modulo; sem join explícito do módulo o filtro fica na coluna modulo_id da solicitação
+    @Query("""
+            select new com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO(
+                s.id, u.id, u.nome, u.email, s.modulo.id, s.modulo.nome, s.modulo.ativo, s.status,
+                s.dataAbertura, s.dataAprovacao, s.dataReprovacao, s.dataExpiracao,
+                s.dataCancelamento, s.motivoRecusa)
+            from SolicitacaoModulo s
+            join s.solicitante u
+            where s.status = :status
+              and s.modulo.id = :moduloId
+              and (s.dataAbertura, s.id) > (:cursorData, :cursorId)
+              and (:departamento is null or u.departamento = :departamento)
+            order by s.dataAbertura, s.id
+            """)
+    List<SolicitacaoResponseDTO> listarFilaDoModulo(
+            StatusSolicitacao status,
+            Long moduloId,
+            LocalDateTime cursorData,
+            Long cursorId,
+            Departamento departamento,
+            Limit limite
+    );
+
+    //lock.timeout = -2 vira SKIP LOCKED: cada nó pega um lote diferente
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select s from SolicitacaoModulo s
+            where s.status = :status
+              and s.dataExpiracao <= :limite
+            order by s.dataExpiracao
+            """)
+    List<SolicitacaoModulo> buscarVencidasParaExpirar(
+            StatusSolicitacao status,
+            LocalDateTime limite,
+            Limit lote
+    );
+
+    //arquivamento: status final e finalizadas antes do limite (idx_solicitacoes_arquivaveis); SKIP LOCKED como na expiração
+    //a data final é a do cancelamento, da reprovação ou da expiração, nessa ordem: a cancelada depois de aprovada
+    //ainda guarda a expiração prevista; a abertura só entra para linha antiga sem nenhuma delas
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select s from SolicitacaoModulo s
+            where s.status in :status
+              and coalesce(s.dataCancelamento, s.dataReprovacao, s.dataExpiracao, s.dataAbertura) < :limite
+            order by coalesce(s.dataCancelamento, s.dataReprovacao, s.dataExpiracao, s.dataAbertura)
+            """)
+    List<SolicitacaoModulo> buscarArquivaveis(
+            Collection<StatusSolicitacao> status,
+            LocalDateTime limite,
+            Limit lote
+    );
+
+    @Modifying
+    @Query("delete from SolicitacaoModulo s where s.id in :ids")
+    int removerPorIds(Collection<Long> ids);
+
+    //decisão em lote: um select por bloco com solicitante e módulo; os acessos atuais vêm de outra consulta do bloco
+    @Query("""
+            select s from SolicitacaoModulo s
+            join fetch s.solicitante
+            join fetch s.modulo
+            where s.id in :ids
+            """)
+    List<SolicitacaoModulo> buscarParaDecisao(Collection<Long> ids);
+
+    @Query("""
+            select s.id from SolicitacaoModulo s
+            where s.status in :status
+              and (:moduloId is null or s.modulo.id = :moduloId)
+            order by s.id
+            """)
+    List<Long> buscarIdsPendentes(Collection<StatusSolicitacao> status, Long moduloId, Limit limite);
+
+    //backlog por módulo, departamento do solicitante e status: alimenta as contagens das filas e o gauge
+    @Query("""
+            select new com.supera.acessos.solicitacao.dto.PendenciaPorModuloDTO(
+                s.modulo.id, u.departamento, s.status, count(s))
+            from SolicitacaoModulo s
+            join s.solicitante u
+            where s.status in :status
+            group by s.modulo.id, u.departamento, s.status
+            """)
+    List<PendenciaPorModuloDTO> contarPendentesPorModulo(Collection<StatusSolicitacao> status);
+
+    //sem o hint, SQL nativo de escrita esvazia todas as regiões do cache de segundo nível
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "usuarios_modulos"))
+    @Query(value = """
+            delete from usuarios_modulos um
+            where exists (
+                select 1 from solicitacoes s
+                where s.id in (:ids)
+                  and s.status = 'APROVADA'
+                  and s.usuario_id = um.usuario_id
+                  and s.modulo_id = um.modulo_id
+            )
+            """, nativeQuery = true)
+    int revogarAcessosDasSolicitacoes(List<Long> ids);
+
+    //versioned: incrementa a versão, então quem leu a solicitação antes da expiração não consegue gravar por cima
+    @Modifying
+    @Query("""
+            update versioned SolicitacaoModulo s
+            set s.status = :novoStatus
+            where s.id in :ids
+              and s.status = :statusAtual
+            """)
+    int atualizarStatus(List<Long> ids, StatusSolicitacao statusAtual, StatusSolicitacao novoStatus);
+
+    @Query("select s.id from SolicitacaoModulo s where s.id in :ids and s.status = :status")
+    List<Long> filtrarPorStatus(List<Long> ids, StatusSolicitacao status);
+
 }
\ No newline at end of file
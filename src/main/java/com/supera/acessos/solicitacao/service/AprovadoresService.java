@@ -0,0 +1,99 @@
+package com.supera.acessos.solicitacao.service;
+
+import com.supera.acessos.exceptions.ApiException;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+//quem pode ver e decidir cada fila: listas de e-mails da configuração, sem papel no cadastro
+//gestor só enxerga e aprova solicitações do próprio departamento; segurança enxerga todos
+@Service
+public class AprovadoresService {
+
+    private static final List<StatusSolicitacao> FILAS = List.of(
+            StatusSolicitacao.AGUARDANDO_GESTOR,
+            StatusSolicitacao.AGUARDANDO_SEGURANCA
+    );
+
+    private final Set<String> gestores;
+    private final Set<String> seguranca;
+
+    public AprovadoresService(
+            @Value("${solicitacao.aprovadores.gestores:}") List<String> gestores,
+            @Value("${solicitacao.aprovadores.seguranca:}") List<String> seguranca
+    ) {
+        this.gestores = emails(gestores);
+        this.seguranca = emails(seguranca);
+    }
+
+    public boolean aprovaFila(Usuario aprovador, StatusSolicitacao fila) {
+        return switch (fila) {
+            case AGUARDANDO_GESTOR -> gestores.contains(aprovador.getEmail());
+            case AGUARDANDO_SEGURANCA -> seguranca.contains(aprovador.getEmail());
+            default -> false;
+        };
+    }
+
+    //departamento efetivo da consulta: o do gestor na fila de gestor, o pedido na de segurança
+    public Departamento departamentoDaFila(Usuario aprovador, StatusSolicitacao fila, Departamento pedido) {
+
+        if (!aprovaFila(aprovador, fila)) {
+            throw new ApiException("Usuário não é aprovador desta fila", HttpStatus.FORBIDDEN);
+        }
+
+        if (fila != StatusSolicitacao.AGUARDANDO_GESTOR) {
+            return pedido;
+        }
+
+        if (pedido != null && pedido != aprovador.getDepartamento()) {
+            throw new ApiException("Gestor só acessa a fila do próprio departamento", HttpStatus.FORBIDDEN);
+        }
+
+        return aprovador.getDepartamento();
+    }
+
+    public boolean aprovaAlgumaFila(Usuario aprovador) {
+        return FILAS.stream().anyMatch(fila -> aprovaFila(aprovador, fila));
+    }
+
+    //por item, com o status atual da solicitação: no lote cada falha vira o erro daquele item
+    //fora das filas (aberta ou já decidida) basta ser aprovador; a máquina de estados recusa o resto
+    public void verificarDecisao(Usuario aprovador, SolicitacaoModulo solicitacao) {
+
+        boolean permitido = FILAS.contains(solicitacao.getStatus())
+                ? aprovaFila(aprovador, solicitacao.getStatus())
+                : aprovaAlgumaFila(aprovador);
+
+        if (!permitido) {
+            throw new ApiException("Usuário não é aprovador desta fila", HttpStatus.FORBIDDEN);
+        }
+
+        if (solicitacao.getStatus() == StatusSolicitacao.AGUARDANDO_GESTOR
+                && solicitacao.getSolicitante().getDepartamento() != aprovador.getDepartamento()) {
+            throw new ApiException("Gestor só decide solicitações do próprio departamento", HttpStatus.FORBIDDEN);
+        }
+    }
+
+    public void verificarAprovacao(Usuario aprovador, SolicitacaoModulo solicitacao) {
+
+        if (solicitacao.getSolicitante().getId() == aprovador.getId()) {
+            throw new ApiException("Solicitante não pode aprovar a própria solicitação", HttpStatus.FORBIDDEN);
+        }
+
+        verificarDecisao(aprovador, solicitacao);
+    }
+
+    private static Set<String> emails(List<String> lista) {
+        Set<String> emails = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        lista.stream().map(String::trim).filter(e -> !e.isEmpty()).forEach(emails::add);
+        return emails;
+    }
+}
@@ -0,0 +1,129 @@
+package com.supera.acessos.solicitacao.service;
+
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoArquivadaRepository;
+import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//move para solicitacoes_historico as solicitações que chegaram ao status final há mais que a idade mínima
+//(contada do cancelamento, da reprovação ou da expiração, não da abertura: a renovação ainda acha a recém-expirada)
+//lotes pequenos com pausa entre eles: o job não disputa o banco com as requisições
+@Slf4j
+@Service
+public class ArquivamentoSolicitacaoService {
+
+    //status que nunca mais mudam; APROVADA ainda pode expirar ou ser cancelada
+    static final List<StatusSolicitacao> STATUS_FINAIS = List.of(
+            StatusSolicitacao.REPROVADA,
+            StatusSolicitacao.CANCELADA,
+            StatusSolicitacao.EXPIRADA
+    );
+
+    private final SolicitacaoModuloRepository solicitacaoRepository;
+    private final SolicitacaoArquivadaRepository arquivadaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SolicitacaoMetricas metricas;
+    private final int idadeMinimaDias;
+    private final int tamanhoLote;
+    private final int maximoLotesPorExecucao;
+    private final long pausaEntreLotesMs;
+
+    public ArquivamentoSolicitacaoService(
+            SolicitacaoModuloRepository solicitacaoRepository,
+            SolicitacaoArquivadaRepository arquivadaRepository,
+            PlatformTransactionManager transactionManager,
+            SolicitacaoMetricas metricas,
+            @Value("${solicitacao.arquivamento.idade-minima-dias:90}") int idadeMinimaDias,
+            @Value("${solicitacao.arquivamento.tamanho-lote:500}") int tamanhoLote,
+            @Value("${solicitacao.arquivamento.maximo-lotes-por-execucao:20}") int maximoLotesPorExecucao,
+            @Value("${solicitacao.arquivamento.pausa-entre-lotes-ms:200}") long pausaEntreLotesMs
+    ) {
+        this.solicitacaoRepository = solicitacaoRepository;
+        this.arquivadaRepository = arquivadaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metricas = metricas;
+        this.idadeMinimaDias = idadeMinimaDias;
+        this.tamanhoLote = tamanhoLote;
+        this.maximoLotesPorExecucao = maximoLotesPorExecucao;
+        this.pausaEntreLotesMs = pausaEntreLotesMs;
+    }
+
+    @Scheduled(
+            fixedDelayString = "${solicitacao.arquivamento.intervalo-ms:3600000}",
+            initialDelayString = "${solicitacao.arquivamento.atraso-inicial-ms:300000}"
+    )
+    public void executarAgendado() {
+        int total = arquivarFinalizadasAntesDe(LocalDateTime.now().minusDays(idadeMinimaDias));
+
+        if (total > 0) {
+            log.info("{} solicitações arquivadas", total);
+        }
+    }
+
+    public int arquivarFinalizadasAntesDe(LocalDateTime limite) {
+
+        int total = 0;
+
+        //cada lote commita sozinho: uma falha no meio preserva o que já foi movido
+        for (int i = 0; i < maximoLotesPorExecucao; i++) {
+            Integer arquivadas = transactionTemplate.execute(status -> arquivarLote(limite));
+
+            if (arquivadas == null || arquivadas == 0) {
+                break;
+            }
+
+            total += arquivadas;
+
+            if (arquivadas < tamanhoLote || !pausar()) {
+                break;
+            }
+        }
+
+        return total;
+    }
+
+    private int arquivarLote(LocalDateTime limite) {
+
+        List<Long> ids = solicitacaoRepository
+                .buscarArquivaveis(STATUS_FINAIS, limite, Limit.of(tamanhoLote)).stream()
+                .map(SolicitacaoModulo::getId)
+                .toList();
+
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        //copia e remove na mesma transação: a solicitação nunca some nem aparece nas duas tabelas
+        arquivadaRepository.copiarDeSolicitacoes(ids, LocalDateTime.now());
+        int arquivadas = solicitacaoRepository.removerPorIds(ids);
+
+        metricas.arquivadas(arquivadas);
+        return arquivadas;
+    }
+
+    //false quando a thread foi interrompida (desligamento): o restante fica para a próxima execução
+    private boolean pausar() {
+
+        if (pausaEntreLotesMs <= 0) {
+            return true;
+        }
+
+        try {
+            Thread.sleep(pausaEntreLotesMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.supera.acessos.solicitacao.service;
+
+import com.supera.acessos.exceptions.ApiException;
+import com.supera.acessos.solicitacao.dto.DecisaoLoteDTO;
+import com.supera.acessos.solicitacao.dto.ItemLoteDTO;
+import com.supera.acessos.solicitacao.dto.ResultadoLoteDTO;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//aprovação/reprovação de muitas solicitações de uma vez, em blocos com uma transação cada
+//usa a mesma máquina de estados do fluxo unitário; falha de um item não derruba os outros
+@Slf4j
+@Service
+public class DecisaoLoteService {
+
+    private static final List<StatusSolicitacao> FILAS_DE_APROVACAO = List.of(
+            StatusSolicitacao.AGUARDANDO_GESTOR,
+            StatusSolicitacao.AGUARDANDO_SEGURANCA
+    );
+
+    private final SolicitacaoModuloRepository solicitacaoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final SolicitacaoModuloService solicitacaoService;
+    private final AprovadoresService aprovadores;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanhoBloco;
+    private final int maximoItens;
+
+    public DecisaoLoteService(
+            SolicitacaoModuloRepository solicitacaoRepository,
+            UsuarioRepository usuarioRepository,
+            SolicitacaoModuloService solicitacaoService,
+            AprovadoresService aprovadores,
+            PlatformTransactionManager transactionManager,
+            @Value("${solicitacao.lote.tamanho-bloco:200}") int tamanhoBloco,
+            @Value("${solicitacao.lote.maximo-itens:10000}") int maximoItens
+    ) {
+        this.solicitacaoRepository = solicitacaoRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.solicitacaoService = solicitacaoService;
+        this.aprovadores = aprovadores;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoBloco = tamanhoBloco;
+        this.maximoItens = maximoItens;
+    }
+
+    public ResultadoLoteDTO aprovar(DecisaoLoteDTO dto, Usuario aprovador) {
+        return processar(resolverIds(dto, aprovador), true, (solicitacao, acessos) -> {
+            aprovadores.verificarAprovacao(aprovador, solicitacao);
+
+            Acesso acesso = Acesso.de(solicitacao);
+
+            solicitacaoService.aplicarAprovacao(solicitacao, aprovador, () -> acessos.contains(acesso));
+
+            //dentro da transação do bloco: o índice de acessos só recebe após o commit
+            if (solicitacao.getStatus() == StatusSolicitacao.APROVADA) {
+                acessos.add(acesso);
+                solicitacaoService.publicarConcessao(solicitacao.getSolicitante(), solicitacao.getModulo());
+            }
+        });
+    }
+
+    public ResultadoLoteDTO reprovar(DecisaoLoteDTO dto, Usuario aprovador) {
+
+        if (dto.motivo() == null || dto.motivo().isBlank()) {
+            throw new ApiException("O motivo é obrigatório");
+        }
+
+        return processar(resolverIds(dto, aprovador), false, (solicitacao, acessos) -> {
+            aprovadores.verificarDecisao(aprovador, solicitacao);
+            solicitacaoService.aplicarReprovacao(solicitacao, aprovador, dto.motivo());
+        });
+    }
+
+    private List<Long> resolverIds(DecisaoLoteDTO dto, Usuario aprovador) {
+
+        if (!aprovadores.aprovaAlgumaFila(aprovador)) {
+            throw new ApiException("Usuário não é aprovador", HttpStatus.FORBIDDEN);
+        }
+
+        boolean temIds = dto.ids() != null && !dto.ids().isEmpty();
+
+        if (temIds == (dto.filtro() != null)) {
+            throw new ApiException("Informe a lista de ids ou o filtro");
+        }
+
+        if (temIds) {
+            if (dto.ids().size() > maximoItens) {
+                throw new ApiException("Máximo de " + maximoItens + " solicitações por lote");
+            }
+
+            //ids repetidos são processados uma vez só
+            return new ArrayList<>(new LinkedHashSet<>(dto.ids()));
+        }
+
+        DecisaoLoteDTO.Filtro filtro = dto.filtro();
+
+        if (filtro.status() != null && !FILAS_DE_APROVACAO.contains(filtro.status())) {
+            throw new ApiException("Filtro aceita apenas AGUARDANDO_GESTOR ou AGUARDANDO_SEGURANCA");
+        }
+
+        //sem status, só as filas que o aprovador decide; departamento e autoria são conferidos item a item
+        List<StatusSolicitacao> filas = (filtro.status() == null ? FILAS_DE_APROVACAO : List.of(filtro.status())).stream()
+                .filter(fila -> aprovadores.aprovaFila(aprovador, fila))
+                .toList();
+
+        if (filas.isEmpty()) {
+            throw new ApiException("Usuário não é aprovador desta fila", HttpStatus.FORBIDDEN);
+        }
+
+        return solicitacaoRepository.buscarIdsPendentes(
+                filas,
+                filtro.moduloId(),
+                Limit.of(maximoItens)
+        );
+    }
+
+    private ResultadoLoteDTO processar(List<Long> ids, boolean consultaAcessos, Decisao decisao) {
+
+        List<ItemLoteDTO> itens = new ArrayList<>(ids.size());
+
+        for (int inicio = 0; inicio < ids.size(); inicio += tamanhoBloco) {
+            List<Long> bloco = ids.subList(inicio, Math.min(inicio + tamanhoBloco, ids.size()));
+
+            try {
+                itens.addAll(transactionTemplate.execute(status -> processarBloco(bloco, consultaAcessos, decisao)));
+
+            } catch (RuntimeException e) {
+                //erro de banco no flush desfaz o bloco inteiro: refaz item a item para isolar o culpado
+                log.warn("Falha ao gravar bloco de {} solicitações, reprocessando individualmente", bloco.size(), e);
+                bloco.forEach(id -> itens.add(processarIsolado(id, consultaAcessos, decisao)));
+            }
+        }
+
+        return ResultadoLoteDTO.de(itens);
+    }
+
+    private ItemLoteDTO processarIsolado(Long id, boolean consultaAcessos, Decisao decisao) {
+        try {
+            return transactionTemplate.execute(status -> processarBloco(List.of(id), consultaAcessos, decisao)).get(0);
+        } catch (OptimisticLockingFailureException e) {
+            //outra operação decidiu a mesma solicitação durante o lote
+            return ItemLoteDTO.falha(id, "Solicitação alterada por outra operação");
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar solicitação {}", id, e);
+            return ItemLoteDTO.falha(id, "Erro ao gravar a solicitação");
+        }
+    }
+
+    //as entidades carregadas são gerenciadas: o dirty checking gera os updates no commit, em batch JDBC
+    //a aprovação precisa saber quem já tem o acesso: uma consulta para o bloco em vez de uma por item
+    private List<ItemLoteDTO> processarBloco(List<Long> bloco, boolean consultaAcessos, Decisao decisao) {
+
+        Map<Long, SolicitacaoModulo> porId = solicitacaoRepository.buscarParaDecisao(bloco).stream()
+                .collect(Collectors.toMap(SolicitacaoModulo::getId, Function.identity()));
+
+        Set<Acesso> acessos = consultaAcessos ? acessosExistentes(porId.values()) : new HashSet<>();
+
+        List<ItemLoteDTO> itens = new ArrayList<>(bloco.size());
+
+        for (Long id : bloco) {
+            SolicitacaoModulo solicitacao = porId.get(id);
+
+            if (solicitacao == null) {
+                itens.add(ItemLoteDTO.falha(id, "Solicitação não encontrada"));
+                continue;
+            }
+
+            try {
+                decisao.aplicar(solicitacao, acessos);
+                itens.add(ItemLoteDTO.sucesso(id, solicitacao.getStatus()));
+            } catch (ApiException e) {
+                itens.add(ItemLoteDTO.falha(id, e.getMessage()));
+            }
+        }
+
+        return itens;
+    }
+
+    private Set<Acesso> acessosExistentes(Collection<SolicitacaoModulo> solicitacoes) {
+
+        Set<Acesso> acessos = new HashSet<>();
+
+        if (solicitacoes.isEmpty()) {
+            return acessos;
+        }
+
+        Set<Long> usuarioIds = new HashSet<>();
+        Set<Long> moduloIds = new HashSet<>();
+
+        for (SolicitacaoModulo solicitacao : solicitacoes) {
+            usuarioIds.add(solicitacao.getSolicitante().getId());
+            moduloIds.add(solicitacao.getModulo().getId());
+        }
+
+        for (Object[] linha : usuarioRepository.buscarAcessos(usuarioIds, moduloIds)) {
+            acessos.add(new Acesso(((Number) linha[0]).longValue(), ((Number) linha[1]).longValue()));
+        }
+
+        return acessos;
+    }
+
+    @FunctionalInterface
+    private interface Decisao {
+        //acessos: pares usuário/módulo já concedidos, atualizados pelas aprovações do próprio bloco
+        void aplicar(SolicitacaoModulo solicitacao, Set<Acesso> acessos);
+    }
+
+    private record Acesso(long usuarioId, long moduloId) {
+
+        static Acesso de(SolicitacaoModulo solicitacao) {
+            return new Acesso(solicitacao.getSolicitante().getId(), solicitacao.getModulo().getId());
+        }
+    }
+}
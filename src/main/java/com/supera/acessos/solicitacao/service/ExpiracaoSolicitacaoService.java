@@ -0,0 +1,123 @@
+package com.supera.acessos.solicitacao.service;
+
+import com.supera.acessos.acesso.event.AcessoRevogado;
+import com.supera.acessos.auditoria.service.AuditoriaService;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//expira em segundo plano as solicitações aprovadas cujo prazo venceu
+@Slf4j
+@Service
+public class ExpiracaoSolicitacaoService {
+
+    private final SolicitacaoModuloRepository solicitacaoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SolicitacaoMetricas metricas;
+    private final AuditoriaService auditoria;
+    private final int tamanhoLote;
+    private final int maximoLotesPorExecucao;
+
+    public ExpiracaoSolicitacaoService(
+            SolicitacaoModuloRepository solicitacaoRepository,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            SolicitacaoMetricas metricas,
+            AuditoriaService auditoria,
+            @Value("${solicitacao.expiracao.tamanho-lote:500}") int tamanhoLote,
+            @Value("${solicitacao.expiracao.maximo-lotes-por-execucao:100}") int maximoLotesPorExecucao
+    ) {
+        this.solicitacaoRepository = solicitacaoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.metricas = metricas;
+        this.auditoria = auditoria;
+        this.tamanhoLote = tamanhoLote;
+        this.maximoLotesPorExecucao = maximoLotesPorExecucao;
+    }
+
+    @Scheduled(
+            fixedDelayString = "${solicitacao.expiracao.intervalo-ms:60000}",
+            initialDelayString = "${solicitacao.expiracao.atraso-inicial-ms:30000}"
+    )
+    public void executarAgendado() {
+        int total = expirarVencidas(LocalDateTime.now());
+
+        if (total > 0) {
+            log.info("{} solicitações expiradas", total);
+        }
+    }
+
+    public int expirarVencidas(LocalDateTime agora) {
+
+        int total = 0;
+
+        //cada lote roda na sua própria transação para não segurar locks por muito tempo
+        for (int i = 0; i < maximoLotesPorExecucao; i++) {
+            Integer expiradas = transactionTemplate.execute(status -> expirarLote(agora));
+
+            if (expiradas == null || expiradas == 0) {
+                break;
+            }
+
+            total += expiradas;
+
+            if (expiradas < tamanhoLote) {
+                break;
+            }
+        }
+
+        return total;
+    }
+
+    private int expirarLote(LocalDateTime agora) {
+
+        List<SolicitacaoModulo> vencidas = solicitacaoRepository
+                .buscarVencidasParaExpirar(StatusSolicitacao.APROVADA, agora, Limit.of(tamanhoLote));
+
+        if (vencidas.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = vencidas.stream()
+                .map(SolicitacaoModulo::getId)
+                .toList();
+
+        //remove o acesso enquanto as linhas ainda estão APROVADA, depois muda o status
+        solicitacaoRepository.revogarAcessosDasSolicitacoes(ids);
+
+        int expiradas = solicitacaoRepository.atualizarStatus(
+                ids,
+                StatusSolicitacao.APROVADA,
+                StatusSolicitacao.EXPIRADA
+        );
+
+        metricas.transicoes(StatusSolicitacao.APROVADA, StatusSolicitacao.EXPIRADA, expiradas);
+
+        //alguma mudou de status entre o select e o update: audita só as que o update de fato expirou
+        List<Long> auditadas = expiradas == ids.size()
+                ? ids
+                : solicitacaoRepository.filtrarPorStatus(ids, StatusSolicitacao.EXPIRADA);
+
+        auditadas.forEach(id -> auditoria.registrar(
+                id, StatusSolicitacao.APROVADA, StatusSolicitacao.EXPIRADA, null, null));
+
+        //getId() dos proxies não inicializa as associações; os eventos só são aplicados após o commit do lote
+        vencidas.forEach(s -> eventPublisher.publishEvent(
+                new AcessoRevogado(s.getSolicitante().getId(), s.getModulo().getId())));
+
+        return expiradas;
+    }
+}
@@ -0,0 +1,147 @@
+package com.supera.acessos.solicitacao.service;
+
+import com.supera.acessos.exceptions.ApiException;
+import com.supera.acessos.solicitacao.dto.CursorSolicitacao;
+import com.supera.acessos.solicitacao.dto.FilaAprovacaoDTO;
+import com.supera.acessos.solicitacao.dto.PendenciaPorModuloDTO;
+import com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+//filas de gestor e segurança: páginas por keyset (mais antigas primeiro) e total aproximado
+//o total vem de uma contagem agrupada periódica, então não depende do tamanho da fila
+@Service
+@RequiredArgsConstructor
+public class FilaAprovacaoService {
+
+    private static final int LIMITE_MAXIMO_PAGINA = 100;
+    private static final LocalDateTime DATA_MINIMA = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final List<StatusSolicitacao> FILAS = List.of(
+            StatusSolicitacao.AGUARDANDO_GESTOR,
+            StatusSolicitacao.AGUARDANDO_SEGURANCA
+    );
+    private static final List<StatusSolicitacao> STATUS_PENDENTES = List.of(
+            StatusSolicitacao.ABERTA,
+            StatusSolicitacao.AGUARDANDO_GESTOR,
+            StatusSolicitacao.AGUARDANDO_SEGURANCA
+    );
+
+    private final SolicitacaoModuloRepository solicitacaoRepository;
+    private final SolicitacaoMetricas metricas;
+    private final AprovadoresService aprovadores;
+
+    private volatile Contagem contagem;
+
+    //a fila traz nome e e-mail dos solicitantes: só aprovadores, e o gestor só vê o próprio departamento
+    public FilaAprovacaoDTO listar(
+            Usuario aprovador,
+            StatusSolicitacao fila,
+            Long moduloId,
+            Departamento departamento,
+            String cursor,
+            int limite
+    ) {
+        return metricas.medir(SolicitacaoMetricas.Operacao.FILA, () -> {
+
+            if (!FILAS.contains(fila)) {
+                throw new ApiException("Fila inválida: use AGUARDANDO_GESTOR ou AGUARDANDO_SEGURANCA");
+            }
+
+            return pagina(fila, moduloId, aprovadores.departamentoDaFila(aprovador, fila, departamento), cursor, limite);
+        });
+    }
+
+    //uma consulta agrupada por módulo, departamento e status; poucas linhas mesmo com milhões de solicitações
+    @Scheduled(
+            fixedDelayString = "${solicitacao.pendentes.atualizacao-ms:30000}",
+            initialDelayString = "${solicitacao.pendentes.atualizacao-ms:30000}"
+    )
+    public synchronized void recontar() {
+        List<PendenciaPorModuloDTO> linhas = solicitacaoRepository.contarPendentesPorModulo(STATUS_PENDENTES);
+
+        contagem = new Contagem(linhas, Instant.now());
+        metricas.atualizarPendentes(linhas);
+    }
+
+    private FilaAprovacaoDTO pagina(
+            StatusSolicitacao fila,
+            Long moduloId,
+            Departamento departamento,
+            String cursor,
+            int limite
+    ) {
+
+        int tamanho = Math.min(Math.max(limite, 1), LIMITE_MAXIMO_PAGINA);
+
+        CursorSolicitacao posicao = cursor != null && !cursor.isBlank()
+                ? CursorSolicitacao.decodificar(cursor)
+                : new CursorSolicitacao(DATA_MINIMA, 0L);
+
+        //um item a mais só para saber se existe próxima página
+        Limit limiteConsulta = Limit.of(tamanho + 1);
+        List<SolicitacaoResponseDTO> itens = moduloId == null
+                ? solicitacaoRepository.listarFila(
+                        fila, posicao.dataAbertura(), posicao.id(), departamento, limiteConsulta)
+                : solicitacaoRepository.listarFilaDoModulo(
+                        fila, moduloId, posicao.dataAbertura(), posicao.id(), departamento, limiteConsulta);
+
+        String proximoCursor = null;
+
+        if (itens.size() > tamanho) {
+            itens = itens.subList(0, tamanho);
+            SolicitacaoResponseDTO ultimo = itens.get(tamanho - 1);
+            proximoCursor = new CursorSolicitacao(ultimo.dataAbertura(), ultimo.id()).codificar();
+        }
+
+        Contagem atual = contagemAtual();
+
+        return new FilaAprovacaoDTO(
+                itens,
+                proximoCursor,
+                atual.total(fila, moduloId, departamento),
+                atual.contadoEm()
+        );
+    }
+
+    private Contagem contagemAtual() {
+        Contagem atual = contagem;
+
+        if (atual == null) {
+            synchronized (this) {
+                if (contagem == null) {
+                    recontar();
+                }
+                atual = contagem;
+            }
+        }
+
+        return atual;
+    }
+
+    private record Contagem(List<PendenciaPorModuloDTO> linhas, Instant contadoEm) {
+
+        long total(StatusSolicitacao fila, Long moduloId, Departamento departamento) {
+            long total = 0;
+
+            for (PendenciaPorModuloDTO linha : linhas) {
+                if (linha.status() == fila
+                        && (moduloId == null || moduloId.equals(linha.moduloId()))
+                        && (departamento == null || departamento == linha.departamento())) {
+                    total += linha.total();
+                }
+            }
+
+            return total;
+        }
+    }
+}
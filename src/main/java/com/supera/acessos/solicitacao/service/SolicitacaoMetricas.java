@@ -0,0 +1,141 @@
+package com.supera.acessos.solicitacao.service;
+
+import com.supera.acessos.solicitacao.dto.PendenciaPorModuloDTO;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+//métricas do fluxo de aprovação; tags só com enums e id de módulo, nunca usuário
+//os medidores ficam em arrays/EnumMap criados uma vez: registrar não monta tags nem consulta o registry
+@Component
+public class SolicitacaoMetricas {
+
+    private static final StatusSolicitacao[] STATUS = StatusSolicitacao.values();
+
+    enum Operacao {
+        CRIAR, CRIAR_LOTE, APROVAR, REPROVAR, CANCELAR, RENOVAR, LISTAR, DETALHAR, FILA
+    }
+
+    //[de][para]; a última linha é a criação (ainda sem status)
+    private final Counter[][] transicoes = new Counter[STATUS.length + 1][STATUS.length];
+    private final Map<StatusSolicitacao, Timer> tempoDesdeAbertura = new EnumMap<>(StatusSolicitacao.class);
+    private final Map<Operacao, Timer> operacoes = new EnumMap<>(Operacao.class);
+    private final MultiGauge pendentes;
+    private final Counter arquivadas;
+
+    public SolicitacaoMetricas(MeterRegistry meterRegistry) {
+
+        for (int de = 0; de <= STATUS.length; de++) {
+            for (StatusSolicitacao para : STATUS) {
+                transicoes[de][para.ordinal()] = Counter.builder("solicitacao.transicoes")
+                        .description("Mudanças de status das solicitações")
+                        .tag("de", de == STATUS.length ? "NOVA" : STATUS[de].name())
+                        .tag("para", para.name())
+                        .register(meterRegistry);
+            }
+        }
+
+        //histograma de quanto tempo a solicitação levou da abertura até chegar a cada status
+        for (StatusSolicitacao status : STATUS) {
+            tempoDesdeAbertura.put(status, Timer.builder("solicitacao.tempo.desde.abertura")
+                    .description("Tempo entre a abertura da solicitação e a chegada ao status")
+                    .tag("status", status.name())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofSeconds(1))
+                    .maximumExpectedValue(Duration.ofDays(30))
+                    .register(meterRegistry));
+        }
+
+        for (Operacao operacao : Operacao.values()) {
+            operacoes.put(operacao, Timer.builder("solicitacao.operacao")
+                    .description("Tempo de cada operação do serviço de solicitações")
+                    .tag("operacao", operacao.name().toLowerCase())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+
+        this.pendentes = MultiGauge.builder("solicitacao.pendentes")
+                .description("Solicitações aguardando decisão por módulo")
+                .register(meterRegistry);
+
+        this.arquivadas = Counter.builder("solicitacao.arquivadas")
+                .description("Solicitações em status final movidas para o histórico")
+                .register(meterRegistry);
+    }
+
+    <T> T medir(Operacao operacao, Supplier<T> execucao) {
+        return operacoes.get(operacao).record(execucao);
+    }
+
+    void criada(SolicitacaoModulo solicitacao) {
+        Counter contador = transicoes[STATUS.length][solicitacao.getStatus().ordinal()];
+        aposCommit(contador::increment);
+    }
+
+    void transicao(SolicitacaoModulo solicitacao, StatusSolicitacao de) {
+        StatusSolicitacao para = solicitacao.getStatus();
+        LocalDateTime abertura = solicitacao.getDataAbertura();
+
+        aposCommit(() -> {
+            transicoes[de.ordinal()][para.ordinal()].increment();
+
+            if (abertura != null) {
+                long nanos = Duration.between(abertura, LocalDateTime.now()).toNanos();
+                tempoDesdeAbertura.get(para).record(Math.max(nanos, 0), TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    //transições em massa feitas por update direto (expiração)
+    void transicoes(StatusSolicitacao de, StatusSolicitacao para, int quantidade) {
+        aposCommit(() -> transicoes[de.ordinal()][para.ordinal()].increment(quantidade));
+    }
+
+    //com transação ativa só conta no commit: tentativa refeita por conflito ou transação desfeita não entra
+    private static void aposCommit(Runnable registro) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            registro.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                registro.run();
+            }
+        });
+    }
+
+    void arquivadas(int quantidade) {
+        arquivadas.increment(quantidade);
+    }
+
+    //backlog por módulo e status, a partir da contagem periódica do FilaAprovacaoService
+    void atualizarPendentes(List<PendenciaPorModuloDTO> pendencias) {
+
+        Map<Tags, Long> porModulo = pendencias.stream().collect(Collectors.groupingBy(
+                p -> Tags.of("modulo", String.valueOf(p.moduloId()), "status", p.status().name()),
+                Collectors.summingLong(PendenciaPorModuloDTO::total)));
+
+        pendentes.register(porModulo.entrySet().stream()
+                .map(e -> MultiGauge.Row.of(e.getKey(), e.getValue()))
+                .toList(), true);
+    }
+}
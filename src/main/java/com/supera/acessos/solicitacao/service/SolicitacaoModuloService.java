@@ -1,47 +1,178 @@
 package com.supera.acessos.solicitacao.service;
 
+import com.supera.acessos.acesso.event.AcessoConcedido;
+import com.supera.acessos.acesso.event.AcessoRevogado;
+import com.supera.acessos.auditoria.service.AuditoriaService;
 import com.supera.acessos.exceptions.ApiException;
+import com.supera.acessos.modulo.dto.ModuloDTO;
 import com.supera.acessos.modulo.entity.Modulo;
 import com.supera.acessos.solicitacao.dto.CriarSolicitacaoDTO;
+import com.supera.acessos.solicitacao.dto.CriarSolicitacoesLoteDTO;
+import com.supera.acessos.solicitacao.dto.CursorSolicitacao;
+import com.supera.acessos.solicitacao.dto.FiltroSolicitacoesDTO;
+import com.supera.acessos.solicitacao.dto.ItemCriacaoLoteDTO;
+import com.supera.acessos.solicitacao.dto.PaginaDTO;
+import com.supera.acessos.solicitacao.dto.ResultadoCriacao;
+import com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO;
+import com.supera.acessos.solicitacao.entity.SolicitacaoArquivada;
 import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
 import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoArquivadaRepository;
 import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
 import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.RestricoesUnicasAcessos;
 import com.supera.acessos.usuario.repository.UsuarioRepository;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import com.supera.acessos.modulo.repository.ModuloRepository;
-import java.util.Arrays;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.supera.acessos.modulo.service.ModuloCatalogoService;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class SolicitacaoModuloService {
 
+    private static final int LIMITE_MAXIMO_PAGINA = 100;
+    private static final LocalDateTime DATA_MINIMA = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime DATA_MAXIMA = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final int LIMITE_MODULOS_POR_LOTE = 100;
+    private static final List<StatusSolicitacao> STATUS_PENDENTES = List.of(
+            StatusSolicitacao.ABERTA,
+            StatusSolicitacao.AGUARDANDO_GESTOR,
+            StatusSolicitacao.AGUARDANDO_SEGURANCA
+    );
+
+    //ordem do keyset da listagem: mais recentes primeiro, id desempata
+    private static final Comparator<SolicitacaoResponseDTO> ORDEM_LISTAGEM = Comparator
+            .comparing(SolicitacaoResponseDTO::dataAbertura)
+            .thenComparing(SolicitacaoResponseDTO::id)
+            .reversed();
+
+    //conflitos de versão são raros e curtos: poucas tentativas bastam antes de devolver 409
+    private static final int MAXIMO_TENTATIVAS = 3;
+    private static final String INDICE_PENDENTE_UNICA = "uk_solicitacoes_pendente";
+    private static final String VIOLACAO_UNICA = "23505";
+
     private final SolicitacaoModuloRepository solicitacaoRepository;
+    private final SolicitacaoArquivadaRepository arquivadaRepository;
     private final UsuarioRepository usuarioRepository;
-    private final ModuloRepository moduloRepository;
+    private final RestricoesUnicasAcessos restricoesAcessos;
+    private final ModuloCatalogoService moduloCatalogo;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SolicitacaoMetricas metricas;
+    private final AuditoriaService auditoria;
+    private final TransactionTemplate transactionTemplate;
+
+    public SolicitacaoModuloService(
+            SolicitacaoModuloRepository solicitacaoRepository,
+            SolicitacaoArquivadaRepository arquivadaRepository,
+            UsuarioRepository usuarioRepository,
+            RestricoesUnicasAcessos restricoesAcessos,
+            ModuloCatalogoService moduloCatalogo,
+            ApplicationEventPublisher eventPublisher,
+            SolicitacaoMetricas metricas,
+            AuditoriaService auditoria,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.solicitacaoRepository = solicitacaoRepository;
+        this.arquivadaRepository = arquivadaRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.restricoesAcessos = restricoesAcessos;
+        this.moduloCatalogo = moduloCatalogo;
+        this.eventPublisher = eventPublisher;
+        this.metricas = metricas;
+        this.auditoria = auditoria;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    //cada escrita roda numa transação: a transição, o acesso e o registro de auditoria commitam juntos
+    public SolicitacaoResponseDTO criarSolicitacao(Usuario usuarioJwt, CriarSolicitacaoDTO dto) {
+        return metricas.medir(SolicitacaoMetricas.Operacao.CRIAR, () -> emTransacao(() -> criar(usuarioJwt, dto)));
+    }
+
+    //versão desatualizada no commit: a operação é refeita do zero com o estado atual do banco,
+    //então a máquina de estados decide de novo (aprovar o que já foi aprovado vira erro de negócio, não acesso duplicado)
+    private <T> T emTransacao(Supplier<T> operacao) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return transactionTemplate.execute(status -> operacao.get());
+
+            } catch (OptimisticLockingFailureException e) {
+                if (tentativa >= MAXIMO_TENTATIVAS) {
+                    throw e;
+                }
+                log.debug("Conflito de versão na tentativa {}, repetindo", tentativa);
+
+            } catch (DataIntegrityViolationException e) {
+                //a checagem de pendência é só o caminho rápido: duas criações simultâneas esbarram no índice único,
+                //no flush do commit (com ids por sequence o insert não é mais imediato)
+                String restricao = restricaoUnicaViolada(e);
+
+                if (restricao != null && INDICE_PENDENTE_UNICA.equalsIgnoreCase(semSchema(restricao))) {
+                    throw new ApiException("Já existe solicitação pendente para este módulo", HttpStatus.CONFLICT);
+                }
+
+                //a PK de usuarios_modulos (qualquer que seja o nome no banco) barrou a mesma concessão feita em paralelo:
+                //relê e decide de novo
+                if (!restricoesAcessos.contem(restricao)) {
+                    throw e;
+                }
+                if (tentativa >= MAXIMO_TENTATIVAS) {
+                    throw new ApiException("Acesso já concedido por outra operação", HttpStatus.CONFLICT);
+                }
+                log.debug("Concessão concorrente na tentativa {}, repetindo", tentativa);
+            }
+        }
+    }
+
+    //nome da restrição só quando é violação de unicidade; FK ou outra violação segue como erro
+    private static String restricaoUnicaViolada(DataIntegrityViolationException e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConstraintViolationException violacao) {
+                return VIOLACAO_UNICA.equals(violacao.getSQLState()) ? violacao.getConstraintName() : null;
+            }
+        }
+        return null;
+    }
 
-    public SolicitacaoModulo criarSolicitacao(Usuario usuarioJwt, CriarSolicitacaoDTO dto) {
+    private static String semSchema(String restricao) {
+        return restricao.substring(restricao.lastIndexOf('.') + 1);
+    }
+
+    private SolicitacaoResponseDTO criar(Usuario usuarioJwt, CriarSolicitacaoDTO dto) {
 
         Usuario usuario = usuarioRepository.findById(usuarioJwt.getId())
                 .orElseThrow(() -> new ApiException("Usuário não encontrado"));
 
 
-        //buscar módulo
-        Modulo modulo = moduloRepository.findById(dto.moduloId())
+        //buscar módulo no catálogo em memória; a cópia desanexada só serve de referência para a FK
+        Modulo modulo = moduloCatalogo.buscarPorId(dto.moduloId())
+                .map(ModuloDTO::paraEntidade)
                 .orElseThrow(() -> new ApiException("Módulo não encontrado"));
 
-        if (!modulo.isAtivo()) {
+        //ativo no snapshot ainda é confirmado no banco: a desativação pode ter vindo de outro nó
+        if (!modulo.isAtivo() || moduloCatalogo.confirmarAtivos(List.of(modulo.getId())).isEmpty()) {
             throw new ApiException("Módulo inativo");
         }
 
         //validar se o usuário já tem acesso
-        boolean jaTemAcesso = usuario.getModulosAtivos().stream()
-                .anyMatch(m -> m.getId().equals(modulo.getId()));
-
-        if (jaTemAcesso) {
+        if (usuarioRepository.possuiModulo(usuario.getId(), modulo.getId())) {
             throw new ApiException("Usuário já possui acesso ativo ao módulo");
         }
 
@@ -50,15 +181,11 @@ public class SolicitacaoModuloService {
                 .existsBySolicitanteAndModuloAndStatusIn(
                         usuario,
                         modulo,
-                        Arrays.asList(
-                                StatusSolicitacao.ABERTA,
-                                StatusSolicitacao.AGUARDANDO_GESTOR,
-                                StatusSolicitacao.AGUARDANDO_SEGURANCA
-                        )
+                        STATUS_PENDENTES
                 );
 
         if (existePendente) {
-            throw new ApiException("Já existe solicitação pendente para este módulo");
+            throw new ApiException("Já existe solicitação pendente para este módulo", HttpStatus.CONFLICT);
         }
 
         //determinar status inicial
@@ -71,13 +198,7 @@ public class SolicitacaoModuloService {
 //        } else {
 //            statusInicial = StatusSolicitacao.AGUARDANDO_SEGURANCA;
 //        }
-        StatusSolicitacao statusInicial = StatusSolicitacao.ABERTA;
-
-        if (modulo.isExigeAprovacaoGestor()) {
-            statusInicial = StatusSolicitacao.AGUARDANDO_GESTOR;
-        } else if (modulo.isExigeAprovacaoSeguranca()) {
-            statusInicial = StatusSolicitacao.AGUARDANDO_SEGURANCA;
-        }
+        StatusSolicitacao statusInicial = statusInicial(modulo);
 
 
         //criar solicitação
@@ -92,26 +213,142 @@ public class SolicitacaoModuloService {
         if (statusInicial == StatusSolicitacao.APROVADA) {
             concederAcesso(usuario, modulo);
             registrarExpiracao(solicitacao, modulo);
-            usuarioRepository.save(usuario);
+            publicarConcessao(usuario, modulo);
+        }
+
+        SolicitacaoResponseDTO resposta = SolicitacaoResponseDTO.de(solicitacaoRepository.save(solicitacao));
+        metricas.criada(solicitacao);
+        auditoria.registrar(solicitacao, null, usuario, null);
+
+        return resposta;
+    }
+
+    //várias solicitações de uma vez: três consultas de validação para todos os módulos e um saveAll
+    public List<ItemCriacaoLoteDTO> criarSolicitacoes(Usuario usuarioJwt, CriarSolicitacoesLoteDTO dto) {
+        return metricas.medir(SolicitacaoMetricas.Operacao.CRIAR_LOTE, () -> emTransacao(() -> criarLote(usuarioJwt, dto)));
+    }
+
+    private List<ItemCriacaoLoteDTO> criarLote(Usuario usuarioJwt, CriarSolicitacoesLoteDTO dto) {
+
+        //módulos repetidos são considerados uma vez só, na ordem em que vieram
+        List<Long> moduloIds = new ArrayList<>(new LinkedHashSet<>(dto.moduloIds()));
+
+        if (moduloIds.size() > LIMITE_MODULOS_POR_LOTE) {
+            throw new ApiException("Máximo de " + LIMITE_MODULOS_POR_LOTE + " módulos por solicitação");
+        }
+
+        //uma consulta confirma no banco os módulos que o snapshot dá como ativos
+        Set<Long> ativos = moduloCatalogo.confirmarAtivos(moduloIds.stream()
+                .filter(id -> moduloCatalogo.buscarPorId(id).map(ModuloDTO::ativo).orElse(false))
+                .toList());
+
+        Set<Long> comAcesso = new HashSet<>(usuarioRepository.buscarModulosAtivos(usuarioJwt.getId(), moduloIds));
+        Set<Long> comPendencia = new HashSet<>(
+                solicitacaoRepository.buscarModulosComPendencia(usuarioJwt.getId(), moduloIds, STATUS_PENDENTES));
+
+        //o solicitante só entra como FK: a referência não gera select
+        Usuario solicitante = usuarioRepository.getReferenceById(usuarioJwt.getId());
+        LocalDateTime agora = LocalDateTime.now();
+
+        ItemCriacaoLoteDTO[] itens = new ItemCriacaoLoteDTO[moduloIds.size()];
+        List<SolicitacaoModulo> novas = new ArrayList<>();
+        List<Integer> posicoes = new ArrayList<>();
+
+        for (int i = 0; i < moduloIds.size(); i++) {
+            Long moduloId = moduloIds.get(i);
+            Optional<ModuloDTO> modulo = moduloCatalogo.buscarPorId(moduloId);
+
+            ResultadoCriacao bloqueio = modulo.isEmpty() ? ResultadoCriacao.MODULO_NAO_ENCONTRADO
+                    : !ativos.contains(moduloId) ? ResultadoCriacao.MODULO_INATIVO
+                    : comAcesso.contains(moduloId) ? ResultadoCriacao.JA_POSSUI_ACESSO
+                    : comPendencia.contains(moduloId) ? ResultadoCriacao.PENDENTE_EXISTENTE
+                    : null;
+
+            if (bloqueio != null) {
+                itens[i] = ItemCriacaoLoteDTO.ignorado(moduloId, bloqueio);
+                continue;
+            }
+
+            Modulo entidade = modulo.get().paraEntidade();
+
+            novas.add(SolicitacaoModulo.builder()
+                    .solicitante(solicitante)
+                    .modulo(entidade)
+                    .status(statusInicial(entidade))
+                    .dataAbertura(agora)
+                    .build());
+            posicoes.add(i);
+        }
+
+        //saveAll grava todas na mesma transação
+        List<SolicitacaoModulo> salvas = solicitacaoRepository.saveAll(novas);
+
+        for (int i = 0; i < salvas.size(); i++) {
+            SolicitacaoModulo salva = salvas.get(i);
+            metricas.criada(salva);
+            auditoria.registrar(salva, null, usuarioJwt, null);
+            itens[posicoes.get(i)] = new ItemCriacaoLoteDTO(
+                    salva.getModulo().getId(), ResultadoCriacao.CRIADA, salva.getId(), salva.getStatus());
+        }
+
+        return List.of(itens);
+    }
+
+    private StatusSolicitacao statusInicial(Modulo modulo) {
+
+        if (modulo.isExigeAprovacaoGestor()) {
+            return StatusSolicitacao.AGUARDANDO_GESTOR;
+        }
+
+        if (modulo.isExigeAprovacaoSeguranca()) {
+            return StatusSolicitacao.AGUARDANDO_SEGURANCA;
         }
 
-        return solicitacaoRepository.save(solicitacao);
+        return StatusSolicitacao.ABERTA;
     }
 
     //aprovar
-    public SolicitacaoModulo aprovarSolicitacao(Long solicitacaoId, Usuario aprovador) {
+    public SolicitacaoResponseDTO aprovarSolicitacao(Long solicitacaoId, Usuario aprovador) {
+        return metricas.medir(SolicitacaoMetricas.Operacao.APROVAR, () -> emTransacao(() -> aprovar(solicitacaoId, aprovador)));
+    }
+
+    private SolicitacaoResponseDTO aprovar(Long solicitacaoId, Usuario aprovador) {
 
         SolicitacaoModulo solicitacao = solicitacaoRepository.findById(solicitacaoId)
                 .orElseThrow(() -> new ApiException("Solicitação não encontrada"));
 
+        aplicarAprovacao(solicitacao, aprovador);
+
+        Usuario usuario = solicitacao.getSolicitante();
+
+        SolicitacaoResponseDTO resposta = SolicitacaoResponseDTO.de(solicitacaoRepository.save(solicitacao));
+
+        if (solicitacao.getStatus() == StatusSolicitacao.APROVADA) {
+            publicarConcessao(usuario, solicitacao.getModulo());
+        }
+
+        return resposta;
+    }
+
+    //máquina de estados da aprovação, compartilhada com a decisão em lote
+    //valida tudo antes de alterar: se lançar ApiException a solicitação fica intacta
+    void aplicarAprovacao(SolicitacaoModulo solicitacao, Usuario aprovador) {
+        aplicarAprovacao(solicitacao, aprovador, () -> usuarioRepository.possuiModulo(
+                solicitacao.getSolicitante().getId(), solicitacao.getModulo().getId()));
+    }
+
+    //o lote informa se o acesso já existe a partir da consulta feita uma vez para o bloco inteiro
+    void aplicarAprovacao(SolicitacaoModulo solicitacao, Usuario aprovador, BooleanSupplier jaPossuiModulo) {
+
         Modulo modulo = solicitacao.getModulo();
         Usuario usuario = solicitacao.getSolicitante();
+        StatusSolicitacao anterior = solicitacao.getStatus();
 
         if (!modulo.isAtivo()) {
             throw new ApiException("Módulo inativo");
         }
 
-        if (usuario.getModulosAtivos().contains(modulo)) {
+        if (jaPossuiModulo.getAsBoolean()) {
             throw new ApiException("Usuário já possui este módulo");
         }
 
@@ -152,12 +389,18 @@ public class SolicitacaoModuloService {
             solicitacao.setDataAprovacao(LocalDateTime.now());
         }
 
-        usuarioRepository.save(usuario);
-        return solicitacaoRepository.save(solicitacao);
+        metricas.transicao(solicitacao, anterior);
+        auditoria.registrar(solicitacao, anterior, aprovador, null);
     }
 
+    //uma linha em usuarios_modulos; a PK impede a concessão duplicada
     private void concederAcesso(Usuario usuario, Modulo modulo) {
-        usuario.getModulosAtivos().add(modulo);
+        usuarioRepository.concederModulo(usuario.getId(), modulo.getId());
+    }
+
+    //o índice de acessos só é atualizado depois que a gravação foi feita
+    void publicarConcessao(Usuario usuario, Modulo modulo) {
+        eventPublisher.publishEvent(new AcessoConcedido(usuario.getId(), modulo.getId()));
     }
 
     private void registrarExpiracao(SolicitacaoModulo solicitacao, Modulo modulo) {
@@ -169,22 +412,34 @@ public class SolicitacaoModuloService {
     }
 
     //reprovar
-    public SolicitacaoModulo reprovarSolicitacao(Long id, Usuario aprovador, String motivo) {
+    public SolicitacaoResponseDTO reprovarSolicitacao(Long id, Usuario aprovador, String motivo) {
+        return metricas.medir(SolicitacaoMetricas.Operacao.REPROVAR, () -> emTransacao(() -> reprovar(id, aprovador, motivo)));
+    }
+
+    private SolicitacaoResponseDTO reprovar(Long id, Usuario aprovador, String motivo) {
 
         SolicitacaoModulo solicitacao = solicitacaoRepository.findById(id)
                 .orElseThrow(() -> new ApiException("Solicitação não encontrada"));
 
+        aplicarReprovacao(solicitacao, aprovador, motivo);
+
+        return SolicitacaoResponseDTO.de(solicitacaoRepository.save(solicitacao));
+    }
+
+    void aplicarReprovacao(SolicitacaoModulo solicitacao, Usuario aprovador, String motivo) {
+
         switch (solicitacao.getStatus()) {
             case ABERTA, AGUARDANDO_GESTOR, AGUARDANDO_SEGURANCA -> {
+                StatusSolicitacao anterior = solicitacao.getStatus();
                 solicitacao.setStatus(StatusSolicitacao.REPROVADA);
                 solicitacao.setDataReprovacao(LocalDateTime.now());
                 solicitacao.setMotivoRecusa(motivo);
+                metricas.transicao(solicitacao, anterior);
+                auditoria.registrar(solicitacao, anterior, aprovador, motivo);
             }
 
             default -> throw new ApiException("Solicitação não pode ser reprovada");
         }
-
-        return solicitacaoRepository.save(solicitacao);
     }
 
     private boolean isExpirada(SolicitacaoModulo solicitacao) {
@@ -196,29 +451,37 @@ public class SolicitacaoModuloService {
 
         if (!isExpirada(solicitacao)) return;
 
+        StatusSolicitacao anterior = solicitacao.getStatus();
         solicitacao.setStatus(StatusSolicitacao.EXPIRADA);
+        metricas.transicao(solicitacao, anterior);
+
+        //expiração é do sistema, não de quem disparou a leitura
+        auditoria.registrar(solicitacao, anterior, null, null);
 
         Usuario usuario = solicitacao.getSolicitante();
         Modulo modulo = solicitacao.getModulo();
 
-        usuario.getModulosAtivos().remove(modulo);
-
-        usuarioRepository.save(usuario);
+        usuarioRepository.revogarModulo(usuario.getId(), modulo.getId());
         solicitacaoRepository.save(solicitacao);
-    }
 
-    public SolicitacaoModulo renovarSolicitacao(Long id, Usuario solicitante) {
+        eventPublisher.publishEvent(new AcessoRevogado(usuario.getId(), modulo.getId()));
+    }
 
-        SolicitacaoModulo antiga = solicitacaoRepository.findById(id)
-                .orElseThrow(() -> new ApiException("Solicitação não encontrada"));
+    public SolicitacaoResponseDTO renovarSolicitacao(Long id, Usuario usuarioJwt) {
+        return metricas.medir(SolicitacaoMetricas.Operacao.RENOVAR, () -> emTransacao(() -> renovar(id, usuarioJwt)));
+    }
 
-        expirarSeNecessario(antiga);
+    private SolicitacaoResponseDTO renovar(Long id, Usuario usuarioJwt) {
 
-        if (antiga.getStatus() != StatusSolicitacao.EXPIRADA) {
-            throw new ApiException("Somente solicitações expiradas podem ser renovadas.");
-        }
+        //o principal vem das claims do token, então o usuário gerenciado é buscado aqui
+        Usuario solicitante = usuarioRepository.findById(usuarioJwt.getId())
+                .orElseThrow(() -> new ApiException("Usuário não encontrado"));
 
-        Modulo modulo = antiga.getModulo();
+        Modulo modulo = solicitacaoRepository.findById(id)
+                .map(this::moduloRenovavel)
+                //expirada há mais tempo que a idade mínima de arquivamento: só está no histórico
+                .or(() -> arquivadaRepository.findById(id).map(this::moduloRenovavel))
+                .orElseThrow(() -> new ApiException("Solicitação não encontrada"));
 
         //criar nova solicitacao
         SolicitacaoModulo nova = new SolicitacaoModulo();
@@ -235,14 +498,58 @@ public class SolicitacaoModuloService {
             nova.setStatus(StatusSolicitacao.APROVADA);
             concederAcesso(solicitante, modulo);
             registrarExpiracao(nova, modulo);
-            usuarioRepository.save(solicitante);
+            publicarConcessao(solicitante, modulo);
         }
 //          comentado devido exigencia do teste
 //        solicitacaoRepository.save(nova);
-        return nova;
+        return SolicitacaoResponseDTO.de(nova);
+    }
+
+    private Modulo moduloRenovavel(SolicitacaoModulo antiga) {
+
+        expirarSeNecessario(antiga);
+
+        if (antiga.getStatus() != StatusSolicitacao.EXPIRADA) {
+            throw new ApiException("Somente solicitações expiradas podem ser renovadas.");
+        }
+
+        return antiga.getModulo();
+    }
+
+    private Modulo moduloRenovavel(SolicitacaoArquivada antiga) {
+
+        if (antiga.getStatus() != StatusSolicitacao.EXPIRADA) {
+            throw new ApiException("Somente solicitações expiradas podem ser renovadas.");
+        }
+
+        return antiga.getModulo();
+    }
+
+    public SolicitacaoResponseDTO cancelarSolicitacao(Long id, Usuario usuarioJwt) {
+        return metricas.medir(SolicitacaoMetricas.Operacao.CANCELAR, () -> {
+
+            //a expiração automática feita antes da recusa continua valendo: a recusa só sai depois do commit
+            ApiException[] recusa = new ApiException[1];
+
+            SolicitacaoResponseDTO resposta = emTransacao(() -> {
+                recusa[0] = null;
+                try {
+                    return cancelar(id, usuarioJwt);
+                } catch (ApiException e) {
+                    recusa[0] = e;
+                    return null;
+                }
+            });
+
+            if (recusa[0] != null) {
+                throw recusa[0];
+            }
+
+            return resposta;
+        });
     }
 
-    public SolicitacaoModulo cancelarSolicitacao(Long id, Usuario usuarioJwt) {
+    private SolicitacaoResponseDTO cancelar(Long id, Usuario usuarioJwt) {
 
         Usuario usuario = usuarioRepository.findById(usuarioJwt.getId())
                 .orElseThrow(() -> new ApiException("Usuário não encontrado"));
@@ -274,40 +581,141 @@ public class SolicitacaoModuloService {
             Usuario solicitante = solicitacao.getSolicitante();
             Modulo modulo = solicitacao.getModulo();
 
-            solicitante.getModulosAtivos().remove(modulo);
-            usuarioRepository.save(solicitante); //persistir no banco
+            usuarioRepository.revogarModulo(solicitante.getId(), modulo.getId());
+            eventPublisher.publishEvent(new AcessoRevogado(solicitante.getId(), modulo.getId()));
         }
 
         //atualizar status
+        StatusSolicitacao anterior = solicitacao.getStatus();
         solicitacao.setStatus(StatusSolicitacao.CANCELADA);
 
         //registrar data de cancelamento
         solicitacao.setDataCancelamento(LocalDateTime.now());
+        metricas.transicao(solicitacao, anterior);
+        auditoria.registrar(solicitacao, anterior, usuario, null);
 
         //salvar e retornar
-        return solicitacaoRepository.save(solicitacao);
+        return SolicitacaoResponseDTO.de(solicitacaoRepository.save(solicitacao));
+    }
+
+    //leitura pura: a expiração é feita pelo ExpiracaoSolicitacaoService
+    public PaginaDTO<SolicitacaoResponseDTO> listarSolicitacoesDoUsuario(
+            Usuario usuario,
+            FiltroSolicitacoesDTO filtro,
+            String cursor,
+            int limite
+    ) {
+        return metricas.medir(SolicitacaoMetricas.Operacao.LISTAR, () -> listar(usuario, filtro, cursor, limite));
     }
 
-    public List<SolicitacaoModulo> listarSolicitacoesDoUsuario(Usuario usuario) {
+    private PaginaDTO<SolicitacaoResponseDTO> listar(
+            Usuario usuario,
+            FiltroSolicitacoesDTO filtro,
+            String cursor,
+            int limite
+    ) {
+
+        int tamanho = Math.min(Math.max(limite, 1), LIMITE_MAXIMO_PAGINA);
+
+        //limite superior do keyset: o filtro "ate" ou o cursor, o que for menor
+        LocalDateTime limiteData = DATA_MAXIMA;
+        Long limiteId = Long.MAX_VALUE;
+
+        if (filtro.ate() != null) {
+            limiteData = filtro.ate().plusDays(1).atStartOfDay();
+            limiteId = 0L;
+        }
+
+        if (cursor != null && !cursor.isBlank()) {
+            CursorSolicitacao posicao = CursorSolicitacao.decodificar(cursor);
+
+            if (posicao.dataAbertura().isBefore(limiteData)
+                    || (posicao.dataAbertura().isEqual(limiteData) && posicao.id() < limiteId)) {
+                limiteData = posicao.dataAbertura();
+                limiteId = posicao.id();
+            }
+        }
 
-        List<SolicitacaoModulo> lista = solicitacaoRepository.findBySolicitante(usuario);
+        LocalDateTime de = filtro.de() != null ? filtro.de().atStartOfDay() : DATA_MINIMA;
+
+        //busca um item a mais só para saber se existe próxima página
+        List<SolicitacaoResponseDTO> itens = solicitacaoRepository.listarPaginaDoUsuario(
+                usuario.getId(),
+                limiteData,
+                limiteId,
+                de,
+                filtro.status(),
+                filtro.moduloId(),
+                Limit.of(tamanho + 1)
+        );
+
+        //o histórico só tem status finais: com filtro de status pendente ele nem é consultado
+        if (filtro.status() == null || ArquivamentoSolicitacaoService.STATUS_FINAIS.contains(filtro.status())) {
+            List<SolicitacaoResponseDTO> arquivadas = arquivadaRepository.listarPaginaDoUsuario(
+                    usuario.getId(),
+                    limiteData,
+                    limiteId,
+                    de,
+                    filtro.status(),
+                    filtro.moduloId(),
+                    Limit.of(tamanho + 1)
+            );
+
+            itens = intercalar(itens, arquivadas, tamanho + 1);
+        }
 
-        lista.forEach(this::expirarSeNecessario);
+        String proximoCursor = null;
+
+        if (itens.size() > tamanho) {
+            itens = itens.subList(0, tamanho);
+            SolicitacaoResponseDTO ultimo = itens.get(tamanho - 1);
+            proximoCursor = new CursorSolicitacao(ultimo.dataAbertura(), ultimo.id()).codificar();
+        }
+
+        return new PaginaDTO<>(itens, proximoCursor);
+    }
 
-        return lista;
+    public SolicitacaoResponseDTO detalharSolicitacao(Long id, Usuario usuario) {
+        return metricas.medir(SolicitacaoMetricas.Operacao.DETALHAR, () -> detalhar(id, usuario));
     }
 
-    public SolicitacaoModulo detalharSolicitacao(Long id, Usuario usuario) {
+    private SolicitacaoResponseDTO detalhar(Long id, Usuario usuario) {
 
-        SolicitacaoModulo sol = solicitacaoRepository.findById(id)
+        //projeção direta para o DTO; o histórico só é consultado quando a solicitação já foi arquivada
+        SolicitacaoResponseDTO sol = solicitacaoRepository.buscarResumoPorId(id)
+                .or(() -> arquivadaRepository.buscarResumoPorId(id))
                 .orElseThrow(() -> new ApiException("Solicitação não encontrada"));
 
-        if (sol.getSolicitante().getId() != usuario.getId()) {
+        if (sol.solicitante().id() != usuario.getId()) {
             throw new ApiException("Solicitação não pertence ao usuário");
         }
 
-        expirarSeNecessario(sol);
-
         return sol;
     }
-}
\ No newline at end of file
+
+    //as duas páginas já vêm na ordem do keyset; o cursor vale para as duas tabelas porque os ids não se repetem
+    private static List<SolicitacaoResponseDTO> intercalar(
+            List<SolicitacaoResponseDTO> ativas,
+            List<SolicitacaoResponseDTO> arquivadas,
+            int limite
+    ) {
+        if (arquivadas.isEmpty()) {
+            return ativas;
+        }
+
+        List<SolicitacaoResponseDTO> itens = new ArrayList<>(limite);
+        int a = 0;
+        int h = 0;
+
+        while (itens.size() < limite && (a < ativas.size() || h < arquivadas.size())) {
+            if (h >= arquivadas.size()
+                    || (a < ativas.size() && ORDEM_LISTAGEM.compare(ativas.get(a), arquivadas.get(h)) <= 0)) {
+                itens.add(ativas.get(a++));
+            } else {
+                itens.add(arquivadas.get(h++));
+            }
+        }
+
+        return itens;
+    }
+}
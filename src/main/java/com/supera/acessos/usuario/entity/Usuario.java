@@ -1,8 +1,11 @@
 package com.supera.acessos.usuario.entity;
 
+import com.supera.acessos.infra.CacheSegundoNivelConfig;
 import com.supera.acessos.modulo.entity.Modulo;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -14,10 +17,13 @@ import java.util.Set;
 @Builder
 @Entity
 @Table(name = "usuarios")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheSegundoNivelConfig.REGIAO_USUARIOS)
 public class Usuario {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuarios_seq")
+    @SequenceGenerator(name = "usuarios_seq", sequenceName = "usuarios_seq", allocationSize = 50)
     private long id;
 
     @Column(nullable = false, length = 120)
@@ -41,6 +47,12 @@ public class Usuario {
             joinColumns = @JoinColumn(name = "usuario_id"),
             inverseJoinColumns = @JoinColumn(name = "modulo_id")
     )
-
+    //concessões e revogações são nativas: quem invalida a entrada do usuário é o ModulosAtivosCacheListener
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheSegundoNivelConfig.REGIAO_MODULOS_DO_USUARIO)
     private Set<Modulo> modulosAtivos = new HashSet<>();
+
+    //só sobe quando a própria entidade é salva (cadastro): concessões e revogações são SQL direto em
+    //usuarios_modulos e o rehash da senha é um update JPQL, então nenhum dos dois altera nem confere a versão
+    @Version
+    private Long versao;
 }
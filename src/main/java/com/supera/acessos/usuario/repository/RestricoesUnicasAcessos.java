@@ -0,0 +1,75 @@
+package com.supera.acessos.usuario.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+//nomes da PK e dos índices únicos de usuarios_modulos como o banco reporta na violação, lidos do próprio catálogo:
+//o nome da V1 não vale em todo banco (os criados pelo ddl-auto têm usuarios_modulos_pkey, o H2 reporta o índice PRIMARY_KEY_xx)
+@Repository
+@RequiredArgsConstructor
+public class RestricoesUnicasAcessos {
+
+    private static final String TABELA = "usuarios_modulos";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    //lido na primeira violação; o catálogo não muda com a aplicação no ar
+    private volatile Set<String> nomes;
+
+    //nome como vem do driver, com ou sem o schema na frente
+    public boolean contem(String restricao) {
+
+        if (restricao == null) {
+            return false;
+        }
+
+        Set<String> atuais = nomes;
+        if (atuais == null) {
+            atuais = nomes = carregar();
+        }
+
+        return atuais.contains(normalizar(restricao));
+    }
+
+    private Set<String> carregar() {
+        return jdbcTemplate.execute((ConnectionCallback<Set<String>>) conexao -> {
+            DatabaseMetaData catalogo = conexao.getMetaData();
+            Set<String> encontrados = new HashSet<>();
+
+            //postgres guarda o nome da tabela em minúsculas, o H2 em maiúsculas
+            for (String tabela : List.of(TABELA, TABELA.toUpperCase(Locale.ROOT))) {
+                try (ResultSet pk = catalogo.getPrimaryKeys(null, null, tabela)) {
+                    adicionar(encontrados, pk, "PK_NAME");
+                }
+                try (ResultSet indices = catalogo.getIndexInfo(null, null, tabela, true, true)) {
+                    adicionar(encontrados, indices, "INDEX_NAME");
+                }
+            }
+
+            return Set.copyOf(encontrados);
+        });
+    }
+
+    private static void adicionar(Set<String> encontrados, ResultSet linhas, String coluna) throws SQLException {
+        while (linhas.next()) {
+            String nome = linhas.getString(coluna);
+            if (nome != null) {
+                encontrados.add(normalizar(nome));
+            }
+        }
+    }
+
+    private static String normalizar(String nome) {
+        return nome.substring(nome.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+}
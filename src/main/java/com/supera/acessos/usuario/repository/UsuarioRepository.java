@@ -1,13 +1,77 @@
 package com.supera.acessos.usuario.repository;
 
+import com.supera.acessos.infra.CacheSegundoNivelConfig;
 import com.supera.acessos.usuario.entity.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
+    //login e refresh: o id encontrado fica no cache de consultas e a entidade vem da região de usuários
+    //qualquer gravação em usuarios (inclusive o rehash abaixo) invalida o resultado
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheSegundoNivelConfig.REGIAO_USUARIO_POR_EMAIL)
+    })
     Optional<Usuario> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    //quais dos módulos informados o usuário já tem, sem carregar a coleção modulosAtivos
+    @Query("""
+            select m.id from Usuario u
+            join u.modulosAtivos m
+            where u.id = :usuarioId
+              and m.id in :moduloIds
+            """)
+    List<Long> buscarModulosAtivos(Long usuarioId, Collection<Long> moduloIds);
+
+    //concessão e revogação mexem numa linha só de usuarios_modulos, sem carregar a coleção do usuário
+    //o hint restringe o auto-flush do SQL nativo a essa tabela: não quebra o batch dos updates pendentes da decisão em lote
+    //nas gravações, sem o hint o Hibernate esvaziaria todas as regiões do cache; a coleção modulosAtivos
+    //do usuário é invalidada pelo ModulosAtivosCacheListener
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "usuarios_modulos"))
+    @Query(value = """
+            select count(*) > 0 from usuarios_modulos
+            where usuario_id = :usuarioId
+              and modulo_id = :moduloId
+            """, nativeQuery = true)
+    boolean possuiModulo(Long usuarioId, Long moduloId);
+
+    //acessos já existentes de um bloco de decisões numa consulta só; pode trazer pares cruzados
+    //(usuário de uma solicitação com módulo de outra), então quem usa confere o par exato
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "usuarios_modulos"))
+    @Query(value = """
+            select usuario_id, modulo_id from usuarios_modulos
+            where usuario_id in :usuarioIds
+              and modulo_id in :moduloIds
+            """, nativeQuery = true)
+    List<Object[]> buscarAcessos(Collection<Long> usuarioIds, Collection<Long> moduloIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "usuarios_modulos"))
+    @Query(value = "insert into usuarios_modulos (usuario_id, modulo_id) values (:usuarioId, :moduloId)",
+            nativeQuery = true)
+    int concederModulo(Long usuarioId, Long moduloId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "usuarios_modulos"))
+    @Query(value = "delete from usuarios_modulos where usuario_id = :usuarioId and modulo_id = :moduloId",
+            nativeQuery = true)
+    int revogarModulo(Long usuarioId, Long moduloId);
+
+    //rehash no login: um update direto, sem carregar a entidade
+    @Transactional
+    @Modifying
+    @Query("update Usuario u set u.senha = :senha where u.id = :id")
+    int atualizarSenha(Long id, String senha);
 }
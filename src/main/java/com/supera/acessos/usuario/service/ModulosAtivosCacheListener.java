@@ -0,0 +1,35 @@
+package com.supera.acessos.usuario.service;
+
+import com.supera.acessos.acesso.event.AcessoConcedido;
+import com.supera.acessos.acesso.event.AcessoRevogado;
+import com.supera.acessos.usuario.entity.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+//concessões e revogações são SQL nativo em usuarios_modulos, que o Hibernate não associa à coleção modulosAtivos
+//depois do commit, tira do cache de segundo nível só a coleção do usuário afetado
+@Component
+@RequiredArgsConstructor
+public class ModulosAtivosCacheListener {
+
+    private static final String COLECAO = Usuario.class.getName() + ".modulosAtivos";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoConceder(AcessoConcedido evento) {
+        invalidar(evento.usuarioId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoRevogar(AcessoRevogado evento) {
+        invalidar(evento.usuarioId());
+    }
+
+    private void invalidar(Long usuarioId) {
+        entityManagerFactory.getCache().unwrap(Cache.class).evictCollectionData(COLECAO, usuarioId);
+    }
+}
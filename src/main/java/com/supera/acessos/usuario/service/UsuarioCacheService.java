@@ -0,0 +1,85 @@
+package com.supera.acessos.usuario.service;
+
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+//cache limitado (LRU + TTL) de snapshots de usuário, usado quando o token não traz as claims necessárias
+@Service
+public class UsuarioCacheService {
+
+    private final UsuarioRepository usuarioRepository;
+    private final long ttlNanos;
+    private final Map<Long, Entrada> entradas;
+
+    public UsuarioCacheService(
+            UsuarioRepository usuarioRepository,
+            @Value("${auth.usuario-cache.tamanho-maximo:10000}") int tamanhoMaximo,
+            @Value("${auth.usuario-cache.ttl-segundos:300}") long ttlSegundos
+    ) {
+        this.usuarioRepository = usuarioRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSegundos);
+        this.entradas = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> eldest) {
+                return size() > tamanhoMaximo;
+            }
+        };
+    }
+
+    public Optional<Usuario> buscarPorId(Long id) {
+
+        long agora = System.nanoTime();
+
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(id);
+            if (entrada != null) {
+                if (agora - entrada.criadaEm() < ttlNanos) {
+                    return Optional.of(entrada.usuario());
+                }
+                entradas.remove(id);
+            }
+        }
+
+        //consulta fora do lock para não serializar as idas ao banco
+        Optional<Usuario> usuario = usuarioRepository.findById(id).map(this::snapshot);
+
+        usuario.ifPresent(u -> {
+            synchronized (entradas) {
+                entradas.put(id, new Entrada(u, agora));
+            }
+        });
+
+        return usuario;
+    }
+
+    public void invalidar(Long id) {
+        synchronized (entradas) {
+            entradas.remove(id);
+        }
+    }
+
+    public void invalidarTodos() {
+        synchronized (entradas) {
+            entradas.clear();
+        }
+    }
+
+    //copia apenas os dados de identificação, sem senha nem módulos (que são lazy)
+    private Usuario snapshot(Usuario usuario) {
+        return Usuario.builder()
+                .id(usuario.getId())
+                .nome(usuario.getNome())
+                .email(usuario.getEmail())
+                .departamento(usuario.getDepartamento())
+                .build();
+    }
+
+    private record Entrada(Usuario usuario, long criadaEm) {}
+}
@@ -3,7 +3,7 @@ package com.supera.acessos.usuario.service;
 import com.supera.acessos.usuario.entity.Usuario;
 import com.supera.acessos.usuario.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -13,8 +13,8 @@ import java.util.Optional;
 public class UsuarioService {
 
     private final UsuarioRepository usuarioRepository;
-
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final UsuarioCacheService usuarioCacheService;
+    private final PasswordEncoder passwordEncoder;
 
     public Optional<Usuario> buscarPorEmail(String email) {
         return usuarioRepository.findByEmail(email);
@@ -23,6 +23,15 @@ public class UsuarioService {
     public Usuario salvarUsuario(Usuario usuario) {
         //criptografa a senha antes de salvar
         usuario.setSenha(passwordEncoder.encode(usuario.getSenha()));
-        return usuarioRepository.save(usuario);
+        Usuario salvo = usuarioRepository.save(usuario);
+
+        //snapshot antigo não pode continuar sendo usado pelo filtro JWT
+        usuarioCacheService.invalidar(salvo.getId());
+        return salvo;
+    }
+
+    //o snapshot do cache não guarda a senha, então não precisa ser invalidado
+    public void atualizarHashSenha(Long usuarioId, String hash) {
+        usuarioRepository.atualizarSenha(usuarioId, hash);
     }
 }
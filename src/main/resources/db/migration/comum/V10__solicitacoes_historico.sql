@@ -0,0 +1,28 @@
+-- solicitações em status final (REPROVADA, CANCELADA, EXPIRADA) antigas saem de solicitacoes para cá
+-- o arquivamento move em lotes; solicitacoes fica só com o conjunto quente que as operações e as filas usam
+-- mesmo id da origem: o histórico do usuário e o detalhe juntam as duas tabelas sem conflito de chave
+create table solicitacoes_historico (
+    id bigint not null,
+    usuario_id bigint not null,
+    modulo_id bigint not null,
+    status varchar(30) not null,
+    data_abertura timestamp(6) not null,
+    data_aprovacao timestamp(6),
+    data_reprovacao timestamp(6),
+    data_expiracao timestamp(6),
+    data_cancelamento timestamp(6),
+    motivo_recusa varchar(255),
+    arquivada_em timestamp(6) not null,
+    constraint pk_solicitacoes_historico primary key (id),
+    constraint fk_solicitacoes_historico_usuario foreign key (usuario_id) references usuarios (id),
+    constraint fk_solicitacoes_historico_modulo foreign key (modulo_id) references modulos (id),
+    constraint ck_solicitacoes_historico_status check (status in ('REPROVADA', 'EXPIRADA', 'CANCELADA'))
+);
+
+-- listagem do usuário: mesmo keyset de idx_solicitacoes_usuario_abertura
+create index idx_solicitacoes_historico_usuario_abertura
+    on solicitacoes_historico (usuario_id, data_abertura, id);
+
+-- FK de modulo_id
+create index idx_solicitacoes_historico_modulo
+    on solicitacoes_historico (modulo_id);
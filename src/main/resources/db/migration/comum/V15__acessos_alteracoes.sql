@@ -0,0 +1,14 @@
+-- cada concessão ou revogação grava uma linha aqui, na mesma transação da mudança em usuarios_modulos
+-- todos os nós leem as linhas novas e aplicam no índice de acessos em memória, não só o nó que fez a mudança
+-- a identidade numera na ordem das gravações: o id aplicado é a marca de consistência do índice
+create table acessos_alteracoes (
+    id bigint generated by default as identity,
+    usuario_id bigint not null,
+    modulo_id bigint not null,
+    concedido boolean not null,
+    registrado_em timestamp(6) not null,
+    constraint pk_acessos_alteracoes primary key (id)
+);
+
+-- limpeza das linhas antigas feita na reconstrução do índice
+create index idx_acessos_alteracoes_registro on acessos_alteracoes (registrado_em);
@@ -0,0 +1,49 @@
+-- schema equivalente ao que o ddl-auto=update gerava (bancos existentes entram como baseline 1)
+
+create table usuarios (
+    id bigint generated by default as identity,
+    nome varchar(120) not null,
+    email varchar(120) not null,
+    senha varchar(255) not null,
+    departamento varchar(255) not null,
+    constraint pk_usuarios primary key (id),
+    constraint uk_usuarios_email unique (email),
+    constraint ck_usuarios_departamento check (departamento in ('TI', 'FINANCEIRO', 'RH', 'OPERACOES', 'OUTROS'))
+);
+
+create table modulos (
+    id bigint generated by default as identity,
+    nome varchar(80) not null,
+    descricao varchar(200) not null,
+    exige_aprovacao_gestor boolean not null,
+    exige_aprovacao_seguranca boolean not null,
+    prazo_expiracao_dias integer not null,
+    ativo boolean not null,
+    constraint pk_modulos primary key (id)
+);
+
+create table usuarios_modulos (
+    usuario_id bigint not null,
+    modulo_id bigint not null,
+    constraint pk_usuarios_modulos primary key (modulo_id, usuario_id),
+    constraint fk_usuarios_modulos_usuario foreign key (usuario_id) references usuarios (id),
+    constraint fk_usuarios_modulos_modulo foreign key (modulo_id) references modulos (id)
+);
+
+create table solicitacoes (
+    id bigint generated by default as identity,
+    usuario_id bigint not null,
+    modulo_id bigint not null,
+    status varchar(255) not null,
+    data_abertura timestamp(6) not null,
+    data_aprovacao timestamp(6),
+    data_reprovacao timestamp(6),
+    data_expiracao timestamp(6),
+    data_cancelamento timestamp(6),
+    motivo_recusa varchar(255),
+    constraint pk_solicitacoes primary key (id),
+    constraint fk_solicitacoes_usuario foreign key (usuario_id) references usuarios (id),
+    constraint fk_solicitacoes_modulo foreign key (modulo_id) references modulos (id),
+    constraint ck_solicitacoes_status check (status in ('ABERTA', 'AGUARDANDO_GESTOR', 'AGUARDANDO_SEGURANCA',
+                                                       'APROVADA', 'REPROVADA', 'EXPIRADA', 'CANCELADA'))
+);
@@ -0,0 +1,21 @@
+-- refresh tokens opacos: só o SHA-256 fica no banco; tokens da mesma cadeia de rotação compartilham a família
+
+create table refresh_tokens (
+    id bigint generated by default as identity,
+    usuario_id bigint not null,
+    familia varchar(36) not null,
+    hash_token varchar(64) not null,
+    criado_em timestamp(6) not null,
+    expira_em timestamp(6) not null,
+    usado_em timestamp(6),
+    revogado_em timestamp(6),
+    constraint pk_refresh_tokens primary key (id),
+    constraint uk_refresh_tokens_hash unique (hash_token),
+    constraint fk_refresh_tokens_usuario foreign key (usuario_id) references usuarios (id)
+);
+
+-- revogação da família inteira quando um token já rotacionado é reapresentado
+create index idx_refresh_tokens_familia on refresh_tokens (familia);
+
+-- limpeza dos vencidos
+create index idx_refresh_tokens_expiracao on refresh_tokens (expira_em);
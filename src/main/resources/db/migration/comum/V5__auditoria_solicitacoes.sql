@@ -0,0 +1,34 @@
+-- trilha de auditoria das transições de solicitação (quem, quando, de qual status para qual)
+-- sem FK para solicitacoes/usuarios: o histórico sobrevive à exclusão dos registros de origem
+
+-- outbox: gravado na mesma transação da transição, estreito e sem índices secundários para não pesar no insert
+-- o gravador em segundo plano move as linhas para a trilha em lote e apaga daqui
+create table auditoria_outbox (
+    id varchar(36) not null,
+    solicitacao_id bigint not null,
+    usuario_id bigint,
+    status_anterior varchar(30),
+    status_novo varchar(30) not null,
+    motivo varchar(255),
+    ocorrido_em timestamp(6) not null,
+    constraint pk_auditoria_outbox primary key (id)
+);
+
+-- trilha definitiva, somente inserção; o id é o mesmo do outbox, o que torna a cópia idempotente
+create table auditoria_solicitacoes (
+    id varchar(36) not null,
+    solicitacao_id bigint not null,
+    usuario_id bigint,
+    status_anterior varchar(30),
+    status_novo varchar(30) not null,
+    motivo varchar(255),
+    ocorrido_em timestamp(6) not null,
+    gravado_em timestamp(6) not null,
+    constraint pk_auditoria_solicitacoes primary key (id)
+);
+
+-- histórico de uma solicitação em ordem cronológica
+create index idx_auditoria_solicitacao on auditoria_solicitacoes (solicitacao_id, ocorrido_em);
+
+-- consultas de compliance por quem agiu
+create index idx_auditoria_usuario on auditoria_solicitacoes (usuario_id, ocorrido_em);
@@ -0,0 +1,5 @@
+-- controle de concorrência otimista: todo update confere e incrementa a versão lida
+alter table solicitacoes add column versao bigint default 0 not null;
+
+-- a versão do usuário sobe quando muda o conjunto de módulos ativos
+alter table usuarios add column versao bigint default 0 not null;
@@ -0,0 +1,5 @@
+-- o H2 acusa a violação da PK pelo nome gerado do índice (PRIMARY_KEY_xx), não pelo da constraint;
+-- um índice único com o nome da PK, criado antes dela, é o primeiro a ser checado e dá o mesmo nome do postgresql
+alter table usuarios_modulos drop constraint pk_usuarios_modulos;
+create unique index pk_usuarios_modulos on usuarios_modulos (modulo_id, usuario_id);
+alter table usuarios_modulos add constraint pk_usuarios_modulos primary key (modulo_id, usuario_id);
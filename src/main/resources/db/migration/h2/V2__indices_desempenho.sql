@@ -0,0 +1,16 @@
+-- mesmo conjunto do postgresql; o H2 não tem índice parcial, então a expiração usa (status, data_expiracao)
+
+create index if not exists idx_solicitacoes_usuario_modulo_status
+    on solicitacoes (usuario_id, modulo_id, status);
+
+create index if not exists idx_solicitacoes_usuario_abertura
+    on solicitacoes (usuario_id, data_abertura, id);
+
+create index if not exists idx_solicitacoes_expiracao_aprovadas
+    on solicitacoes (status, data_expiracao);
+
+create index if not exists idx_solicitacoes_modulo
+    on solicitacoes (modulo_id);
+
+create index if not exists idx_usuarios_modulos_usuario
+    on usuarios_modulos (usuario_id, modulo_id);
@@ -0,0 +1,7 @@
+-- mesmo conjunto do postgresql; o H2 não tem índice parcial nem include
+
+create index if not exists idx_solicitacoes_fila
+    on solicitacoes (status, data_abertura, id, usuario_id, modulo_id);
+
+create index if not exists idx_solicitacoes_fila_modulo
+    on solicitacoes (status, modulo_id, data_abertura, id, usuario_id);
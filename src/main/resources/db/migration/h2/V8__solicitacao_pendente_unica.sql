@@ -0,0 +1,7 @@
+-- mesma regra do postgresql; sem índice parcial no H2, a coluna gerada só tem valor enquanto a solicitação está pendente
+-- e o índice único ignora as linhas com nulo
+alter table solicitacoes add column modulo_pendente bigint generated always as (
+    case when status in ('ABERTA', 'AGUARDANDO_GESTOR', 'AGUARDANDO_SEGURANCA') then modulo_id end
+);
+
+create unique index uk_solicitacoes_pendente on solicitacoes (usuario_id, modulo_pendente);
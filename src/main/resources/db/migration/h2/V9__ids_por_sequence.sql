@@ -0,0 +1,15 @@
+-- mesma troca do postgresql: sequence com incremento 50 começando depois do maior id, e default da coluna na sequence
+create sequence usuarios_seq increment by 50;
+alter sequence usuarios_seq restart with (select coalesce(max(id), 0) + 1 from usuarios);
+alter table usuarios alter column id drop identity;
+alter table usuarios alter column id set default next value for usuarios_seq;
+
+create sequence modulos_seq increment by 50;
+alter sequence modulos_seq restart with (select coalesce(max(id), 0) + 1 from modulos);
+alter table modulos alter column id drop identity;
+alter table modulos alter column id set default next value for modulos_seq;
+
+create sequence solicitacoes_seq increment by 50;
+alter sequence solicitacoes_seq restart with (select coalesce(max(id), 0) + 1 from solicitacoes);
+alter table solicitacoes alter column id drop identity;
+alter table solicitacoes alter column id set default next value for solicitacoes_seq;
@@ -0,0 +1,5 @@
+-- job de arquivamento: só as solicitações em status final, das mais antigas para as mais novas
+-- no H2 o idx_solicitacoes_fila (status, data_abertura, ...) sem filtro parcial já atende
+create index if not exists idx_solicitacoes_arquivaveis
+    on solicitacoes (data_abertura)
+    where status in ('REPROVADA', 'EXPIRADA', 'CANCELADA');
@@ -0,0 +1,7 @@
+-- a idade do arquivamento passa a contar da data final (cancelamento, reprovação ou expiração), não da abertura;
+-- o índice usa a mesma expressão da consulta para continuar atendendo o filtro e a ordenação
+drop index if exists idx_solicitacoes_arquivaveis;
+
+create index idx_solicitacoes_arquivaveis
+    on solicitacoes ((coalesce(data_cancelamento, data_reprovacao, data_expiracao, data_abertura)))
+    where status in ('REPROVADA', 'EXPIRADA', 'CANCELADA');
@@ -0,0 +1,16 @@
+-- bancos criados pelo antigo ddl-auto=update foram marcados como V1 sem rodar a migração:
+-- a PK de usuarios_modulos ficou com o nome gerado (usuarios_modulos_pkey); passa a ter o mesmo nome da V1
+do $$
+declare
+    atual text;
+begin
+    select conname into atual
+    from pg_constraint
+    where conrelid = 'usuarios_modulos'::regclass
+      and contype = 'p';
+
+    if atual is not null and atual <> 'pk_usuarios_modulos' then
+        execute format('alter table usuarios_modulos rename constraint %I to pk_usuarios_modulos', atual);
+    end if;
+end;
+$$;
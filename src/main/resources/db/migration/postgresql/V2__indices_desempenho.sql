@@ -0,0 +1,20 @@
+-- existsBySolicitanteAndModuloAndStatusIn
+create index if not exists idx_solicitacoes_usuario_modulo_status
+    on solicitacoes (usuario_id, modulo_id, status);
+
+-- listagem do usuário ordenada por data de abertura
+create index if not exists idx_solicitacoes_usuario_abertura
+    on solicitacoes (usuario_id, data_abertura, id);
+
+-- job de expiração: só as aprovadas interessam
+create index if not exists idx_solicitacoes_expiracao_aprovadas
+    on solicitacoes (data_expiracao)
+    where status = 'APROVADA';
+
+-- FK de solicitacoes.modulo_id
+create index if not exists idx_solicitacoes_modulo
+    on solicitacoes (modulo_id);
+
+-- a PK de usuarios_modulos começa por modulo_id; a busca por usuário precisa do índice invertido
+create index if not exists idx_usuarios_modulos_usuario
+    on usuarios_modulos (usuario_id, modulo_id);
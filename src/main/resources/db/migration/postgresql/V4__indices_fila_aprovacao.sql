@@ -0,0 +1,12 @@
+-- fila de aprovação: mais antigas primeiro; o índice parcial só contém o que aguarda decisão
+-- cobre filtro, ordenação e as chaves dos joins; o restante das colunas é lido só para as linhas da página
+create index if not exists idx_solicitacoes_fila
+    on solicitacoes (status, data_abertura, id)
+    include (usuario_id, modulo_id)
+    where status in ('AGUARDANDO_GESTOR', 'AGUARDANDO_SEGURANCA');
+
+-- mesma fila filtrada por módulo
+create index if not exists idx_solicitacoes_fila_modulo
+    on solicitacoes (status, modulo_id, data_abertura, id)
+    include (usuario_id)
+    where status in ('AGUARDANDO_GESTOR', 'AGUARDANDO_SEGURANCA');
@@ -0,0 +1,11 @@
+-- a trilha de auditoria não aceita update nem delete, nem da aplicação nem de quem acessa o banco direto
+
+create function auditoria_somente_insercao() returns trigger as $$
+begin
+    raise exception 'auditoria_solicitacoes é somente inserção';
+end;
+$$ language plpgsql;
+
+create trigger trg_auditoria_somente_insercao
+    before update or delete on auditoria_solicitacoes
+    for each row execute function auditoria_somente_insercao();
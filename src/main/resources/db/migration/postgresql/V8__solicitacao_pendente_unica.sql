@@ -0,0 +1,8 @@
+-- no máximo uma solicitação pendente por usuário e módulo, garantido pelo banco e não só pela checagem da aplicação
+-- bases com duplicadas precisam ser corrigidas antes; para encontrá-las:
+--   select usuario_id, modulo_id, count(*) from solicitacoes
+--   where status in ('ABERTA', 'AGUARDANDO_GESTOR', 'AGUARDANDO_SEGURANCA')
+--   group by usuario_id, modulo_id having count(*) > 1
+create unique index uk_solicitacoes_pendente
+    on solicitacoes (usuario_id, modulo_id)
+    where status in ('ABERTA', 'AGUARDANDO_GESTOR', 'AGUARDANDO_SEGURANCA');
@@ -0,0 +1,20 @@
+-- ids por sequence com incremento 50 (pooled-lo no Hibernate): os inserts deixam de ser imediatos e entram no batch JDBC
+-- cada sequence começa depois do maior id existente; a coluna passa a usar a sequence como default,
+-- então inserts feitos por fora da aplicação continuam sem colidir com os ids reservados pelo Hibernate
+create sequence usuarios_seq increment by 50;
+select setval('usuarios_seq', (select coalesce(max(id), 0) + 1 from usuarios), false);
+alter table usuarios alter column id drop identity;
+alter table usuarios alter column id set default nextval('usuarios_seq');
+alter sequence usuarios_seq owned by usuarios.id;
+
+create sequence modulos_seq increment by 50;
+select setval('modulos_seq', (select coalesce(max(id), 0) + 1 from modulos), false);
+alter table modulos alter column id drop identity;
+alter table modulos alter column id set default nextval('modulos_seq');
+alter sequence modulos_seq owned by modulos.id;
+
+create sequence solicitacoes_seq increment by 50;
+select setval('solicitacoes_seq', (select coalesce(max(id), 0) + 1 from solicitacoes), false);
+alter table solicitacoes alter column id drop identity;
+alter table solicitacoes alter column id set default nextval('solicitacoes_seq');
+alter sequence solicitacoes_seq owned by solicitacoes.id;
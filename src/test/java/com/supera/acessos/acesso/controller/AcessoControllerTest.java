@@ -0,0 +1,227 @@
+package com.supera.acessos.acesso.controller;
+
+import com.supera.acessos.acesso.service.AcessoIndexService;
+import com.supera.acessos.auth.security.JwtTokenService;
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
+import com.supera.acessos.support.SqlCapturado;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.supera.acessos.support.SqlCapturado")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AcessoControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ModuloRepository moduloRepository;
+
+    @Autowired
+    private SolicitacaoModuloRepository solicitacaoRepository;
+
+    @Autowired
+    private AcessoIndexService acessoIndex;
+
+    @Autowired
+    private JwtTokenService jwtTokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario usuario;
+    private Modulo financeiro;
+    private Modulo auditoria;
+    private String token;
+
+    @BeforeEach
+    void setup() {
+        financeiro = moduloRepository.save(modulo("Financeiro"));
+        auditoria = moduloRepository.save(modulo("Auditoria"));
+
+        Usuario novo = Usuario.builder()
+                .nome("Joao")
+                .email("joao@supera.com")
+                .senha("hash")
+                .departamento(Departamento.TI)
+                .build();
+        novo.getModulosAtivos().add(financeiro);
+        usuario = usuarioRepository.save(novo);
+
+        //gravação direta, fora do fluxo de solicitações: só entra no índice pela reconstrução
+        acessoIndex.reconstruir();
+
+        token = "Bearer " + jwtTokenService.gerarToken(usuario);
+    }
+
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("delete from usuarios_modulos");
+        jdbcTemplate.update("delete from solicitacoes");
+        jdbcTemplate.update("delete from modulos");
+        jdbcTemplate.update("delete from usuarios");
+        jdbcTemplate.update("delete from acessos_alteracoes");
+        acessoIndex.reconstruir();
+    }
+
+    @Test
+    void deveResponderPeloIndiceSemConsultarOBanco() throws Exception {
+
+        SqlCapturado.limpar();
+
+        mockMvc.perform(get("/acessos/verificar")
+                        .param("usuarioId", String.valueOf(usuario.getId()))
+                        .param("moduloId", financeiro.getId().toString())
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Acessos-Versao"))
+                .andExpect(jsonPath("$.possuiAcesso").value(true));
+
+        mockMvc.perform(get("/acessos/verificar")
+                        .param("usuarioId", String.valueOf(usuario.getId()))
+                        .param("moduloId", auditoria.getId().toString())
+                        .header("Authorization", token))
+                .andExpect(jsonPath("$.possuiAcesso").value(false));
+
+        assertTrue(SqlCapturado.capturados().isEmpty(), SqlCapturado.capturados().toString());
+    }
+
+    @Test
+    void moduloForaDaFaixaDoIndiceDeveSerConsultadoNoBanco() throws Exception {
+
+        long moduloAlto = 70_000;
+
+        jdbcTemplate.update("insert into modulos (id, nome, descricao, exige_aprovacao_gestor, "
+                + "exige_aprovacao_seguranca, prazo_expiracao_dias, ativo) values (?, 'Alto', 'Alto', false, false, 30, true)",
+                moduloAlto);
+        jdbcTemplate.update("insert into usuarios_modulos (usuario_id, modulo_id) values (?, ?)", usuario.getId(), moduloAlto);
+        acessoIndex.reconstruir();
+
+        mockMvc.perform(get("/acessos/verificar")
+                        .param("usuarioId", String.valueOf(usuario.getId()))
+                        .param("moduloId", String.valueOf(moduloAlto))
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.possuiAcesso").value(true));
+
+        jdbcTemplate.update("delete from usuarios_modulos where modulo_id = ?", moduloAlto);
+
+        assertFalse(acessoIndex.possuiAcesso(usuario.getId(), moduloAlto));
+    }
+
+    @Test
+    void deveAtualizarIndiceAoAprovarSolicitacao() throws Exception {
+
+        long versaoAntes = acessoIndex.marca().versao();
+
+        SolicitacaoModulo sol = solicitacaoRepository.save(SolicitacaoModulo.builder()
+                .solicitante(usuario)
+                .modulo(auditoria)
+                .status(StatusSolicitacao.AGUARDANDO_SEGURANCA)
+                .dataAbertura(LocalDateTime.now())
+                .build());
+
+        mockMvc.perform(post("/solicitacoes/" + sol.getId() + "/aprovar").header("Authorization", token))
+                .andExpect(status().isOk());
+
+        assertTrue(acessoIndex.possuiAcesso(usuario.getId(), auditoria.getId()));
+        assertTrue(acessoIndex.marca().versao() > versaoAntes);
+
+        //a concessão fica registrada para os outros nós
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from acessos_alteracoes where usuario_id = ? and modulo_id = ? and concedido = true",
+                Integer.class, usuario.getId(), auditoria.getId()));
+    }
+
+    @Test
+    void deveAplicarAlteracoesFeitasEmOutroNo() {
+
+        long alteracaoAntes = acessoIndex.marca().ultimaAlteracao();
+
+        //outro nó concede e revoga: só a linha em acessos_alteracoes chega até aqui
+        jdbcTemplate.update("insert into usuarios_modulos (usuario_id, modulo_id) values (?, ?)", usuario.getId(), auditoria.getId());
+        registrarAlteracao(auditoria, true);
+        jdbcTemplate.update("delete from usuarios_modulos where usuario_id = ? and modulo_id = ?", usuario.getId(), financeiro.getId());
+        registrarAlteracao(financeiro, false);
+
+        assertFalse(acessoIndex.possuiAcesso(usuario.getId(), auditoria.getId()));
+        assertTrue(acessoIndex.possuiAcesso(usuario.getId(), financeiro.getId()));
+
+        acessoIndex.sincronizar();
+
+        assertTrue(acessoIndex.possuiAcesso(usuario.getId(), auditoria.getId()));
+        assertFalse(acessoIndex.possuiAcesso(usuario.getId(), financeiro.getId()));
+        assertTrue(acessoIndex.marca().ultimaAlteracao() >= alteracaoAntes + 2);
+        assertNotNull(acessoIndex.marca().sincronizadoEm());
+    }
+
+    @Test
+    void deveVerificarEmLoteComMarcaDeConsistencia() throws Exception {
+
+        String corpo = """
+                {"consultas": [
+                    {"usuarioId": %d, "moduloId": %d},
+                    {"usuarioId": %d, "moduloId": %d},
+                    {"usuarioId": 999999, "moduloId": %d}
+                ]}
+                """.formatted(
+                usuario.getId(), financeiro.getId(),
+                usuario.getId(), auditoria.getId(),
+                financeiro.getId());
+
+        mockMvc.perform(post("/acessos/verificar")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resultados.length()").value(3))
+                .andExpect(jsonPath("$.resultados[0].possuiAcesso").value(true))
+                .andExpect(jsonPath("$.resultados[1].possuiAcesso").value(false))
+                .andExpect(jsonPath("$.resultados[2].possuiAcesso").value(false))
+                .andExpect(jsonPath("$.marca.versao").isNumber())
+                .andExpect(jsonPath("$.marca.reconstruidoEm").exists())
+                .andExpect(jsonPath("$.marca.ultimaAlteracao").isNumber());
+    }
+
+    private void registrarAlteracao(Modulo modulo, boolean concedido) {
+        jdbcTemplate.update("insert into acessos_alteracoes (usuario_id, modulo_id, concedido, registrado_em) "
+                + "values (?, ?, ?, current_timestamp)", usuario.getId(), modulo.getId(), concedido);
+    }
+
+    private Modulo modulo(String nome) {
+        return Modulo.builder()
+                .nome(nome)
+                .descricao("Modulo " + nome)
+                .exigeAprovacaoSeguranca(true)
+                .prazoExpiracaoDias(30)
+                .ativo(true)
+                .build();
+    }
+}
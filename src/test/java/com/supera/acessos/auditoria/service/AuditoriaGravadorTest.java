@@ -0,0 +1,174 @@
+package com.supera.acessos.auditoria.service;
+
+import com.supera.acessos.auditoria.dto.HistoricoSolicitacaoDTO;
+import com.supera.acessos.auditoria.event.TransicaoRegistrada;
+import com.supera.acessos.exceptions.ApiException;
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
+import com.supera.acessos.solicitacao.service.SolicitacaoModuloService;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuditoriaGravadorTest {
+
+    @Autowired
+    private AuditoriaGravador gravador;
+
+    @Autowired
+    private HistoricoAuditoriaService historicoService;
+
+    @Autowired
+    private SolicitacaoModuloService solicitacaoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ModuloRepository moduloRepository;
+
+    @Autowired
+    private SolicitacaoModuloRepository solicitacaoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("delete from auditoria_outbox");
+        jdbcTemplate.update("delete from auditoria_solicitacoes");
+        jdbcTemplate.update("delete from usuarios_modulos");
+        jdbcTemplate.update("delete from solicitacoes");
+        jdbcTemplate.update("delete from modulos");
+        jdbcTemplate.update("delete from usuarios");
+    }
+
+    @Test
+    void deveGravarNaTrilhaQuemAprovouAposOCommit() throws Exception {
+
+        Usuario solicitante = usuarioRepository.save(usuario("joao@supera.com"));
+        Usuario aprovador = usuarioRepository.save(usuario("maria@supera.com"));
+
+        Modulo modulo = moduloRepository.save(Modulo.builder()
+                .nome("Auditoria")
+                .descricao("Modulo Auditoria")
+                .exigeAprovacaoSeguranca(true)
+                .prazoExpiracaoDias(30)
+                .ativo(true)
+                .build());
+
+        SolicitacaoModulo solicitacao = solicitacaoRepository.save(SolicitacaoModulo.builder()
+                .solicitante(solicitante)
+                .modulo(modulo)
+                .status(StatusSolicitacao.AGUARDANDO_SEGURANCA)
+                .dataAbertura(LocalDateTime.now())
+                .build());
+
+        solicitacaoService.aprovarSolicitacao(solicitacao.getId(), aprovador);
+
+        //já aparece no histórico, esteja ainda no outbox ou já na trilha
+        List<HistoricoSolicitacaoDTO> historico = historicoService.historico(solicitacao.getId(), solicitante);
+        assertEquals(1, historico.size());
+        assertEquals(aprovador.getId(), historico.get(0).usuarioId());
+        assertEquals(StatusSolicitacao.AGUARDANDO_SEGURANCA, historico.get(0).statusAnterior());
+        assertEquals(StatusSolicitacao.APROVADA, historico.get(0).statusNovo());
+
+        //o gravador esvazia o outbox em segundo plano
+        for (int i = 0; i < 50 && contar("auditoria_outbox") > 0; i++) {
+            Thread.sleep(100);
+        }
+
+        assertEquals(0, contar("auditoria_outbox"));
+        assertEquals(1, contar("auditoria_solicitacoes"));
+    }
+
+    @Test
+    void naoDeveExporATrilhaDeSolicitacaoDeOutroUsuario() {
+
+        Usuario solicitante = usuarioRepository.save(usuario("joao@supera.com"));
+        Usuario outro = usuarioRepository.save(usuario("ana@supera.com"));
+
+        Modulo modulo = moduloRepository.save(Modulo.builder()
+                .nome("Auditoria")
+                .descricao("Modulo Auditoria")
+                .prazoExpiracaoDias(30)
+                .ativo(true)
+                .build());
+
+        SolicitacaoModulo solicitacao = solicitacaoRepository.save(SolicitacaoModulo.builder()
+                .solicitante(solicitante)
+                .modulo(modulo)
+                .status(StatusSolicitacao.AGUARDANDO_GESTOR)
+                .dataAbertura(LocalDateTime.now())
+                .build());
+
+        solicitacaoService.reprovarSolicitacao(solicitacao.getId(), solicitante, "justificativa interna");
+
+        //mesma resposta de um id inexistente: quem itera ids não descobre nem que a solicitação existe
+        ApiException ex = assertThrows(ApiException.class,
+                () -> historicoService.historico(solicitacao.getId(), outro));
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatus());
+
+        ApiException inexistente = assertThrows(ApiException.class,
+                () -> historicoService.historico(solicitacao.getId() + 1000, outro));
+        assertEquals(ex.getMessage(), inexistente.getMessage());
+
+        assertEquals(1, historicoService.historico(solicitacao.getId(), solicitante).size());
+    }
+
+    @Test
+    void deveRecuperarDoOutboxEventosQueNaoPassaramPeloBuffer() {
+
+        LocalDateTime ocorrido = LocalDateTime.now().minusMinutes(5);
+
+        //commitados no outbox, mas o processo caiu antes de o buffer gravar
+        for (String id : List.of("evento-1", "evento-2")) {
+            jdbcTemplate.update("""
+                    insert into auditoria_outbox (id, solicitacao_id, usuario_id, status_anterior, status_novo, ocorrido_em)
+                    values (?, 7, 3, 'AGUARDANDO_GESTOR', 'REPROVADA', ?)
+                    """, id, Timestamp.valueOf(ocorrido));
+        }
+
+        assertEquals(2, gravador.varrer(LocalDateTime.now()));
+        assertEquals(0, gravador.varrer(LocalDateTime.now()));
+        assertEquals(0, contar("auditoria_outbox"));
+        assertEquals(2, contar("auditoria_solicitacoes"));
+
+        //o mesmo evento chegando de novo pelo buffer não duplica a trilha
+        gravador.gravar(List.of(new TransicaoRegistrada("evento-1", 7L, 3L,
+                StatusSolicitacao.AGUARDANDO_GESTOR, StatusSolicitacao.REPROVADA, null, ocorrido)));
+
+        assertEquals(2, contar("auditoria_solicitacoes"));
+    }
+
+    private int contar(String tabela) {
+        return jdbcTemplate.queryForObject("select count(*) from " + tabela, Integer.class);
+    }
+
+    private Usuario usuario(String email) {
+        return Usuario.builder()
+                .nome(email)
+                .email(email)
+                .senha("hash")
+                .departamento(Departamento.TI)
+                .build();
+    }
+}
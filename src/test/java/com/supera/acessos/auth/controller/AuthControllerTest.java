@@ -0,0 +1,114 @@
+package com.supera.acessos.auth.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supera.acessos.support.SqlCapturado;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.supera.acessos.support.SqlCapturado")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        usuarioRepository.save(Usuario.builder()
+                .nome("Joao")
+                .email("joao@supera.com")
+                .senha(passwordEncoder.encode("senha123"))
+                .departamento(Departamento.TI)
+                .build());
+    }
+
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("delete from refresh_tokens");
+        jdbcTemplate.update("delete from usuarios");
+    }
+
+    @Test
+    void refreshDeveEmitirNovosTokensSemConsultarOUsuarioPorEmail() throws Exception {
+
+        JsonNode login = json(mockMvc.perform(post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\": \"joao@supera.com\", \"senha\": \"senha123\"}")));
+
+        SqlCapturado.limpar();
+        JsonNode renovado = json(refresh(login.get("refreshToken").asText()).andExpect(status().isOk()));
+
+        //select do token com o usuário, update do atual e insert do próximo
+        assertEquals(3, SqlCapturado.capturados().size());
+        assertNotEquals(login.get("refreshToken").asText(), renovado.get("refreshToken").asText());
+
+        mockMvc.perform(get("/solicitacoes").header("Authorization", "Bearer " + renovado.get("token").asText()))
+                .andExpect(status().isOk());
+
+        //só o hash fica no banco
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from refresh_tokens where hash_token = ?", Integer.class,
+                renovado.get("refreshToken").asText()));
+    }
+
+    @Test
+    void reusoDeTokenRotacionadoDeveRevogarAFamilia() throws Exception {
+
+        JsonNode login = json(mockMvc.perform(post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\": \"joao@supera.com\", \"senha\": \"senha123\"}")));
+
+        String original = login.get("refreshToken").asText();
+        String atual = json(refresh(original).andExpect(status().isOk())).get("refreshToken").asText();
+
+        //o token antigo reaparece: quem quer que esteja com ele, a família inteira cai
+        refresh(original).andExpect(status().isUnauthorized());
+        refresh(atual).andExpect(status().isUnauthorized());
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from refresh_tokens where revogado_em is null", Integer.class));
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mockMvc.perform(post("/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\": \"" + refreshToken + "\"}"));
+    }
+
+    private JsonNode json(ResultActions resultado) throws Exception {
+        return objectMapper.readTree(resultado.andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,59 @@
+package com.supera.acessos.auth.security;
+
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.service.UsuarioCacheService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtPrincipalResolverTest {
+
+    @Mock
+    private UsuarioCacheService usuarioCacheService;
+
+    @InjectMocks
+    private JwtPrincipalResolver resolver;
+
+    @Test
+    void tokenComClaimsCompletasNaoDeveConsultarOCache() {
+
+        Claims claims = Jwts.claims().setSubject("7");
+        claims.put("email", "joao@supera.com");
+        claims.put("departamento", "TI");
+
+        Usuario usuario = resolver.resolver(claims).orElseThrow();
+
+        assertEquals(7L, usuario.getId());
+        assertEquals("joao@supera.com", usuario.getEmail());
+        assertEquals(Departamento.TI, usuario.getDepartamento());
+        verifyNoInteractions(usuarioCacheService);
+    }
+
+    @Test
+    void tokenSemClaimsCompletasDeveUsarOCacheDeUsuarios() {
+
+        Usuario doCache = Usuario.builder().id(7L).email("joao@supera.com").departamento(Departamento.TI).build();
+        when(usuarioCacheService.buscarPorId(7L)).thenReturn(Optional.of(doCache));
+
+        assertSame(doCache, resolver.resolver(Jwts.claims().setSubject("7")).orElseThrow());
+    }
+
+    @Test
+    void usuarioRemovidoNaoDeveAutenticar() {
+
+        when(usuarioCacheService.buscarPorId(7L)).thenReturn(Optional.empty());
+
+        assertTrue(resolver.resolver(Jwts.claims().setSubject("7")).isEmpty());
+    }
+}
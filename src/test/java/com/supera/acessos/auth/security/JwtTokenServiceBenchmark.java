@@ -0,0 +1,78 @@
+package com.supera.acessos.auth.security;
+
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+//custo por requisição da emissão e da verificação do token: implementação antiga x parser reutilizado x cache de tokens
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenServiceBenchmark {
+
+    private static final String SECRET = "supera-secret-chave-muito-segura-123456789";
+
+    private JwtTokenService semCache;
+    private JwtTokenService comCache;
+    private Usuario usuario;
+    private String token;
+
+    @Setup
+    public void setup() {
+        semCache = criarService(false);
+        comCache = criarService(true);
+
+        usuario = Usuario.builder()
+                .id(1L)
+                .email("joao@supera.com")
+                .departamento(Departamento.TI)
+                .build();
+
+        token = semCache.gerarToken(usuario);
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return semCache.gerarToken(usuario);
+    }
+
+    //como era antes: chave e parser recriados a cada chamada
+    @Benchmark
+    public String legado() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .getSubject();
+    }
+
+    @Benchmark
+    public String parserReutilizado() {
+        return semCache.validarTokenEObterSubject(token);
+    }
+
+    @Benchmark
+    public String comCacheDeTokens() {
+        return comCache.validarTokenEObterSubject(token);
+    }
+
+    public static JwtTokenService criarService(boolean cache) {
+        JwtTokenService service = new JwtTokenService();
+        ReflectionTestUtils.setField(service, "secret", SECRET);
+        ReflectionTestUtils.setField(service, "expirationMillis", 3_600_000L);
+        ReflectionTestUtils.setField(service, "cacheHabilitado", cache);
+        ReflectionTestUtils.setField(service, "cacheTamanhoMaximo", 10_000);
+        ReflectionTestUtils.setField(service, "cacheTtlSegundos", 60L);
+        service.inicializar();
+        return service;
+    }
+}
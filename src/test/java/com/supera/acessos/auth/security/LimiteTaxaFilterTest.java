@@ -0,0 +1,157 @@
+package com.supera.acessos.auth.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.supera.acessos.exceptions.LimiteExcedidoException;
+import com.supera.acessos.usuario.entity.Usuario;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiteTaxaFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LimitesDeTaxa limites;
+    private LimiteTaxaFilter filter;
+    private AtomicInteger executadas;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        limites = new LimitesDeTaxa(
+                true,
+                "100/100",
+                List.of("GET /solicitacoes=3/1", "/solicitacoes/fila=50/50", "POST /auth/login=2/0.5"),
+                "2/0.01",
+                List.of("/actuator"),
+                1000
+        );
+        filter = new LimiteTaxaFilter(limites, new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry);
+        executadas = new AtomicInteger();
+    }
+
+    @AfterEach
+    void limpar() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void deveLimitarPorUsuarioEInformarACota() throws Exception {
+
+        autenticar(1L);
+
+        MockHttpServletResponse primeira = executar("GET", "/solicitacoes", "10.0.0.1");
+        assertEquals("3", primeira.getHeader(LimiteTaxaFilter.CABECALHO_LIMITE));
+        assertEquals("2", primeira.getHeader(LimiteTaxaFilter.CABECALHO_RESTANTE));
+        assertEquals("1", primeira.getHeader(LimiteTaxaFilter.CABECALHO_RESET));
+
+        executar("GET", "/solicitacoes", "10.0.0.1");
+        executar("GET", "/solicitacoes", "10.0.0.2");
+
+        MockHttpServletResponse recusada = executar("GET", "/solicitacoes", "10.0.0.3");
+        assertEquals(429, recusada.getStatus());
+        assertEquals("0", recusada.getHeader(LimiteTaxaFilter.CABECALHO_RESTANTE));
+        assertEquals("1", recusada.getHeader("Retry-After"));
+        assertTrue(recusada.getContentAsString().contains("\"status\":429"));
+
+        //a cota é do usuário, não do IP; outro usuário e outra rota não foram afetados
+        autenticar(2L);
+        assertEquals(200, executar("GET", "/solicitacoes", "10.0.0.1").getStatus());
+        autenticar(1L);
+        assertEquals(200, executar("POST", "/solicitacoes", "10.0.0.1").getStatus());
+
+        assertEquals(5, executadas.get());
+        assertEquals(1.0, meterRegistry.get("limite.taxa.rejeitadas").counter().count());
+    }
+
+    @Test
+    void deveEscolherARegraMaisEspecificaEIgnorarRotasLivres() throws Exception {
+
+        autenticar(1L);
+
+        assertEquals("50", executar("GET", "/solicitacoes/fila", "10.0.0.1").getHeader(LimiteTaxaFilter.CABECALHO_LIMITE));
+        assertEquals("100", executar("GET", "/modulos", "10.0.0.1").getHeader(LimiteTaxaFilter.CABECALHO_LIMITE));
+        assertNull(executar("GET", "/actuator/health", "10.0.0.1").getHeader(LimiteTaxaFilter.CABECALHO_LIMITE));
+    }
+
+    @Test
+    void loginSemUsuarioDeveSerLimitadoPorIp() throws Exception {
+
+        assertEquals(200, executar("POST", "/auth/login", "10.0.0.1").getStatus());
+        assertEquals(200, executar("POST", "/auth/login", "10.0.0.1").getStatus());
+
+        MockHttpServletResponse recusada = executar("POST", "/auth/login", "10.0.0.1");
+        assertEquals(429, recusada.getStatus());
+        assertEquals("2", recusada.getHeader("Retry-After"));
+
+        assertEquals(200, executar("POST", "/auth/login", "10.0.0.2").getStatus());
+    }
+
+    @Test
+    void loginPorEmailDeveSomarTentativasSemDiferenciarMaiusculas() {
+
+        limites.verificarLoginPorEmail("joao@supera.com");
+        limites.verificarLoginPorEmail("JOAO@supera.com");
+
+        LimiteExcedidoException erro = assertThrows(LimiteExcedidoException.class,
+                () -> limites.verificarLoginPorEmail("Joao@Supera.com"));
+        assertEquals(100, erro.getSegundosParaTentar());
+
+        limites.verificarLoginPorEmail("maria@supera.com");
+    }
+
+    @Test
+    void baldeDeveReporComOTempoSemPassarDaCapacidade() {
+
+        BaldeDeTokens balde = new BaldeDeTokens(2, 1, 16);
+        long segundo = 1_000_000_000L;
+
+        assertEquals(1, balde.consumir(7, 0));
+        assertEquals(0, balde.consumir(7, 0));
+        assertEquals(-segundo, balde.consumir(7, 0));
+
+        //meio segundo depois ainda falta meia ficha
+        assertEquals(-segundo / 2, balde.consumir(7, segundo / 2));
+        assertEquals(0, balde.consumir(7, segundo));
+
+        //parado muito tempo, volta só até a capacidade
+        assertEquals(1, balde.consumir(7, 100 * segundo));
+    }
+
+    @Test
+    void baldeCheioDeveDescartarAChaveParadaHaMaisTempo() {
+
+        BaldeDeTokens balde = new BaldeDeTokens(1, 0.001, 1);
+
+        //mais chaves do que cabem: nenhuma consulta falha, as antigas recomeçam com a cota cheia
+        for (long chave = 0; chave < 10_000; chave++) {
+            assertEquals(0, balde.consumir(chave, chave));
+        }
+    }
+
+    private MockHttpServletResponse executar(String metodo, String uri, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, uri);
+        request.setRemoteAddr(ip);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> executadas.incrementAndGet());
+
+        return response;
+    }
+
+    private static void autenticar(Long id) {
+        Usuario usuario = Usuario.builder().id(id).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario, null, null));
+    }
+}
@@ -0,0 +1,86 @@
+package com.supera.acessos.auth.service;
+
+import com.supera.acessos.auth.dto.LoginRequestDTO;
+import com.supera.acessos.auth.dto.LoginResponseDTO;
+import com.supera.acessos.auth.repository.RefreshTokenRepository;
+import com.supera.acessos.auth.security.JwtTokenServiceBenchmark;
+import com.supera.acessos.auth.security.LimitesDeTaxa;
+import com.supera.acessos.infra.BulkheadBanco;
+import com.supera.acessos.support.RepositorioEmMemoria;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import com.supera.acessos.usuario.service.UsuarioService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+//login completo: busca em memória, BCrypt.matches no pool de verificação e emissão do token; o BCrypt domina o tempo
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthServiceBenchmark {
+
+    private AuthService authService;
+    private LoginRequestDTO senhaCorreta;
+    private LoginRequestDTO senhaErrada;
+
+    @Setup
+    public void setup() {
+        Usuario usuario = Usuario.builder()
+                .id(1L)
+                .nome("Joao")
+                .email("joao@supera.com")
+                .senha(new BCryptPasswordEncoder().encode("senha123"))
+                .departamento(Departamento.TI)
+                .build();
+
+        UsuarioRepository repositorio = RepositorioEmMemoria.de(UsuarioRepository.class, Map.of(
+                "findByEmail", args -> usuario.getEmail().equals(args[0]) ? Optional.of(usuario) : Optional.empty()
+        ));
+
+        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+
+        authService = new AuthService(
+                new UsuarioService(repositorio, null, passwordEncoder),
+                JwtTokenServiceBenchmark.criarService(false),
+                new VerificacaoSenhaService(passwordEncoder, new SimpleMeterRegistry(), 0, 32),
+                new RefreshTokenService(
+                        RepositorioEmMemoria.de(RefreshTokenRepository.class, Map.of("save", args -> args[0])),
+                        null,
+                        new SimpleMeterRegistry(),
+                        14
+                ),
+                //o benchmark mede o login, não a cota por e-mail
+                new LimitesDeTaxa(false, "1/1", List.of(), "1/1", List.of(), 1),
+                new BulkheadBanco(null, new SimpleMeterRegistry(), 64, 1000)
+        );
+
+        senhaCorreta = new LoginRequestDTO("joao@supera.com", "senha123");
+        senhaErrada = new LoginRequestDTO("joao@supera.com", "errada");
+    }
+
+    @Benchmark
+    public LoginResponseDTO login() {
+        return authService.login(senhaCorreta);
+    }
+
+    @Benchmark
+    public boolean loginComSenhaErrada() {
+        try {
+            authService.login(senhaErrada);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
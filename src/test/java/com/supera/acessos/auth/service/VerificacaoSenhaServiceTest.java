@@ -0,0 +1,83 @@
+package com.supera.acessos.auth.service;
+
+import com.supera.acessos.exceptions.ApiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerificacaoSenhaServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void deveRefazerHashComCustoMenorQueOConfigurado() {
+
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(5);
+        VerificacaoSenhaService service = new VerificacaoSenhaService(encoder, meterRegistry, 1, 4);
+
+        VerificacaoSenhaService.Verificacao antiga =
+                service.verificar("senha123", new BCryptPasswordEncoder(4).encode("senha123"));
+
+        assertTrue(antiga.confere());
+        assertTrue(antiga.novoHash().startsWith("$2a$05$"));
+        assertTrue(encoder.matches("senha123", antiga.novoHash()));
+
+        //custo igual ao configurado e senha errada não geram hash novo
+        assertNull(service.verificar("senha123", encoder.encode("senha123")).novoHash());
+        assertFalse(service.verificar("errada", encoder.encode("senha123")).confere());
+
+        assertEquals(3, meterRegistry.get("auth.senha.hash").timer().count());
+    }
+
+    @Test
+    void deveRecusarCom429QuandoPoolEFilaEstaoCheios() throws Exception {
+
+        CountDownLatch liberar = new CountDownLatch(1);
+        VerificacaoSenhaService service = new VerificacaoSenhaService(bloqueante(liberar), meterRegistry, 1, 1);
+
+        //uma verificação rodando e outra na fila
+        CompletableFuture<?> rodando = CompletableFuture.runAsync(() -> service.verificar("a", "hash"));
+        while (meterRegistry.get("auth.senha.ativas").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+        CompletableFuture<?> naFila = CompletableFuture.runAsync(() -> service.verificar("b", "hash"));
+        while (meterRegistry.get("auth.senha.fila").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        ApiException erro = assertThrows(ApiException.class, () -> service.verificar("c", "hash"));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, erro.getStatus());
+        assertEquals(1, meterRegistry.get("auth.senha.rejeitadas").counter().count());
+
+        liberar.countDown();
+        rodando.get();
+        naFila.get();
+    }
+
+    private PasswordEncoder bloqueante(CountDownLatch liberar) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence senha) {
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence senha, String hash) {
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+    }
+}
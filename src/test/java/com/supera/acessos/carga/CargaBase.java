@@ -0,0 +1,191 @@
+package com.supera.acessos.carga;
+
+import com.supera.acessos.auth.security.JwtTokenService;
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//carga com muitos clientes simultâneos em GET /solicitacoes; mede vazão, p50/p99 e rejeições do bulkhead
+//roda só com: mvn -Pcarga test
+@Tag("carga")
+abstract class CargaBase {
+
+    //-Dcarga.clientes=... -Dcarga.segundos=...
+    private static final int CLIENTES = Integer.getInteger("carga.clientes", 400);
+    private static final Duration DURACAO = Duration.ofSeconds(Integer.getInteger("carga.segundos", 10));
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ModuloRepository moduloRepository;
+
+    @Autowired
+    private SolicitacaoModuloRepository solicitacaoRepository;
+
+    @Autowired
+    private JwtTokenService jwtTokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    protected abstract String modo();
+
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("delete from solicitacoes");
+        jdbcTemplate.update("delete from modulos");
+        jdbcTemplate.update("delete from usuarios");
+    }
+
+    @Test
+    void medirVazaoELatencia() throws Exception {
+
+        String token = "Bearer " + jwtTokenService.gerarToken(popularBase());
+        URI uri = URI.create("http://localhost:" + porta + "/solicitacoes?limite=20");
+
+        LongAdder rejeitadas = new LongAdder();
+        LongAdder erros = new LongAdder();
+        long fim = System.nanoTime() + DURACAO.toNanos();
+
+        List<Future<long[]>> clientes = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(executor).build()) {
+
+            HttpRequest request = HttpRequest.newBuilder(uri).header("Authorization", token).GET().build();
+
+            //picos de saturação do pool e do bulkhead durante a carga
+            Future<double[]> picos = executor.submit(() -> {
+                double[] maximos = new double[2];
+                while (System.nanoTime() < fim) {
+                    maximos[0] = Math.max(maximos[0], gauge("hikaricp.connections.pending"));
+                    maximos[1] = Math.max(maximos[1], gauge("bulkhead.banco.ocupadas"));
+                    Thread.sleep(10);
+                }
+                return maximos;
+            });
+
+            for (int c = 0; c < CLIENTES; c++) {
+                clientes.add(executor.submit(() -> {
+                    long[] latencias = new long[1024];
+                    int n = 0;
+
+                    while (System.nanoTime() < fim) {
+                        long inicio = System.nanoTime();
+                        int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        long tempo = System.nanoTime() - inicio;
+
+                        if (status == 503) {
+                            rejeitadas.increment();
+                        } else if (status != 200) {
+                            erros.increment();
+                        } else {
+                            if (n == latencias.length) {
+                                latencias = Arrays.copyOf(latencias, n * 2);
+                            }
+                            latencias[n++] = tempo;
+                        }
+                    }
+
+                    return Arrays.copyOf(latencias, n);
+                }));
+            }
+
+            long[] todas = clientes.stream()
+                    .map(this::resultado)
+                    .flatMapToLong(Arrays::stream)
+                    .sorted()
+                    .toArray();
+
+            double segundos = DURACAO.toMillis() / 1000.0;
+            double[] saturacao = picos.get();
+
+            System.out.printf(
+                    "%n[carga] modo=%s clientes=%d ok=%d vazao=%.0f req/s p50=%.1f ms p99=%.1f ms 503=%d erros=%d pico-pendentes-pool=%.0f pico-bulkhead=%.0f%n",
+                    modo(), CLIENTES, todas.length, todas.length / segundos,
+                    Latencias.percentil(todas, 0.50), Latencias.percentil(todas, 0.99),
+                    rejeitadas.sum(), erros.sum(), saturacao[0], saturacao[1]);
+
+            assertTrue(todas.length > 0, "nenhuma requisição concluída");
+            assertTrue(erros.sum() == 0, "respostas inesperadas: " + erros.sum());
+        }
+    }
+
+    private Usuario popularBase() {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .nome("Carga")
+                .email("carga@supera.com")
+                .senha("hash")
+                .departamento(Departamento.TI)
+                .build());
+
+        Modulo modulo = moduloRepository.save(Modulo.builder()
+                .nome("Financeiro")
+                .descricao("Financeiro")
+                .exigeAprovacaoGestor(true)
+                .prazoExpiracaoDias(30)
+                .ativo(true)
+                .build());
+
+        List<SolicitacaoModulo> historico = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            historico.add(SolicitacaoModulo.builder()
+                    .solicitante(usuario)
+                    .modulo(modulo)
+                    .status(StatusSolicitacao.REPROVADA)
+                    .dataAbertura(LocalDateTime.now().minusHours(i))
+                    .build());
+        }
+        solicitacaoRepository.saveAll(historico);
+
+        return usuario;
+    }
+
+    private long[] resultado(Future<long[]> cliente) {
+        try {
+            return cliente.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double gauge(String nome) {
+        var gauge = meterRegistry.find(nome).gauge();
+        return gauge == null ? 0 : gauge.value();
+    }
+}
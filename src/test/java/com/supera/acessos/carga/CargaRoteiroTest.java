@@ -0,0 +1,293 @@
+package com.supera.acessos.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supera.acessos.acesso.service.AcessoIndexService;
+import com.supera.acessos.modulo.service.ModuloCatalogoService;
+import com.supera.acessos.support.SqlCapturado;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//ponta a ponta com massa sintética: cada cliente repete login, listagem, criação, aprovação e cancelamento
+//relata vazão, p50/p95/p99 e comandos SQL por endpoint em cada tamanho de histórico, para achar degraus de escala
+//roda só com: mvn -Pcarga test -Dtest=CargaRoteiroTest
+@Tag("carga")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.supera.acessos.support.SqlCapturado"
+)
+@ActiveProfiles("test")
+class CargaRoteiroTest {
+
+    //-Dcarga.usuarios=... -Dcarga.modulos=... -Dcarga.historico=10,100 -Dcarga.clientes=... -Dcarga.segundos=...
+    private static final int USUARIOS = Integer.getInteger("carga.usuarios", 1000);
+    private static final int MODULOS = Integer.getInteger("carga.modulos", 50);
+    private static final int[] HISTORICOS = Arrays.stream(System.getProperty("carga.historico", "10,100").split(","))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .toArray();
+    private static final int CLIENTES = Integer.getInteger("carga.clientes", 50);
+    private static final Duration DURACAO = Duration.ofSeconds(Integer.getInteger("carga.segundos", 10));
+
+    //aprovação em até duas etapas (gestor e segurança); a terceira tentativa já é rejeição
+    private static final int MAXIMO_APROVACOES = 3;
+
+    //SQL por rota, preenchido pelo filtro do lado do servidor
+    private static final Map<String, LongAdder[]> SQL_POR_ROTA = new ConcurrentHashMap<>();
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ModuloCatalogoService moduloCatalogo;
+
+    @Autowired
+    private AcessoIndexService acessoIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private HttpClient http;
+
+    @AfterEach
+    void limpar() {
+        SqlCapturado.guardarComandos(true);
+        new GeradorDeDados(jdbcTemplate).limpar();
+    }
+
+    @Test
+    void executarRoteiroEmCadaEscala() throws Exception {
+
+        SqlCapturado.guardarComandos(false);
+
+        for (int historico : HISTORICOS) {
+            GeradorDeDados gerador = new GeradorDeDados(jdbcTemplate);
+            gerador.limpar();
+
+            long inicioGeracao = System.nanoTime();
+            GeradorDeDados.Massa massa = gerador.gerar(USUARIOS, MODULOS, historico);
+
+            //a massa entra por JDBC: catálogo, índice e cache de segundo nível não viram as inserções
+            moduloCatalogo.recarregar();
+            acessoIndex.reconstruir();
+            entityManagerFactory.getCache().evictAll();
+
+            System.out.printf("%n[roteiro] usuarios=%d modulos=%d historico=%d solicitacoes=%d acessos=%d gerada em %d ms%n",
+                    USUARIOS, MODULOS, historico, massa.solicitacoes(), massa.acessos(),
+                    Duration.ofNanos(System.nanoTime() - inicioGeracao).toMillis());
+
+            Map<String, Endpoint> endpoints = executar(massa);
+            relatar(endpoints);
+
+            long erros = endpoints.values().stream().mapToLong(e -> e.erros.sum()).sum();
+            assertTrue(endpoints.get("POST /auth/login").latencias.ordenadas().length > 0, "nenhum login concluído");
+            assertEquals(0, erros, "respostas 5xx inesperadas");
+        }
+    }
+
+    private Map<String, Endpoint> executar(GeradorDeDados.Massa massa) throws Exception {
+
+        SQL_POR_ROTA.clear();
+        Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+        long fim = System.nanoTime() + DURACAO.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            http = HttpClient.newBuilder().executor(executor).build();
+
+            List<Future<?>> clientes = new ArrayList<>();
+            for (int c = 0; c < CLIENTES; c++) {
+                clientes.add(executor.submit(() -> {
+                    while (System.nanoTime() < fim) {
+                        roteiro(massa, endpoints);
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> cliente : clientes) {
+                cliente.get();
+            }
+        } finally {
+            http.close();
+        }
+
+        return endpoints;
+    }
+
+    //uma volta do roteiro; rejeição de negócio (4xx) encerra a volta e conta no endpoint
+    private void roteiro(GeradorDeDados.Massa massa, Map<String, Endpoint> endpoints) throws Exception {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int usuario = random.nextInt(massa.usuarioIds().size());
+        Long moduloId = massa.moduloIds().get(random.nextInt(massa.moduloIds().size()));
+
+        JsonNode login = chamar(endpoints, "POST /auth/login", null, post("/auth/login",
+                "{\"email\": \"" + GeradorDeDados.email(usuario) + "\", \"senha\": \"" + GeradorDeDados.SENHA + "\"}"));
+        if (login == null) {
+            return;
+        }
+        String token = "Bearer " + login.get("token").asText();
+
+        if (chamar(endpoints, "GET /solicitacoes", token, get("/solicitacoes?limite=20")) == null) {
+            return;
+        }
+
+        JsonNode solicitacao = chamar(endpoints, "POST /solicitacoes", token,
+                post("/solicitacoes", "{\"moduloId\": " + moduloId + "}"));
+        if (solicitacao == null) {
+            return;
+        }
+        long id = solicitacao.get("id").asLong();
+
+        for (int i = 0; i < MAXIMO_APROVACOES && !"APROVADA".equals(solicitacao.get("status").asText()); i++) {
+            solicitacao = chamar(endpoints, "POST /solicitacoes/{id}/aprovar", token,
+                    post("/solicitacoes/" + id + "/aprovar", ""));
+            if (solicitacao == null) {
+                return;
+            }
+        }
+
+        chamar(endpoints, "POST /solicitacoes/{id}/cancelar", token, post("/solicitacoes/" + id + "/cancelar", ""));
+    }
+
+    private JsonNode chamar(Map<String, Endpoint> endpoints, String nome, String token, HttpRequest.Builder request)
+            throws Exception {
+
+        if (token != null) {
+            request.header("Authorization", token);
+        }
+
+        Endpoint endpoint = endpoints.computeIfAbsent(nome, chave -> new Endpoint());
+
+        long inicio = System.nanoTime();
+        HttpResponse<byte[]> resposta = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        long tempo = System.nanoTime() - inicio;
+
+        int status = resposta.statusCode();
+
+        if (status == 503) {
+            endpoint.rejeitadasBulkhead.increment();
+            return null;
+        }
+        if (status >= 500) {
+            endpoint.erros.increment();
+            return null;
+        }
+        if (status >= 400) {
+            endpoint.rejeitadasNegocio.increment();
+            return null;
+        }
+
+        endpoint.latencias.registrar(tempo);
+        return objectMapper.readTree(resposta.body());
+    }
+
+    private HttpRequest.Builder get(String caminho) {
+        return HttpRequest.newBuilder(uri(caminho)).GET();
+    }
+
+    private HttpRequest.Builder post(String caminho, String corpo) {
+        return HttpRequest.newBuilder(uri(caminho))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo));
+    }
+
+    private URI uri(String caminho) {
+        return URI.create("http://localhost:" + porta + caminho);
+    }
+
+    private void relatar(Map<String, Endpoint> endpoints) {
+
+        double segundos = DURACAO.toMillis() / 1000.0;
+
+        System.out.printf("[roteiro] %-32s %7s %8s %8s %8s %8s %8s %8s %6s %6s %6s%n",
+                "endpoint", "ok", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "sql/req", "4xx", "503", "5xx");
+
+        new TreeMap<>(endpoints).forEach((nome, endpoint) -> {
+            long[] latencias = endpoint.latencias.ordenadas();
+            LongAdder[] sql = SQL_POR_ROTA.get(nome);
+            double sqlPorRequisicao = sql == null || sql[0].sum() == 0 ? 0 : (double) sql[1].sum() / sql[0].sum();
+
+            System.out.printf("[roteiro] %-32s %7d %8.0f %8.1f %8.1f %8.1f %8.1f %8.1f %6d %6d %6d%n",
+                    nome, latencias.length, latencias.length / segundos,
+                    Latencias.percentil(latencias, 0.50), Latencias.percentil(latencias, 0.95),
+                    Latencias.percentil(latencias, 0.99), Latencias.percentil(latencias, 1.0),
+                    sqlPorRequisicao,
+                    endpoint.rejeitadasNegocio.sum(), endpoint.rejeitadasBulkhead.sum(), endpoint.erros.sum());
+        });
+    }
+
+    private static class Endpoint {
+        final Latencias latencias = new Latencias();
+        final LongAdder rejeitadasNegocio = new LongAdder();
+        final LongAdder rejeitadasBulkhead = new LongAdder();
+        final LongAdder erros = new LongAdder();
+    }
+
+    @TestConfiguration
+    static class ContagemSqlPorRota {
+
+        //primeiro da cadeia: o SQL do filtro de autenticação também entra na conta da rota
+        @Bean
+        FilterRegistrationBean<Filter> contagemSqlPorRotaFilter() {
+            FilterRegistrationBean<Filter> registro = new FilterRegistrationBean<>((request, response, chain) -> {
+                SqlCapturado.zerarContagemDaThread();
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    int comandos = SqlCapturado.zerarContagemDaThread();
+                    Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+                    if (padrao != null) {
+                        String rota = ((HttpServletRequest) request).getMethod() + " " + padrao;
+                        LongAdder[] contagem = SQL_POR_ROTA.computeIfAbsent(rota, chave -> new LongAdder[]{new LongAdder(), new LongAdder()});
+                        contagem[0].increment();
+                        contagem[1].add(comandos);
+                    }
+                }
+            });
+            registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+            return registro;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.supera.acessos.carga;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=true"
+)
+@ActiveProfiles("test")
+class CargaVirtualThreadsTest extends CargaBase {
+
+    @Override
+    protected String modo() {
+        return "virtual threads";
+    }
+}
@@ -0,0 +1,151 @@
+package com.supera.acessos.carga;
+
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.usuario.entity.Departamento;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+//massa sintética direto por JDBC em batch: N usuários, M módulos e K solicitações históricas por usuário
+//respeita as regras do domínio: no máximo uma pendência ou aprovação por usuário/módulo,
+//e toda solicitação APROVADA tem a linha correspondente em usuarios_modulos
+class GeradorDeDados {
+
+    static final String SENHA = "senha123";
+
+    //distribuição de status do histórico (soma 100)
+    private static final StatusSolicitacao[] STATUS = StatusSolicitacao.values();
+    private static final int[] PESOS = {
+            3,  // ABERTA
+            10, // AGUARDANDO_GESTOR
+            7,  // AGUARDANDO_SEGURANCA
+            35, // APROVADA
+            15, // REPROVADA
+            20, // EXPIRADA
+            10  // CANCELADA
+    };
+
+    private static final int LOTE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random = new Random(42);
+
+    GeradorDeDados(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    void limpar() {
+        jdbcTemplate.update("delete from refresh_tokens");
+        jdbcTemplate.update("delete from usuarios_modulos");
+        jdbcTemplate.update("delete from solicitacoes");
+        jdbcTemplate.update("delete from modulos");
+        jdbcTemplate.update("delete from usuarios");
+    }
+
+    Massa gerar(int usuarios, int modulos, int historicoPorUsuario) {
+
+        //um hash só: o custo do BCrypt fica no login, não na geração
+        String hash = new BCryptPasswordEncoder().encode(SENHA);
+        Departamento[] departamentos = Departamento.values();
+
+        List<Object[]> linhasUsuarios = new ArrayList<>();
+        for (int u = 0; u < usuarios; u++) {
+            linhasUsuarios.add(new Object[]{"Usuario " + u, email(u), hash, departamentos[u % departamentos.length].name()});
+        }
+        inserir("insert into usuarios (nome, email, senha, departamento) values (?, ?, ?, ?)", linhasUsuarios);
+
+        List<Object[]> linhasModulos = new ArrayList<>();
+        for (int m = 0; m < modulos; m++) {
+            //um terço só gestor, um terço só segurança, um terço os dois
+            linhasModulos.add(new Object[]{"Modulo " + m, "Modulo sintético " + m, m % 3 != 1, m % 3 != 0, m % 4 == 0 ? 0 : 90, true});
+        }
+        inserir("""
+                insert into modulos (nome, descricao, exige_aprovacao_gestor, exige_aprovacao_seguranca,
+                                     prazo_expiracao_dias, ativo)
+                values (?, ?, ?, ?, ?, ?)
+                """, linhasModulos);
+
+        List<Long> usuarioIds = jdbcTemplate.queryForList("select id from usuarios order by id", Long.class);
+        List<Long> moduloIds = jdbcTemplate.queryForList("select id from modulos order by id", Long.class);
+
+        List<Object[]> solicitacoes = new ArrayList<>();
+        List<Object[]> acessos = new ArrayList<>();
+        LocalDateTime agora = LocalDateTime.now();
+
+        for (int u = 0; u < usuarioIds.size(); u++) {
+            Long usuarioId = usuarioIds.get(u);
+            Set<Long> ocupados = new HashSet<>();
+
+            for (int k = 0; k < historicoPorUsuario; k++) {
+                Long moduloId = moduloIds.get(random.nextInt(moduloIds.size()));
+                StatusSolicitacao status = sortearStatus();
+
+                //pendente/aprovada só uma vez por módulo; o excedente vira histórico encerrado
+                boolean ativa = status.ordinal() <= StatusSolicitacao.APROVADA.ordinal();
+                if (ativa && !ocupados.add(moduloId)) {
+                    status = StatusSolicitacao.REPROVADA;
+                }
+
+                LocalDateTime abertura = agora.minusMinutes(random.nextInt(365 * 24 * 60));
+
+                solicitacoes.add(new Object[]{
+                        usuarioId, moduloId, status.name(),
+                        ts(abertura),
+                        status == StatusSolicitacao.APROVADA || status == StatusSolicitacao.EXPIRADA ? ts(abertura.plusDays(1)) : null,
+                        status == StatusSolicitacao.REPROVADA ? ts(abertura.plusDays(1)) : null,
+                        status == StatusSolicitacao.APROVADA ? ts(agora.plusDays(1 + random.nextInt(90)))
+                                : status == StatusSolicitacao.EXPIRADA ? ts(abertura.plusDays(90)) : null,
+                        status == StatusSolicitacao.CANCELADA ? ts(abertura.plusDays(2)) : null,
+                        status == StatusSolicitacao.REPROVADA ? "Sem justificativa" : null
+                });
+
+                if (status == StatusSolicitacao.APROVADA) {
+                    acessos.add(new Object[]{usuarioId, moduloId});
+                }
+            }
+        }
+
+        inserir("""
+                insert into solicitacoes (usuario_id, modulo_id, status, data_abertura, data_aprovacao,
+                                          data_reprovacao, data_expiracao, data_cancelamento, motivo_recusa)
+                values (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """, solicitacoes);
+        inserir("insert into usuarios_modulos (usuario_id, modulo_id) values (?, ?)", acessos);
+
+        return new Massa(usuarioIds, moduloIds, solicitacoes.size(), acessos.size());
+    }
+
+    static String email(int indice) {
+        return "usuario" + indice + "@carga.supera.com";
+    }
+
+    private StatusSolicitacao sortearStatus() {
+        int sorteio = random.nextInt(100);
+        for (int i = 0; i < PESOS.length; i++) {
+            sorteio -= PESOS[i];
+            if (sorteio < 0) {
+                return STATUS[i];
+            }
+        }
+        return StatusSolicitacao.REPROVADA;
+    }
+
+    private void inserir(String sql, List<Object[]> linhas) {
+        for (int i = 0; i < linhas.size(); i += LOTE) {
+            jdbcTemplate.batchUpdate(sql, linhas.subList(i, Math.min(i + LOTE, linhas.size())));
+        }
+    }
+
+    private static Timestamp ts(LocalDateTime data) {
+        return Timestamp.valueOf(data);
+    }
+
+    record Massa(List<Long> usuarioIds, List<Long> moduloIds, int solicitacoes, int acessos) {}
+}
@@ -0,0 +1,32 @@
+package com.supera.acessos.carga;
+
+import java.util.Arrays;
+
+//tempos de resposta em nanossegundos, seguro para várias threads
+class Latencias {
+
+    private long[] valores = new long[4096];
+    private int quantidade;
+
+    synchronized void registrar(long nanos) {
+        if (quantidade == valores.length) {
+            valores = Arrays.copyOf(valores, quantidade * 2);
+        }
+        valores[quantidade++] = nanos;
+    }
+
+    synchronized long[] ordenadas() {
+        long[] copia = Arrays.copyOf(valores, quantidade);
+        Arrays.sort(copia);
+        return copia;
+    }
+
+    //percentil em milissegundos sobre um array já ordenado
+    static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(indice, 0)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,30 @@
+package com.supera.acessos.exceptions;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobalExceptionHandlerTest {
+
+    @Test
+    void metricaDeErrosNaoDeveExporAMensagem() {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GlobalExceptionHandler handler = new GlobalExceptionHandler(meterRegistry);
+
+        handler.handleApiException(new ApiException("Usuário joao@supera.com não encontrado"));
+        handler.handleApiException(new ApiException("Usuário maria@supera.com não encontrado"));
+        handler.handleApiException(new LimiteExcedidoException("Muitas tentativas", 30));
+
+        assertEquals(2.0, meterRegistry.get("api.erros")
+                .tag("excecao", "ApiException").tag("status", "400").counter().count());
+        assertEquals(1.0, meterRegistry.get("api.erros")
+                .tag("excecao", "LimiteExcedidoException").tag("status", "429").counter().count());
+
+        for (Meter meter : meterRegistry.getMeters()) {
+            meter.getId().getTags().forEach(tag -> assertFalse(tag.getValue().contains("@"), tag.toString()));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.supera.acessos.infra;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.supera.acessos.exceptions.ApiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class BulkheadBancoFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BulkheadBanco bulkhead;
+    private BulkheadBancoFilter filter;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        bulkhead = new BulkheadBanco(mock(DataSource.class), meterRegistry, 1, 50);
+        filter = new BulkheadBancoFilter(
+                bulkhead,
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                List.of("/modulos", "/auth/login")
+        );
+    }
+
+    @Test
+    void deveRecusarCom503QuandoNaoHaVagaDentroDaEsperaMaxima() throws Exception {
+
+        CountDownLatch ocupando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        FilterChain lenta = (req, res) -> {
+            ocupando.countDown();
+            try {
+                liberar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<?> primeira = executor.submit(() -> {
+                filter.doFilter(requisicao("/solicitacoes"), new MockHttpServletResponse(), lenta);
+                return null;
+            });
+
+            assertTrue(ocupando.await(5, TimeUnit.SECONDS));
+
+            MockHttpServletResponse recusada = new MockHttpServletResponse();
+            filter.doFilter(requisicao("/solicitacoes"), recusada, (req, res) -> fail("não deveria entrar"));
+
+            assertEquals(503, recusada.getStatus());
+            assertEquals("1", recusada.getHeader("Retry-After"));
+            assertEquals(1.0, meterRegistry.get("bulkhead.banco.rejeitadas").counter().count());
+            assertEquals(1.0, meterRegistry.get("bulkhead.banco.ocupadas").gauge().value());
+
+            liberar.countDown();
+            primeira.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(0.0, meterRegistry.get("bulkhead.banco.ocupadas").gauge().value());
+    }
+
+    @Test
+    void naoDeveOcuparVagaEmRotasQueNaoUsamOBanco() throws Exception {
+
+        CountDownLatch executou = new CountDownLatch(1);
+
+        filter.doFilter(requisicao("/modulos"), new MockHttpServletResponse(), (req, res) -> executou.countDown());
+
+        assertEquals(0, executou.getCount());
+        assertEquals(0.0, meterRegistry.get("bulkhead.banco.espera").timer().count());
+    }
+
+    @Test
+    void rotaLivreDevePegarVagaEmVoltaDoAcessoAoBanco() throws Exception {
+
+        CountDownLatch ocupando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            //o login fora do filtro ainda disputa a mesma vaga quando consulta o banco
+            Future<?> login = executor.submit(() -> bulkhead.executar(() -> {
+                ocupando.countDown();
+                try {
+                    liberar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+
+            assertTrue(ocupando.await(5, TimeUnit.SECONDS));
+
+            MockHttpServletResponse recusada = new MockHttpServletResponse();
+            filter.doFilter(requisicao("/solicitacoes"), recusada, (req, res) -> fail("não deveria entrar"));
+            assertEquals(503, recusada.getStatus());
+
+            ApiException excecao = assertThrows(ApiException.class, () -> bulkhead.executar(() -> "outro login"));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, excecao.getStatus());
+            assertEquals(2.0, meterRegistry.get("bulkhead.banco.rejeitadas").counter().count());
+
+            liberar.countDown();
+            login.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals("ok", bulkhead.executar(() -> "ok"));
+    }
+
+    private MockHttpServletRequest requisicao(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRequestURI(uri);
+        return request;
+    }
+}
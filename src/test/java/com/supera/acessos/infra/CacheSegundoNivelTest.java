@@ -0,0 +1,136 @@
+package com.supera.acessos.infra;
+
+import com.supera.acessos.acesso.event.AcessoConcedido;
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.support.SqlCapturado;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//leituras repetidas saem do cache sem SQL e as gravações do próprio serviço nunca deixam dado velho para trás
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.supera.acessos.support.SqlCapturado")
+@ActiveProfiles("test")
+class CacheSegundoNivelTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ModuloRepository moduloRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private Usuario usuario;
+    private Modulo modulo;
+
+    @BeforeEach
+    void setup() {
+        usuario = usuarioRepository.save(Usuario.builder()
+                .nome("Joao")
+                .email("joao@supera.com")
+                .senha("hash")
+                .departamento(Departamento.TI)
+                .build());
+
+        modulo = moduloRepository.save(Modulo.builder()
+                .nome("Financeiro")
+                .descricao("Financeiro")
+                .prazoExpiracaoDias(30)
+                .ativo(true)
+                .build());
+    }
+
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("delete from usuarios_modulos");
+        jdbcTemplate.update("delete from modulos");
+        jdbcTemplate.update("delete from usuarios");
+
+        //as exclusões acima passam por fora do Hibernate
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void leiturasRepetidasNaoDevemIrAoBanco() {
+
+        double acertos = acertos("modulos");
+
+        emTransacao(() -> moduloRepository.findById(modulo.getId()).orElseThrow());
+        emTransacao(() -> usuarioRepository.findById(usuario.getId()).orElseThrow());
+        emTransacao(() -> usuarioRepository.findByEmail("joao@supera.com").orElseThrow());
+
+        SqlCapturado.zerarContagemDaThread();
+
+        assertEquals("Financeiro", emTransacao(() -> moduloRepository.findById(modulo.getId()).orElseThrow().getNome()));
+        assertEquals("Joao", emTransacao(() -> usuarioRepository.findById(usuario.getId()).orElseThrow().getNome()));
+        assertEquals(usuario.getId(), emTransacao(() -> usuarioRepository.findByEmail("joao@supera.com").orElseThrow().getId()));
+
+        assertEquals(0, SqlCapturado.zerarContagemDaThread());
+        assertTrue(acertos("modulos") > acertos, "as leituras do módulo deveriam contar como hit");
+    }
+
+    @Test
+    void gravacoesDoServicoDevemInvalidarOCache() {
+
+        emTransacao(() -> moduloRepository.findById(modulo.getId()).orElseThrow());
+        emTransacao(() -> usuarioRepository.findByEmail("joao@supera.com").orElseThrow());
+        emTransacao(() -> usuarioRepository.findById(usuario.getId()).orElseThrow().getModulosAtivos().size());
+
+        //alteração pela entidade
+        emTransacao(() -> {
+            moduloRepository.findById(modulo.getId()).orElseThrow().setAtivo(false);
+            return null;
+        });
+
+        //update em massa (rehash do login) e concessão nativa em usuarios_modulos, como faz o serviço
+        emTransacao(() -> usuarioRepository.atualizarSenha(usuario.getId(), "novo-hash"));
+        emTransacao(() -> {
+            usuarioRepository.concederModulo(usuario.getId(), modulo.getId());
+            eventPublisher.publishEvent(new AcessoConcedido(usuario.getId(), modulo.getId()));
+            return null;
+        });
+
+        assertFalse(emTransacao(() -> moduloRepository.findById(modulo.getId()).orElseThrow().isAtivo()));
+        assertEquals("novo-hash", emTransacao(() -> usuarioRepository.findByEmail("joao@supera.com").orElseThrow().getSenha()));
+        assertEquals(1, emTransacao(() -> usuarioRepository.findById(usuario.getId()).orElseThrow().getModulosAtivos().size()));
+    }
+
+    private <T> T emTransacao(Supplier<T> operacao) {
+        return new TransactionTemplate(transactionManager).execute(status -> operacao.get());
+    }
+
+    private double acertos(String regiao) {
+        return meterRegistry.get("cache.gets").tag("cache", regiao).tag("result", "hit").functionCounter().count();
+    }
+}
@@ -0,0 +1,279 @@
+package com.supera.acessos.infra;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.supera.acessos.usuario.entity.Usuario;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotenciaFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotenciaFilter filter;
+    private AtomicInteger execucoes;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new IdempotenciaFilter(
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                meterRegistry,
+                1,
+                60,
+                5000,
+                64,
+                List.of("/solicitacoes")
+        );
+        execucoes = new AtomicInteger();
+        autenticar(1L);
+    }
+
+    @AfterEach
+    void limpar() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void deveRepetirARespostaGuardadaSemExecutarDeNovo() throws Exception {
+
+        MockHttpServletResponse primeira = executar("chave-1", responder(200, "{\"id\":10}"));
+        MockHttpServletResponse repetida = executar("chave-1", (req, res) -> fail("não deveria executar de novo"));
+
+        assertEquals(200, repetida.getStatus());
+        assertEquals(primeira.getContentAsString(), repetida.getContentAsString());
+        assertEquals("application/json", repetida.getContentType());
+        assertEquals("true", repetida.getHeader(IdempotenciaFilter.CABECALHO_REPETIDA));
+        assertNull(primeira.getHeader(IdempotenciaFilter.CABECALHO_REPETIDA));
+
+        //outra chave, outro usuário ou outro caminho executam normalmente
+        executar("chave-2", responder(200, "{}"));
+        autenticar(2L);
+        executar("chave-1", responder(200, "{}"));
+
+        assertEquals(3, execucoes.get());
+        assertEquals(1.0, meterRegistry.get("idempotencia.repetidas").counter().count());
+    }
+
+    @Test
+    void repeticoesSimultaneasDevemEsperarAOriginal() throws Exception {
+
+        CountDownLatch executando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        FilterChain lenta = (req, res) -> {
+            executando.countDown();
+            try {
+                liberar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            responder(200, "{\"id\":10}").doFilter(req, res);
+        };
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<MockHttpServletResponse> original = executor.submit(() -> comUsuario(1L, () -> executar("chave", lenta)));
+            assertTrue(executando.await(5, TimeUnit.SECONDS));
+
+            Future<MockHttpServletResponse> repetida = executor.submit(() -> comUsuario(1L,
+                    () -> executar("chave", (req, res) -> fail("não deveria executar de novo"))));
+
+            //a repetição fica esperando até a original responder
+            Thread.sleep(100);
+            assertFalse(repetida.isDone());
+            liberar.countDown();
+
+            assertEquals("{\"id\":10}", original.get(5, TimeUnit.SECONDS).getContentAsString());
+            assertEquals("{\"id\":10}", repetida.get(5, TimeUnit.SECONDS).getContentAsString());
+        }
+
+        assertEquals(1, execucoes.get());
+        assertEquals(1.0, meterRegistry.get("idempotencia.agrupadas").counter().count());
+    }
+
+    @Test
+    void erroDoServidorNaoDeveSerGuardado() throws Exception {
+
+        assertEquals(503, executar("chave", responder(503, "{}")).getStatus());
+        assertEquals(200, executar("chave", responder(200, "{}")).getStatus());
+
+        assertEquals(2, execucoes.get());
+    }
+
+    @Test
+    void mesmaChaveComOutroCorpoDeveSerRecusada() throws Exception {
+
+        //a operação continua lendo o corpo normalmente
+        FilterChain ecoar = (req, res) -> {
+            execucoes.incrementAndGet();
+            res.setContentType("application/json");
+            res.getWriter().write(req.getReader().readLine());
+        };
+
+        assertEquals("{\"motivo\":\"a\"}", executar("chave", "{\"motivo\":\"a\"}", ecoar).getContentAsString());
+
+        MockHttpServletResponse outroCorpo = executar("chave", "{\"motivo\":\"b\"}", ecoar);
+        assertEquals(422, outroCorpo.getStatus());
+        assertNull(outroCorpo.getHeader(IdempotenciaFilter.CABECALHO_REPETIDA));
+
+        //o mesmo corpo continua recebendo a resposta guardada
+        MockHttpServletResponse repetida = executar("chave", "{\"motivo\":\"a\"}", ecoar);
+        assertEquals("{\"motivo\":\"a\"}", repetida.getContentAsString());
+        assertEquals("true", repetida.getHeader(IdempotenciaFilter.CABECALHO_REPETIDA));
+
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    void respostasQuePedemNovaTentativaNaoDevemSerGuardadas() throws Exception {
+
+        assertEquals(409, executar("conflito", responder(409, "{}")).getStatus());
+        assertEquals(200, executar("conflito", responder(200, "{}")).getStatus());
+
+        assertEquals(429, executar("limite", responder(429, "{}")).getStatus());
+        assertEquals(200, executar("limite", responder(200, "{}")).getStatus());
+
+        FilterChain indisponivel = (req, res) -> {
+            ((HttpServletResponse) res).setHeader("Retry-After", "5");
+            responder(400, "{}").doFilter(req, res);
+        };
+        assertEquals(400, executar("retry-after", indisponivel).getStatus());
+        assertEquals(200, executar("retry-after", responder(200, "{}")).getStatus());
+
+        assertEquals(6, execucoes.get());
+
+        //4xx de validação não muda ao repetir: fica guardado
+        assertEquals(400, executar("invalida", responder(400, "{}")).getStatus());
+        assertEquals(400, executar("invalida", (req, res) -> fail("não deveria executar de novo")).getStatus());
+    }
+
+    @Test
+    void leiturasEChavesInvalidasNaoDevemPassarPeloStore() throws Exception {
+
+        MockHttpServletRequest leitura = new MockHttpServletRequest("GET", "/solicitacoes");
+        leitura.addHeader(IdempotenciaFilter.CABECALHO, "chave");
+        filter.doFilter(leitura, new MockHttpServletResponse(), responder(200, "{}"));
+        filter.doFilter(leitura, new MockHttpServletResponse(), responder(200, "{}"));
+
+        assertEquals(2, execucoes.get());
+        assertEquals(400, executar(" ", (req, res) -> fail("não deveria executar")).getStatus());
+    }
+
+    @Test
+    void deveRepetirOsCabecalhosDaOriginal() throws Exception {
+
+        FilterChain criar = (req, res) -> {
+            execucoes.incrementAndGet();
+            HttpServletResponse resposta = (HttpServletResponse) res;
+            resposta.setStatus(201);
+            resposta.setHeader("Location", "/solicitacoes/10");
+            resposta.setHeader("ETag", "\"3\"");
+            resposta.setHeader("RateLimit-Remaining", "9");
+            resposta.getWriter().write("{}");
+        };
+
+        executar("chave-1", criar);
+
+        //o limitador já respondeu pela repetição: o valor dela vence o da original
+        MockHttpServletRequest request = requisicao("chave-1", "");
+        MockHttpServletResponse repetida = new MockHttpServletResponse();
+        repetida.setHeader("RateLimit-Remaining", "7");
+        filter.doFilter(request, repetida, (req, res) -> fail("não deveria executar de novo"));
+
+        assertEquals(201, repetida.getStatus());
+        assertEquals("/solicitacoes/10", repetida.getHeader("Location"));
+        assertEquals("\"3\"", repetida.getHeader("ETag"));
+        assertEquals("7", repetida.getHeader("RateLimit-Remaining"));
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    void deveRecusarCorpoAcimaDoLimiteAntesDeExecutar() throws Exception {
+
+        String grande = "x".repeat(65);
+
+        MockHttpServletResponse declarado = executar("chave-1", grande, (req, res) -> fail("não deveria executar"));
+        assertEquals(413, declarado.getStatus());
+
+        //sem Content-Length (chunked) a leitura para no limite
+        MockHttpServletRequest semTamanho = new MockHttpServletRequest("POST", "/solicitacoes/10/aprovar") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        semTamanho.addHeader(IdempotenciaFilter.CABECALHO, "chave-2");
+        semTamanho.setContent(grande.getBytes(StandardCharsets.UTF_8));
+
+        MockHttpServletResponse lido = new MockHttpServletResponse();
+        filter.doFilter(semTamanho, lido, (req, res) -> fail("não deveria executar"));
+        assertEquals(413, lido.getStatus());
+
+        //no limite passa normalmente
+        assertEquals(200, executar("chave-3", "x".repeat(64), responder(200, "{}")).getStatus());
+    }
+
+    private MockHttpServletResponse executar(String chave, FilterChain cadeia) throws Exception {
+        return executar(chave, "", cadeia);
+    }
+
+    private MockHttpServletResponse executar(String chave, String corpo, FilterChain cadeia) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(requisicao(chave, corpo), response, cadeia);
+        return response;
+    }
+
+    private MockHttpServletRequest requisicao(String chave, String corpo) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/solicitacoes/10/aprovar");
+        request.addHeader(IdempotenciaFilter.CABECALHO, chave);
+        request.setContent(corpo.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private FilterChain responder(int status, String corpo) {
+        return (req, res) -> {
+            execucoes.incrementAndGet();
+            ((HttpServletResponse) res).setStatus(status);
+            res.setContentType("application/json");
+            res.getWriter().write(corpo);
+            res.getWriter().flush();
+        };
+    }
+
+    private <T> T comUsuario(Long id, Chamada<T> chamada) throws Exception {
+        autenticar(id);
+        try {
+            return chamada.executar();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static void autenticar(Long id) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(Usuario.builder().id(id).build(), null, null));
+    }
+
+    @FunctionalInterface
+    private interface Chamada<T> {
+        T executar() throws Exception;
+    }
+}
@@ -0,0 +1,158 @@
+package com.supera.acessos.modulo.controller;
+
+import com.supera.acessos.auth.security.JwtTokenService;
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.support.SqlCapturado;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.supera.acessos.support.SqlCapturado")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ModuloControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ModuloRepository moduloRepository;
+
+    @Autowired
+    private JwtTokenService jwtTokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+    private Modulo financeiro;
+
+    @BeforeEach
+    void setup() {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .nome("Joao")
+                .email("joao@supera.com")
+                .senha("hash")
+                .departamento(Departamento.TI)
+                .build());
+
+        financeiro = moduloRepository.save(modulo("Financeiro", true));
+        moduloRepository.save(modulo("Legado", false));
+
+        token = "Bearer " + jwtTokenService.gerarToken(usuario);
+    }
+
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("delete from modulos");
+        jdbcTemplate.update("delete from usuarios");
+    }
+
+    @Test
+    void deveServirCatalogoSemConsultarOBanco() throws Exception {
+
+        SqlCapturado.limpar();
+
+        mockMvc.perform(get("/modulos").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].nome").value("Financeiro"))
+                .andExpect(jsonPath("$[0].prazoExpiracaoDias").value(30));
+
+        assertTrue(SqlCapturado.capturados().isEmpty(), SqlCapturado.capturados().toString());
+    }
+
+    @Test
+    void deveResponderNaoModificadoQuandoETagConfere() throws Exception {
+
+        String etag = mockMvc.perform(get("/modulos").header("Authorization", token))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/modulos")
+                        .header("Authorization", token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void deveFiltrarSomenteAtivos() throws Exception {
+
+        String etagTodos = mockMvc.perform(get("/modulos").header("Authorization", token))
+                .andReturn().getResponse().getHeader("ETag");
+
+        String etagAtivos = mockMvc.perform(get("/modulos?somenteAtivos=true").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].ativo").value(true))
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertNotEquals(etagTodos, etagAtivos);
+    }
+
+    @Test
+    void deveTrocarETagQuandoModuloMuda() throws Exception {
+
+        String antes = mockMvc.perform(get("/modulos").header("Authorization", token))
+                .andReturn().getResponse().getHeader("ETag");
+
+        moduloRepository.save(modulo("Compras", true));
+
+        mockMvc.perform(get("/modulos")
+                        .header("Authorization", token)
+                        .header("If-None-Match", antes))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @Test
+    void desativacaoFeitaEmOutroNoDeveBloquearCriacaoDeSolicitacao() throws Exception {
+
+        mockMvc.perform(get("/modulos?somenteAtivos=true").header("Authorization", token))
+                .andExpect(jsonPath("$.length()").value(1));
+
+        //outro nó desativou o módulo: o evento local não dispara e o snapshot daqui continua dizendo ativo
+        jdbcTemplate.update("update modulos set ativo = false where id = ?", financeiro.getId());
+
+        mockMvc.perform(post("/solicitacoes")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"moduloId\": " + financeiro.getId() + "}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.mensagem").value("Módulo inativo"));
+
+        //a divergência já recarrega o snapshot, sem esperar o agendamento
+        mockMvc.perform(get("/modulos?somenteAtivos=true").header("Authorization", token))
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    private Modulo modulo(String nome, boolean ativo) {
+        return Modulo.builder()
+                .nome(nome)
+                .descricao("Modulo " + nome)
+                .prazoExpiracaoDias(30)
+                .ativo(ativo)
+                .build();
+    }
+}
@@ -0,0 +1,234 @@
+package com.supera.acessos.solicitacao.controller;
+
+import com.supera.acessos.auth.security.JwtTokenService;
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+//várias threads disputando a mesma solicitação (ou o mesmo usuário) pela API, com o banco real:
+//o estado final tem que ser consistente e nenhum acesso pode ser concedido duas vezes
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SolicitacaoConcorrenciaTest {
+
+    private static final int THREADS = 8;
+    private static final int RODADAS = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ModuloRepository moduloRepository;
+
+    @Autowired
+    private SolicitacaoModuloRepository solicitacaoRepository;
+
+    @Autowired
+    private JwtTokenService jwtTokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    private Usuario usuario;
+    private String token;
+
+    @BeforeEach
+    void setup() {
+        usuario = usuarioRepository.save(Usuario.builder()
+                .nome("Joao")
+                .email("joao@supera.com")
+                .senha("hash")
+                .departamento(Departamento.TI)
+                .build());
+
+        token = "Bearer " + jwtTokenService.gerarToken(usuario);
+    }
+
+    @AfterEach
+    void limpar() {
+        executor.shutdownNow();
+        jdbcTemplate.update("delete from usuarios_modulos");
+        jdbcTemplate.update("delete from solicitacoes");
+        jdbcTemplate.update("delete from modulos");
+        jdbcTemplate.update("delete from usuarios");
+    }
+
+    @Test
+    void aprovacoesSimultaneasDaMesmaSolicitacaoDevemConcederUmAcessoSo() throws Exception {
+
+        for (int rodada = 0; rodada < RODADAS; rodada++) {
+            Modulo modulo = moduloRepository.save(modulo("Seguranca " + rodada));
+            SolicitacaoModulo sol = solicitacaoRepository.save(pendente(modulo));
+
+            List<Integer> status = emParalelo(THREADS, i -> post("/solicitacoes/" + sol.getId() + "/aprovar")
+                    .header("Authorization", token));
+
+            //uma aprovação vence; as outras releem e recebem erro de negócio ou, esgotadas as tentativas, 409
+            assertEquals(1, status.stream().filter(s -> s == 200).count(), status.toString());
+            assertTrue(status.stream().allMatch(s -> s == 200 || s == 400 || s == 409), status.toString());
+            assertEquals(StatusSolicitacao.APROVADA, statusAtual(sol));
+            assertEquals(1, acessos(modulo));
+        }
+    }
+
+    @Test
+    void aprovacaoConcorrendoComCancelamentoDeveTerminarConsistente() throws Exception {
+
+        for (int rodada = 0; rodada < RODADAS; rodada++) {
+            Modulo modulo = moduloRepository.save(modulo("Seguranca " + rodada));
+            SolicitacaoModulo sol = solicitacaoRepository.save(pendente(modulo));
+
+            List<Integer> status = emParalelo(2, i -> post("/solicitacoes/" + sol.getId() + (i == 0 ? "/aprovar" : "/cancelar"))
+                    .header("Authorization", token));
+
+            assertTrue(status.stream().allMatch(s -> s == 200 || s == 400 || s == 409), status.toString());
+
+            //acesso concedido se, e somente se, a solicitação terminou aprovada
+            StatusSolicitacao finalizado = statusAtual(sol);
+            assertTrue(finalizado == StatusSolicitacao.APROVADA || finalizado == StatusSolicitacao.CANCELADA, finalizado.name());
+            assertEquals(finalizado == StatusSolicitacao.APROVADA ? 1 : 0, acessos(modulo));
+        }
+    }
+
+    @Test
+    void concessoesSimultaneasAoMesmoUsuarioNaoDevemSePerder() throws Exception {
+
+        List<SolicitacaoModulo> pendentes = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            pendentes.add(solicitacaoRepository.save(pendente(moduloRepository.save(modulo("Seguranca " + i)))));
+        }
+
+        //cada concessão é uma linha própria em usuarios_modulos: nenhuma sobrescreve as outras
+        List<Integer> status = emParalelo(THREADS, i -> post("/solicitacoes/" + pendentes.get(i).getId() + "/aprovar")
+                .header("Authorization", token));
+
+        assertTrue(status.stream().allMatch(s -> s == 200 || s == 409), status.toString());
+
+        long aprovadas = pendentes.stream().filter(s -> statusAtual(s) == StatusSolicitacao.APROVADA).count();
+        assertEquals(status.stream().filter(s -> s == 200).count(), aprovadas);
+        assertEquals(aprovadas, jdbcTemplate.queryForObject(
+                "select count(*) from usuarios_modulos where usuario_id = ?", Long.class, usuario.getId()));
+    }
+
+    @Test
+    void criacoesSimultaneasDevemDeixarUmaPendenteSo() throws Exception {
+
+        for (int rodada = 0; rodada < RODADAS; rodada++) {
+            Modulo modulo = moduloRepository.save(modulo("Seguranca " + rodada));
+            double criadasAntes = criadas();
+
+            List<Integer> status = emParalelo(THREADS, i -> post("/solicitacoes")
+                    .header("Authorization", token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"moduloId\": " + modulo.getId() + "}"));
+
+            //quem perde a corrida esbarra na checagem ou no índice único: 409 nos dois casos
+            assertEquals(1, status.stream().filter(s -> s == 200).count(), status.toString());
+            assertTrue(status.stream().allMatch(s -> s == 200 || s == 409), status.toString());
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "select count(*) from solicitacoes where modulo_id = ?", Integer.class, modulo.getId()));
+
+            //as criações desfeitas pelo índice único não entram na métrica
+            assertEquals(criadasAntes + 1, criadas());
+        }
+    }
+
+    private double criadas() {
+        return meterRegistry.find("solicitacao.transicoes").tag("de", "NOVA").counters().stream()
+                .mapToDouble(c -> c.count())
+                .sum();
+    }
+
+    //dispara as requisições juntas, depois de todas as threads prontas, e devolve os status HTTP
+    private List<Integer> emParalelo(int quantidade, Requisicao requisicao) throws Exception {
+
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Integer>> respostas = new ArrayList<>();
+
+        for (int i = 0; i < quantidade; i++) {
+            RequestBuilder request = requisicao.criar(i);
+            respostas.add(executor.submit(() -> {
+                largada.await();
+                return mockMvc.perform(request).andReturn().getResponse().getStatus();
+            }));
+        }
+
+        largada.countDown();
+
+        List<Integer> status = new ArrayList<>();
+        for (Future<Integer> resposta : respostas) {
+            status.add(resposta.get());
+        }
+        return status;
+    }
+
+    private StatusSolicitacao statusAtual(SolicitacaoModulo sol) {
+        return solicitacaoRepository.findById(sol.getId()).orElseThrow().getStatus();
+    }
+
+    private int acessos(Modulo modulo) {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from usuarios_modulos where modulo_id = ?", Integer.class, modulo.getId());
+    }
+
+    private SolicitacaoModulo pendente(Modulo modulo) {
+        return SolicitacaoModulo.builder()
+                .solicitante(usuario)
+                .modulo(modulo)
+                .status(StatusSolicitacao.AGUARDANDO_SEGURANCA)
+                .dataAbertura(LocalDateTime.now())
+                .build();
+    }
+
+    private Modulo modulo(String nome) {
+        return Modulo.builder()
+                .nome(nome)
+                .descricao("Modulo " + nome)
+                .exigeAprovacaoSeguranca(true)
+                .prazoExpiracaoDias(30)
+                .ativo(true)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface Requisicao {
+        RequestBuilder criar(int indice);
+    }
+}
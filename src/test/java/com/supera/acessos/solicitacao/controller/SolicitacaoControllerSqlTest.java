@@ -0,0 +1,384 @@
+package com.supera.acessos.solicitacao.controller;
+
+import com.supera.acessos.auth.security.JwtTokenService;
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
+import com.supera.acessos.solicitacao.service.FilaAprovacaoService;
+import com.supera.acessos.support.SqlCapturado;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//quantidade exata de comandos SQL por endpoint: qualquer N+1 novo quebra o teste
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.supera.acessos.support.SqlCapturado")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SolicitacaoControllerSqlTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ModuloRepository moduloRepository;
+
+    @Autowired
+    private SolicitacaoModuloRepository solicitacaoRepository;
+
+    @Autowired
+    private JwtTokenService jwtTokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FilaAprovacaoService filaAprovacaoService;
+
+    private Usuario usuario;
+    private Modulo moduloGestor;
+    private Modulo moduloSeguranca;
+    private String token;
+
+    @BeforeEach
+    void setup() {
+        usuario = usuarioRepository.save(Usuario.builder()
+                .nome("Joao")
+                .email("joao@supera.com")
+                .senha("hash-que-nao-pode-vazar")
+                .departamento(Departamento.TI)
+                .build());
+
+        moduloGestor = moduloRepository.save(modulo("Financeiro", true, false));
+        moduloSeguranca = moduloRepository.save(modulo("Auditoria", false, true));
+
+        token = "Bearer " + jwtTokenService.gerarToken(usuario);
+    }
+
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("delete from usuarios_modulos");
+        jdbcTemplate.update("delete from solicitacoes");
+        jdbcTemplate.update("delete from modulos");
+        jdbcTemplate.update("delete from usuarios");
+    }
+
+    @Test
+    void listarDeveExecutarDuasConsultasIndependenteDoTamanhoDaPagina() throws Exception {
+
+        List<SolicitacaoModulo> historico = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            historico.add(solicitacao(i % 2 == 0 ? moduloGestor : moduloSeguranca, StatusSolicitacao.REPROVADA, i));
+        }
+        solicitacaoRepository.saveAll(historico);
+
+        //uma página de solicitacoes e outra do histórico arquivado, intercaladas no serviço
+        assertEquals(2, comandosSql(get("/solicitacoes?limite=20").header("Authorization", token)));
+
+        mockMvc.perform(get("/solicitacoes").header("Authorization", token))
+                .andExpect(jsonPath("$.itens[0].solicitante.senha").doesNotExist())
+                .andExpect(jsonPath("$.itens[0].solicitante.modulosAtivos").doesNotExist());
+    }
+
+    @Test
+    void detalharDeveExecutarUmaConsulta() throws Exception {
+
+        SolicitacaoModulo sol = solicitacaoRepository.save(
+                solicitacao(moduloGestor, StatusSolicitacao.AGUARDANDO_GESTOR, 0));
+
+        assertEquals(1, comandosSql(get("/solicitacoes/" + sol.getId()).header("Authorization", token)));
+    }
+
+    @Test
+    void criarDeveExecutarQuantidadeFixaDeComandos() throws Exception {
+
+        //módulo ainda ativo no banco, existência do acesso, pendência, insert e outbox de auditoria; o módulo vem
+        //do catálogo em memória e o usuário do cache de segundo nível (com id por sequence o insert do setup já o deixa no cache)
+        assertEquals(5, comandosSql(post("/solicitacoes")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"moduloId\": " + moduloGestor.getId() + "}")));
+    }
+
+    @Test
+    void repeticaoComMesmaIdempotencyKeyNaoDeveExecutarComandos() throws Exception {
+
+        RequestBuilder criar = post("/solicitacoes")
+                .header("Authorization", token)
+                .header("Idempotency-Key", "criar-" + usuario.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"moduloId\": " + moduloGestor.getId() + "}");
+
+        assertEquals(5, comandosSql(criar));
+
+        //a resposta guardada volta sem passar pelo serviço, em vez do erro de pendência duplicada
+        assertEquals(0, comandosSql(criar));
+        mockMvc.perform(criar)
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.status").value("AGUARDANDO_GESTOR"));
+    }
+
+    @Test
+    void criarLoteDeveValidarTodosOsModulosComTresConsultas() throws Exception {
+
+        //três consultas de validação (módulos ativos, acessos e pendências), um batch com as solicitações
+        //criadas (ids por sequence) e um batch com os registros do outbox de auditoria
+        assertEquals(5, comandosSql(post("/solicitacoes/lote")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"moduloIds\": [" + moduloGestor.getId() + ", " + moduloSeguranca.getId() + "]}")));
+
+        assertEquals(2, solicitacaoRepository.count());
+    }
+
+    @Test
+    void aprovarDeveExecutarQuantidadeFixaDeComandos() throws Exception {
+
+        SolicitacaoModulo sol = solicitacaoRepository.save(
+                solicitacao(moduloSeguranca, StatusSolicitacao.AGUARDANDO_SEGURANCA, 0));
+
+        //solicitação com joins, existência do acesso pela PK, insert de uma linha em usuarios_modulos,
+        //update da solicitação com versão e outbox de auditoria; o usuário não é tocado
+        assertEquals(5, comandosSql(post("/solicitacoes/" + sol.getId() + "/aprovar")
+                .header("Authorization", token)));
+    }
+
+    @Test
+    void reprovarDeveExecutarQuantidadeFixaDeComandos() throws Exception {
+
+        SolicitacaoModulo sol = solicitacaoRepository.save(
+                solicitacao(moduloGestor, StatusSolicitacao.AGUARDANDO_GESTOR, 0));
+
+        assertEquals(3, comandosSql(post("/solicitacoes/" + sol.getId() + "/reprovar")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"motivo\": \"sem justificativa\"}")));
+    }
+
+    @Test
+    void cancelarDeveExecutarQuantidadeFixaDeComandos() throws Exception {
+
+        SolicitacaoModulo sol = solicitacaoRepository.save(
+                solicitacao(moduloGestor, StatusSolicitacao.AGUARDANDO_GESTOR, 0));
+
+        //solicitação, update com versão e outbox de auditoria; o usuário vem do cache de segundo nível
+        assertEquals(3, comandosSql(post("/solicitacoes/" + sol.getId() + "/cancelar")
+                .header("Authorization", token)));
+    }
+
+    @Test
+    void reprovarLoteDeveAgruparOsUpdatesEmBatch() throws Exception {
+
+        //uma pendente por usuário e módulo: cada solicitação é de um usuário diferente
+        List<Usuario> solicitantes = outrosUsuarios(40);
+        List<SolicitacaoModulo> pendentes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            pendentes.add(solicitacao(solicitantes.get(i), moduloGestor, StatusSolicitacao.AGUARDANDO_GESTOR, i));
+        }
+        solicitacaoRepository.saveAll(pendentes);
+
+        //ids do filtro, select do bloco, um único update em batch JDBC para as 40 e um batch do outbox
+        assertEquals(4, comandosSql(post("/solicitacoes/lote/reprovar")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"filtro\": {\"moduloId\": " + moduloGestor.getId() + "}, \"motivo\": \"revisão trimestral\"}")));
+    }
+
+    @Test
+    void filaDeveExecutarUmaConsultaComTotalDaUltimaContagem() throws Exception {
+
+        List<Usuario> solicitantes = outrosUsuarios(30);
+        List<SolicitacaoModulo> pendentes = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            pendentes.add(solicitacao(solicitantes.get(i),
+                    i % 3 == 0 ? moduloSeguranca : moduloGestor, StatusSolicitacao.AGUARDANDO_GESTOR, i));
+        }
+        solicitacaoRepository.saveAll(pendentes);
+        filaAprovacaoService.recontar();
+
+        assertEquals(1, comandosSql(get("/solicitacoes/filas/AGUARDANDO_GESTOR?limite=5").header("Authorization", token)));
+
+        //mais antigas primeiro; o total vem da contagem, não de um count(*) por requisição
+        mockMvc.perform(get("/solicitacoes/filas/AGUARDANDO_GESTOR?limite=5&moduloId=" + moduloGestor.getId())
+                        .header("Authorization", token))
+                .andExpect(jsonPath("$.itens.length()").value(5))
+                .andExpect(jsonPath("$.itens[0].id").value(pendentes.get(29).getId()))
+                .andExpect(jsonPath("$.proximoCursor").isNotEmpty())
+                .andExpect(jsonPath("$.totalAproximado").value(20));
+
+        mockMvc.perform(get("/solicitacoes/filas/AGUARDANDO_SEGURANCA?departamento=RH").header("Authorization", token))
+                .andExpect(jsonPath("$.itens.length()").value(0))
+                .andExpect(jsonPath("$.totalAproximado").value(0));
+
+        mockMvc.perform(get("/solicitacoes/filas/APROVADA").header("Authorization", token))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void aprovarLoteDeveReportarFalhasSemAbortarOsDemais() throws Exception {
+
+        Usuario outro = outrosUsuarios(1).get(0);
+        SolicitacaoModulo valida = solicitacaoRepository.save(
+                solicitacao(outro, moduloSeguranca, StatusSolicitacao.AGUARDANDO_SEGURANCA, 0));
+        SolicitacaoModulo jaReprovada = solicitacaoRepository.save(
+                solicitacao(outro, moduloGestor, StatusSolicitacao.REPROVADA, 1));
+        SolicitacaoModulo propria = solicitacaoRepository.save(
+                solicitacao(moduloSeguranca, StatusSolicitacao.AGUARDANDO_SEGURANCA, 2));
+
+        String corpo = "{\"ids\": [" + valida.getId() + ", " + jaReprovada.getId() + ", 999999, " + propria.getId() + "]}";
+
+        mockMvc.perform(post("/solicitacoes/lote/aprovar")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.sucessos").value(1))
+                .andExpect(jsonPath("$.itens[0].status").value("APROVADA"))
+                .andExpect(jsonPath("$.itens[1].erro").value("Solicitação não pode ser aprovada."))
+                .andExpect(jsonPath("$.itens[2].erro").value("Solicitação não encontrada"))
+                .andExpect(jsonPath("$.itens[3].erro").value("Solicitante não pode aprovar a própria solicitação"));
+
+        assertEquals(StatusSolicitacao.APROVADA, solicitacaoRepository.findById(valida.getId()).orElseThrow().getStatus());
+        assertEquals(StatusSolicitacao.AGUARDANDO_SEGURANCA,
+                solicitacaoRepository.findById(propria.getId()).orElseThrow().getStatus());
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from usuarios_modulos", Integer.class));
+    }
+
+    @Test
+    void aprovarLoteDeveConsultarOsAcessosUmaVezPorBloco() throws Exception {
+
+        List<Usuario> solicitantes = outrosUsuarios(10);
+        List<SolicitacaoModulo> pendentes = solicitacaoRepository.saveAll(solicitantes.stream()
+                .map(s -> solicitacao(s, moduloSeguranca, StatusSolicitacao.AGUARDANDO_SEGURANCA, 0))
+                .toList());
+
+        //o primeiro já tem o acesso: a consulta do bloco precisa barrar só ele
+        jdbcTemplate.update("insert into usuarios_modulos (usuario_id, modulo_id) values (?, ?)",
+                solicitantes.get(0).getId(), moduloSeguranca.getId());
+
+        RequestBuilder aprovar = post("/solicitacoes/lote/aprovar")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\": " + pendentes.stream().map(SolicitacaoModulo::getId).toList() + "}");
+
+        //solicitações do bloco, acessos existentes do bloco, um insert por acesso concedido,
+        //um batch com os updates das solicitações e um com o outbox de auditoria
+        assertEquals(4 + 9, comandosSql(aprovar));
+
+        assertEquals(10, jdbcTemplate.queryForObject("select count(*) from usuarios_modulos", Integer.class));
+        assertEquals(StatusSolicitacao.AGUARDANDO_SEGURANCA,
+                solicitacaoRepository.findById(pendentes.get(0).getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void filasELotesDevemExigirAprovador() throws Exception {
+
+        Usuario rh = usuarioRepository.save(Usuario.builder()
+                .nome("Maria")
+                .email("maria@supera.com")
+                .senha("hash")
+                .departamento(Departamento.RH)
+                .build());
+        SolicitacaoModulo pendenteRh = solicitacaoRepository.save(
+                solicitacao(rh, moduloGestor, StatusSolicitacao.AGUARDANDO_GESTOR, 0));
+
+        String tokenRh = "Bearer " + jwtTokenService.gerarToken(rh);
+
+        //quem não está na lista de aprovadores não vê a fila nem decide em lote
+        mockMvc.perform(get("/solicitacoes/filas/AGUARDANDO_GESTOR").header("Authorization", tokenRh))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/solicitacoes/lote/aprovar")
+                        .header("Authorization", tokenRh)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"filtro\": {}}"))
+                .andExpect(status().isForbidden());
+
+        //gestor de TI: a fila de gestor é a do próprio departamento, e a solicitação do RH fica de fora
+        mockMvc.perform(get("/solicitacoes/filas/AGUARDANDO_GESTOR").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itens.length()").value(0));
+        mockMvc.perform(get("/solicitacoes/filas/AGUARDANDO_GESTOR?departamento=RH").header("Authorization", token))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(post("/solicitacoes/lote/aprovar")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [" + pendenteRh.getId() + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sucessos").value(0))
+                .andExpect(jsonPath("$.itens[0].erro").value("Gestor só decide solicitações do próprio departamento"));
+    }
+
+    //só a thread da requisição: o gravador de auditoria escreve em paralelo na sua própria thread
+    private int comandosSql(RequestBuilder request) throws Exception {
+        SqlCapturado.zerarContagemDaThread();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return SqlCapturado.zerarContagemDaThread();
+    }
+
+    private SolicitacaoModulo solicitacao(Modulo modulo, StatusSolicitacao status, int diasAtras) {
+        return solicitacao(usuario, modulo, status, diasAtras);
+    }
+
+    private SolicitacaoModulo solicitacao(Usuario solicitante, Modulo modulo, StatusSolicitacao status, int diasAtras) {
+        return SolicitacaoModulo.builder()
+                .solicitante(solicitante)
+                .modulo(modulo)
+                .status(status)
+                .dataAbertura(LocalDateTime.now().minusDays(diasAtras))
+                .build();
+    }
+
+    private List<Usuario> outrosUsuarios(int quantidade) {
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            usuarios.add(Usuario.builder()
+                    .nome("Usuario " + i)
+                    .email("usuario" + i + "@supera.com")
+                    .senha("hash")
+                    .departamento(Departamento.TI)
+                    .build());
+        }
+        return usuarioRepository.saveAll(usuarios);
+    }
+
+    private Modulo modulo(String nome, boolean gestor, boolean seguranca) {
+        return Modulo.builder()
+                .nome(nome)
+                .descricao("Modulo " + nome)
+                .exigeAprovacaoGestor(gestor)
+                .exigeAprovacaoSeguranca(seguranca)
+                .prazoExpiracaoDias(30)
+                .ativo(true)
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.supera.acessos.solicitacao.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//serialização de uma página de solicitações com o mesmo ObjectMapper padrão do Spring
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolicitacaoResponseDTOJsonBenchmark {
+
+    @Param({"20", "100"})
+    private int tamanho;
+
+    private ObjectMapper objectMapper;
+    private PaginaDTO<SolicitacaoResponseDTO> pagina;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 8, 0);
+        List<SolicitacaoResponseDTO> itens = new ArrayList<>();
+
+        for (int i = 0; i < tamanho; i++) {
+            itens.add(new SolicitacaoResponseDTO(
+                    (long) i, 1L, "Joao", "joao@supera.com", (long) (i % 10), "Modulo " + (i % 10), true,
+                    StatusSolicitacao.APROVADA,
+                    base.plusHours(i), base.plusHours(i + 1), null, base.plusDays(30), null, null));
+        }
+
+        pagina = new PaginaDTO<>(itens, "MjAyNS0wMS0wMVQwODowMHwx");
+    }
+
+    @Benchmark
+    public byte[] serializarPagina() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(pagina);
+    }
+}
@@ -0,0 +1,118 @@
+package com.supera.acessos.solicitacao.repository;
+
+import com.supera.acessos.AcessosModulosApplication;
+import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//linhas por segundo gravando solicitações em massa com saveAll, antes e depois da V9
+//IDENTITY: o mapeamento antigo (benchmark/solicitacao-identity.orm.xml), um insert por persist para obter o id
+//SEQUENCE: o mapeamento atual, ids reservados em blocos de 50 e inserts agrupados em batch JDBC no commit
+//H2 em memória: sem rede, a diferença aqui é só o custo por comando; num banco remoto cada insert ainda paga uma ida e volta
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolicitacaoModuloInsercaoBenchmark {
+
+    private static final int LINHAS = 1000;
+
+    @Param({"IDENTITY", "SEQUENCE"})
+    public String estrategia;
+
+    private ConfigurableApplicationContext contexto;
+    private SolicitacaoModuloRepository solicitacaoRepository;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private UsuarioRepository usuarioRepository;
+    private ModuloRepository moduloRepository;
+    private List<Long> usuarios;
+    private List<Long> modulos;
+
+    @Setup
+    public void setup() {
+        List<String> propriedades = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:insercao-" + estrategia.toLowerCase(),
+                "server.port=0",
+                "logging.level.root=WARN"
+        ));
+
+        if (estrategia.equals("IDENTITY")) {
+            propriedades.add("spring.jpa.mapping-resources=benchmark/solicitacao-identity.orm.xml");
+        }
+
+        contexto = new SpringApplicationBuilder(AcessosModulosApplication.class)
+                .profiles("test")
+                .properties(propriedades.toArray(String[]::new))
+                .run();
+
+        solicitacaoRepository = contexto.getBean(SolicitacaoModuloRepository.class);
+        transactionTemplate = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+        usuarioRepository = contexto.getBean(UsuarioRepository.class);
+        moduloRepository = contexto.getBean(ModuloRepository.class);
+        jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+
+        for (int u = 0; u < 100; u++) {
+            jdbcTemplate.update("insert into usuarios (nome, email, senha, departamento) values (?, ?, 'hash', 'TI')",
+                    "Usuario " + u, "usuario" + u + "@supera.com");
+        }
+
+        for (int m = 0; m < 10; m++) {
+            jdbcTemplate.update("insert into modulos (nome, descricao, exige_aprovacao_gestor, exige_aprovacao_seguranca, prazo_expiracao_dias, ativo) "
+                            + "values (?, 'Descricao', false, false, 30, true)",
+                    "Modulo " + m);
+        }
+
+        usuarios = jdbcTemplate.queryForList("select id from usuarios", Long.class);
+        modulos = jdbcTemplate.queryForList("select id from modulos", Long.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        contexto.close();
+    }
+
+    //a tabela volta a ficar vazia a cada iteração para o custo dos índices não crescer entre as medições
+    @TearDown(Level.Iteration)
+    public void limpar() {
+        jdbcTemplate.update("delete from solicitacoes");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINHAS)
+    public int inserirLote() {
+
+        LocalDateTime agora = LocalDateTime.now();
+
+        return transactionTemplate.execute(status -> {
+            List<SolicitacaoModulo> lote = new ArrayList<>(LINHAS);
+
+            //getReference só guarda o id para a FK; as solicitações já decididas não esbarram no índice de pendência
+            for (int i = 0; i < LINHAS; i++) {
+                lote.add(SolicitacaoModulo.builder()
+                        .solicitante(usuarioRepository.getReferenceById(usuarios.get(i % usuarios.size())))
+                        .modulo(moduloRepository.getReferenceById(modulos.get(i % modulos.size())))
+                        .status(StatusSolicitacao.REPROVADA)
+                        .motivoRecusa("Benchmark de insercao em massa")
+                        .dataAbertura(agora)
+                        .build());
+            }
+
+            return solicitacaoRepository.saveAll(lote).size();
+        });
+    }
+}
@@ -0,0 +1,227 @@
+package com.supera.acessos.solicitacao.repository;
+
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.solicitacao.dto.PendenciaPorModuloDTO;
+import com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.support.SqlCapturado;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//garante que as consultas quentes do repositório continuam usando os índices das migrations
+//o slice não sobe o CacheSegundoNivelConfig, então o cache de segundo nível fica desligado aqui
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.supera.acessos.support.SqlCapturado",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+class SolicitacaoModuloRepositoryPlanoTest {
+
+    @Autowired
+    private SolicitacaoModuloRepository solicitacaoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario usuario;
+    private Modulo modulo;
+
+    @BeforeEach
+    void setup() {
+
+        usuario = null;
+
+        //massa pequena só para as tabelas não estarem vazias
+        for (int u = 0; u < 20; u++) {
+            Usuario novo = Usuario.builder()
+                    .nome("Usuario " + u)
+                    .email("usuario" + u + "@supera.com")
+                    .senha("hash")
+                    .departamento(Departamento.TI)
+                    .build();
+            entityManager.persist(novo);
+
+            if (usuario == null) {
+                usuario = novo;
+            }
+        }
+
+        for (int m = 0; m < 10; m++) {
+            Modulo novo = Modulo.builder()
+                    .nome("Modulo " + m)
+                    .descricao("Descricao")
+                    .prazoExpiracaoDias(30)
+                    .ativo(true)
+                    .build();
+            entityManager.persist(novo);
+
+            if (modulo == null) {
+                modulo = novo;
+            }
+        }
+
+        StatusSolicitacao[] status = StatusSolicitacao.values();
+        List<Usuario> usuarios = entityManager.createQuery("from Usuario", Usuario.class).getResultList();
+        List<Modulo> modulos = entityManager.createQuery("from Modulo", Modulo.class).getResultList();
+
+        //200 pares usuário/módulo com duas solicitações cada; os status de um par (i e i + 200) nunca são
+        //ambos pendentes, como exige o índice único de pendência
+        for (int i = 0; i < 400; i++) {
+            entityManager.persist(SolicitacaoModulo.builder()
+                    .solicitante(usuarios.get(i % usuarios.size()))
+                    .modulo(modulos.get(i / usuarios.size() % modulos.size()))
+                    .status(status[i % status.length])
+                    .dataAbertura(LocalDateTime.now().minusDays(i))
+                    .dataExpiracao(LocalDateTime.now().plusDays(i - 200))
+                    .build());
+        }
+
+        entityManager.flush();
+        SqlCapturado.limpar();
+    }
+
+    @Test
+    void existePendenteDeveUsarIndiceUsuarioModuloStatus() {
+
+        solicitacaoRepository.existsBySolicitanteAndModuloAndStatusIn(
+                usuario,
+                modulo,
+                List.of(StatusSolicitacao.ABERTA, StatusSolicitacao.AGUARDANDO_GESTOR, StatusSolicitacao.AGUARDANDO_SEGURANCA)
+        );
+
+        String plano = plano(SqlCapturado.ultimo(),
+                usuario.getId(), modulo.getId(), "ABERTA", "AGUARDANDO_GESTOR", "AGUARDANDO_SEGURANCA", 1);
+
+        assertSemTableScan(plano);
+        assertTrue(plano.contains("IDX_SOLICITACOES_USUARIO_MODULO_STATUS"), plano);
+    }
+
+    @Test
+    void listarDoUsuarioDeveUsarIndicePorUsuario() {
+
+        solicitacaoRepository.findBySolicitante(usuario);
+
+        String plano = plano(SqlCapturado.ultimo(), usuario.getId());
+
+        //no H2 o índice da FK de usuario_id também atende; o importante é não varrer a tabela
+        assertSemTableScan(plano);
+        assertTrue(plano.contains(": USUARIO_ID = "), plano);
+    }
+
+    @Test
+    void paginaDoUsuarioDeveUsarIndicePorUsuarioEAbertura() {
+
+        LocalDateTime limite = LocalDateTime.now().plusDays(1);
+        LocalDateTime de = LocalDateTime.now().minusYears(1);
+
+        List<SolicitacaoResponseDTO> pagina = solicitacaoRepository.listarPaginaDoUsuario(
+                usuario.getId(), limite, Long.MAX_VALUE, de, null, null, Limit.of(21));
+
+        assertEquals(19, pagina.size());
+
+        String plano = plano(SqlCapturado.ultimo(),
+                usuario.getId(), limite, Long.MAX_VALUE, de, null, null, null, null, 21);
+
+        //solicitacoes deve ser acessada por um índice de usuario_id
+        assertSemTableScan(plano);
+        assertTrue(plano.contains(": USUARIO_ID = "), plano);
+    }
+
+    @Test
+    void buscaDeVencidasDeveUsarIndiceDeExpiracao() {
+
+        LocalDateTime agora = LocalDateTime.now();
+
+        solicitacaoRepository.buscarVencidasParaExpirar(StatusSolicitacao.APROVADA, agora, Limit.of(100));
+
+        String plano = plano(SqlCapturado.ultimo(), "APROVADA", agora, 100);
+
+        assertSemTableScan(plano);
+        assertTrue(plano.contains("IDX_SOLICITACOES_EXPIRACAO_APROVADAS"), plano);
+    }
+
+    @Test
+    void buscaDeArquivaveisDeveUsarIndiceDeArquivamento() {
+
+        LocalDateTime limite = LocalDateTime.now().minusDays(90);
+
+        solicitacaoRepository.buscarArquivaveis(
+                List.of(StatusSolicitacao.REPROVADA, StatusSolicitacao.CANCELADA, StatusSolicitacao.EXPIRADA),
+                limite, Limit.of(500));
+
+        String plano = plano(SqlCapturado.ultimo(), "REPROVADA", "CANCELADA", "EXPIRADA", limite, 500);
+
+        //o H2 não indexa expressão e entra por um índice que começa por status;
+        //no postgres o parcial idx_solicitacoes_arquivaveis é sobre o mesmo coalesce da consulta
+        assertSemTableScan(plano);
+        assertTrue(plano.contains(": STATUS IN(?1, ?2, ?3)"), plano);
+        assertTrue(plano.contains("COALESCE(\"SM1_0\".\"DATA_CANCELAMENTO\", \"SM1_0\".\"DATA_REPROVACAO\", "
+                + "\"SM1_0\".\"DATA_EXPIRACAO\", \"SM1_0\".\"DATA_ABERTURA\") < ?4"), plano);
+    }
+
+    @Test
+    void filaDeAprovacaoDeveUsarIndicesDaFila() {
+
+        LocalDateTime inicio = LocalDateTime.of(1900, 1, 1, 0, 0);
+
+        solicitacaoRepository.listarFila(StatusSolicitacao.AGUARDANDO_GESTOR, inicio, 0L, null, Limit.of(21));
+        String plano = plano(SqlCapturado.ultimo(), "AGUARDANDO_GESTOR", inicio, 0L, null, null, 21);
+
+        //no H2 os índices que começam por status (ou módulo) empatam em custo; no postgres o parcial da fila já vem ordenado
+        assertSemTableScan(plano);
+        assertTrue(plano.contains(": STATUS = "), plano);
+
+        solicitacaoRepository.listarFilaDoModulo(
+                StatusSolicitacao.AGUARDANDO_GESTOR, modulo.getId(), inicio, 0L, null, Limit.of(21));
+        plano = plano(SqlCapturado.ultimo(), "AGUARDANDO_GESTOR", modulo.getId(), inicio, 0L, null, null, 21);
+
+        //o filtro tem que cair na coluna modulo_id da solicitação (indexável), não no id da tabela modulos
+        assertSemTableScan(plano);
+        assertTrue(plano.contains(": MODULO_ID = "), plano);
+    }
+
+    @Test
+    void contagemDePendentesDeveAgruparPorModuloDepartamentoEStatus() {
+
+        List<PendenciaPorModuloDTO> pendencias = solicitacaoRepository.contarPendentesPorModulo(List.of(
+                StatusSolicitacao.ABERTA, StatusSolicitacao.AGUARDANDO_GESTOR, StatusSolicitacao.AGUARDANDO_SEGURANCA));
+
+        //10 módulos x 1 departamento x 3 status pendentes; 172 das 400 solicitações estão pendentes
+        assertEquals(30, pendencias.size());
+        assertEquals(172, pendencias.stream().mapToLong(PendenciaPorModuloDTO::total).sum());
+    }
+
+    private String plano(String sql, Object... parametros) {
+        return jdbcTemplate.query("EXPLAIN " + sql, ps -> {
+            for (int i = 0; i < parametros.length; i++) {
+                ps.setObject(i + 1, parametros[i]);
+            }
+        }, rs -> {
+            StringBuilder sb = new StringBuilder();
+            while (rs.next()) {
+                sb.append(rs.getString(1));
+            }
+            return sb.toString();
+        });
+    }
+
+    private void assertSemTableScan(String plano) {
+        assertFalse(plano.contains("SOLICITACOES.tableScan"), plano);
+    }
+}
@@ -0,0 +1,204 @@
+package com.supera.acessos.solicitacao.service;
+
+import com.supera.acessos.exceptions.ApiException;
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.solicitacao.dto.FiltroSolicitacoesDTO;
+import com.supera.acessos.solicitacao.dto.PaginaDTO;
+import com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoArquivadaRepository;
+import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//o arquivamento move só o que é final e foi finalizado há tempo; listagem e detalhe continuam enxergando as duas tabelas
+@SpringBootTest(properties = "solicitacao.arquivamento.tamanho-lote=3")
+@ActiveProfiles("test")
+class ArquivamentoSolicitacaoServiceTest {
+
+    @Autowired
+    private ArquivamentoSolicitacaoService arquivamento;
+
+    @Autowired
+    private SolicitacaoModuloService solicitacaoService;
+
+    @Autowired
+    private SolicitacaoModuloRepository solicitacaoRepository;
+
+    @Autowired
+    private SolicitacaoArquivadaRepository arquivadaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ModuloRepository moduloRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario usuario;
+    private Modulo modulo;
+
+    @BeforeEach
+    void setup() {
+        usuario = usuarioRepository.save(Usuario.builder()
+                .nome("Joao")
+                .email("joao@supera.com")
+                .senha("hash")
+                .departamento(Departamento.TI)
+                .build());
+
+        modulo = moduloRepository.save(Modulo.builder()
+                .nome("Financeiro")
+                .descricao("Financeiro")
+                .prazoExpiracaoDias(30)
+                .ativo(true)
+                .build());
+    }
+
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("delete from usuarios_modulos");
+        jdbcTemplate.update("delete from acessos_alteracoes");
+        jdbcTemplate.update("delete from solicitacoes_historico");
+        jdbcTemplate.update("delete from solicitacoes");
+        jdbcTemplate.update("delete from modulos");
+        jdbcTemplate.update("delete from usuarios");
+    }
+
+    @Test
+    void deveArquivarEmLotesSoAsFinaisMaisAntigasQueOLimite() {
+
+        List<SolicitacaoModulo> solicitacoes = new ArrayList<>();
+
+        //7 finais antigas (mais de um lote), uma final recente e uma aprovada antiga
+        for (int i = 0; i < 7; i++) {
+            solicitacoes.add(solicitacao(ArquivamentoSolicitacaoService.STATUS_FINAIS.get(i % 3), 200 + i));
+        }
+        solicitacoes.add(solicitacao(StatusSolicitacao.REPROVADA, 10));
+        solicitacoes.add(solicitacao(StatusSolicitacao.APROVADA, 300));
+        solicitacaoRepository.saveAll(solicitacoes);
+
+        int arquivadas = arquivamento.arquivarFinalizadasAntesDe(LocalDateTime.now().minusDays(90));
+
+        assertEquals(7, arquivadas);
+        assertEquals(7, arquivadaRepository.count());
+        assertEquals(2, solicitacaoRepository.count());
+
+        //nada fica nas duas tabelas, e uma nova execução não encontra mais o que mover
+        assertEquals(0, arquivamento.arquivarFinalizadasAntesDe(LocalDateTime.now().minusDays(90)));
+    }
+
+    @Test
+    void listagemEDetalheDevemIncluirAsArquivadas() {
+
+        List<SolicitacaoModulo> solicitacoes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            //dias alternados: as arquivadas ficam intercaladas com as que continuam ativas
+            solicitacoes.add(solicitacao(i % 2 == 0 ? StatusSolicitacao.CANCELADA : StatusSolicitacao.APROVADA, 100 + i));
+        }
+        solicitacaoRepository.saveAll(solicitacoes);
+
+        assertEquals(3, arquivamento.arquivarFinalizadasAntesDe(LocalDateTime.now().minusDays(90)));
+
+        FiltroSolicitacoesDTO semFiltro = new FiltroSolicitacoesDTO(null, null, null, null);
+
+        PaginaDTO<SolicitacaoResponseDTO> primeira = solicitacaoService.listarSolicitacoesDoUsuario(usuario, semFiltro, null, 4);
+        PaginaDTO<SolicitacaoResponseDTO> segunda = solicitacaoService.listarSolicitacoesDoUsuario(
+                usuario, semFiltro, primeira.proximoCursor(), 4);
+
+        List<Long> ids = new ArrayList<>(primeira.itens().stream().map(SolicitacaoResponseDTO::id).toList());
+        ids.addAll(segunda.itens().stream().map(SolicitacaoResponseDTO::id).toList());
+
+        //mesma ordem (mais recentes primeiro) e nenhum item repetido ou perdido entre as páginas
+        assertEquals(solicitacoes.stream().map(SolicitacaoModulo::getId).toList(), ids);
+        assertNull(segunda.proximoCursor());
+
+        //filtro por status pendente não precisa do histórico; por status final, só ele responde
+        assertEquals(0, solicitacaoService.listarSolicitacoesDoUsuario(usuario,
+                new FiltroSolicitacoesDTO(StatusSolicitacao.ABERTA, null, null, null), null, 10).itens().size());
+        assertEquals(3, solicitacaoService.listarSolicitacoesDoUsuario(usuario,
+                new FiltroSolicitacoesDTO(StatusSolicitacao.CANCELADA, null, null, null), null, 10).itens().size());
+
+        SolicitacaoResponseDTO arquivada = solicitacaoService.detalharSolicitacao(solicitacoes.get(0).getId(), usuario);
+        assertEquals(StatusSolicitacao.CANCELADA, arquivada.status());
+        assertEquals("Financeiro", arquivada.modulo().nome());
+    }
+
+    @Test
+    void naoDeveArquivarPelaAberturaQuandoAFinalizacaoForRecente() {
+
+        LocalDateTime abertura = LocalDateTime.now().minusDays(400);
+
+        //abertas há mais de um ano, mas expirada ontem, reprovada e cancelada há pouco
+        SolicitacaoModulo expirada = solicitacao(StatusSolicitacao.EXPIRADA, 400);
+        expirada.setDataExpiracao(LocalDateTime.now().minusDays(1));
+
+        SolicitacaoModulo reprovada = solicitacao(StatusSolicitacao.REPROVADA, 400);
+        reprovada.setDataReprovacao(LocalDateTime.now().minusDays(5));
+
+        //cancelada depois de aprovada: a expiração prevista ficou no futuro, o cancelamento é que vale
+        SolicitacaoModulo canceladaAntiga = solicitacao(StatusSolicitacao.CANCELADA, 400);
+        canceladaAntiga.setDataExpiracao(LocalDateTime.now().plusDays(30));
+        canceladaAntiga.setDataCancelamento(abertura.plusDays(1));
+
+        solicitacaoRepository.saveAll(List.of(expirada, reprovada, canceladaAntiga));
+
+        assertEquals(1, arquivamento.arquivarFinalizadasAntesDe(LocalDateTime.now().minusDays(90)));
+        assertTrue(arquivadaRepository.existsById(canceladaAntiga.getId()));
+
+        //a recém-expirada continua na tabela ativa, onde a renovação procura
+        assertTrue(solicitacaoRepository.existsById(expirada.getId()));
+        assertTrue(solicitacaoRepository.existsById(reprovada.getId()));
+    }
+
+    @Test
+    void deveRenovarExpiradaJaArquivada() {
+
+        SolicitacaoModulo expirada = solicitacao(StatusSolicitacao.EXPIRADA, 200);
+        SolicitacaoModulo reprovada = solicitacao(StatusSolicitacao.REPROVADA, 200);
+        solicitacaoRepository.saveAll(List.of(expirada, reprovada));
+
+        assertEquals(2, arquivamento.arquivarFinalizadasAntesDe(LocalDateTime.now().minusDays(90)));
+
+        //o módulo não exige aprovação: a renovação já concede o acesso
+        SolicitacaoResponseDTO renovada = solicitacaoService.renovarSolicitacao(expirada.getId(), usuario);
+        assertEquals(StatusSolicitacao.APROVADA, renovada.status());
+        assertEquals(modulo.getId(), renovada.modulo().id());
+
+        //no histórico continua valendo a regra: só expiradas são renovadas
+        assertThrows(ApiException.class, () -> solicitacaoService.renovarSolicitacao(reprovada.getId(), usuario));
+    }
+
+    //a data final acompanha a abertura; os testes que separam as duas ajustam depois
+    private SolicitacaoModulo solicitacao(StatusSolicitacao status, int diasAtras) {
+        LocalDateTime data = LocalDateTime.now().minusDays(diasAtras);
+
+        return SolicitacaoModulo.builder()
+                .solicitante(usuario)
+                .modulo(modulo)
+                .status(status)
+                .dataAbertura(data)
+                .dataReprovacao(status == StatusSolicitacao.REPROVADA ? data : null)
+                .dataCancelamento(status == StatusSolicitacao.CANCELADA ? data : null)
+                .dataExpiracao(status == StatusSolicitacao.EXPIRADA ? data : null)
+                .build();
+    }
+}
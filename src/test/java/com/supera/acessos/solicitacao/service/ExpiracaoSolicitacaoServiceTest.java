@@ -0,0 +1,105 @@
+package com.supera.acessos.solicitacao.service;
+
+import com.supera.acessos.acesso.event.AcessoRevogado;
+import com.supera.acessos.auditoria.service.AuditoriaService;
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
+import com.supera.acessos.usuario.entity.Usuario;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExpiracaoSolicitacaoServiceTest {
+
+    @Mock
+    private SolicitacaoModuloRepository solicitacaoRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AuditoriaService auditoria;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiracaoSolicitacaoService service;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new ExpiracaoSolicitacaoService(solicitacaoRepository, transactionManager, eventPublisher,
+                new SolicitacaoMetricas(meterRegistry), auditoria, 2, 10);
+    }
+
+    @Test
+    void deveExpirarEmLotesAteNaoHaverMaisVencidas() {
+
+        LocalDateTime agora = LocalDateTime.now();
+
+        when(solicitacaoRepository.buscarVencidasParaExpirar(
+                eq(StatusSolicitacao.APROVADA), eq(agora), any(Limit.class)))
+                .thenReturn(List.of(solicitacao(1L), solicitacao(2L)))
+                .thenReturn(List.of(solicitacao(3L)));
+
+        when(solicitacaoRepository.atualizarStatus(
+                any(), eq(StatusSolicitacao.APROVADA), eq(StatusSolicitacao.EXPIRADA)))
+                .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        int total = service.expirarVencidas(agora);
+
+        assertEquals(3, total);
+
+        //acesso é revogado antes da troca de status, um comando por lote
+        verify(solicitacaoRepository).revogarAcessosDasSolicitacoes(List.of(1L, 2L));
+        verify(solicitacaoRepository).revogarAcessosDasSolicitacoes(List.of(3L));
+        verify(solicitacaoRepository, times(2)).atualizarStatus(any(), any(), any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(eventPublisher, times(3)).publishEvent(new AcessoRevogado(10L, 20L));
+        verify(auditoria, times(3)).registrar(
+                any(Long.class), eq(StatusSolicitacao.APROVADA), eq(StatusSolicitacao.EXPIRADA), isNull(), isNull());
+
+        assertEquals(3, meterRegistry.get("solicitacao.transicoes")
+                .tags("de", "APROVADA", "para", "EXPIRADA").counter().count());
+    }
+
+    @Test
+    void naoDeveExecutarComandosQuandoNaoHaVencidas() {
+
+        when(solicitacaoRepository.buscarVencidasParaExpirar(any(), any(), any()))
+                .thenReturn(List.of());
+
+        assertEquals(0, service.expirarVencidas(LocalDateTime.now()));
+
+        verify(solicitacaoRepository, never()).revogarAcessosDasSolicitacoes(any());
+        verify(solicitacaoRepository, never()).atualizarStatus(any(), any(), any());
+    }
+
+    private SolicitacaoModulo solicitacao(Long id) {
+        return SolicitacaoModulo.builder()
+                .id(id)
+                .solicitante(Usuario.builder().id(10L).build())
+                .modulo(Modulo.builder().id(20L).build())
+                .status(StatusSolicitacao.APROVADA)
+                .dataExpiracao(LocalDateTime.now().minusDays(1))
+                .build();
+    }
+}
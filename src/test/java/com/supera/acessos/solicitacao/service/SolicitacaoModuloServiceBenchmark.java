@@ -0,0 +1,167 @@
+package com.supera.acessos.solicitacao.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supera.acessos.auditoria.repository.AuditoriaOutboxRepository;
+import com.supera.acessos.auditoria.service.AuditoriaService;
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.modulo.service.ModuloCatalogoService;
+import com.supera.acessos.solicitacao.dto.CriarSolicitacaoDTO;
+import com.supera.acessos.solicitacao.dto.CriarSolicitacoesLoteDTO;
+import com.supera.acessos.solicitacao.dto.ItemCriacaoLoteDTO;
+import com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO;
+import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
+import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoArquivadaRepository;
+import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
+import com.supera.acessos.support.RepositorioEmMemoria;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.RestricoesUnicasAcessos;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+//custo da regra de negócio sem banco: máquina de estados, validações e montagem do DTO
+//repositórios em memória; cada chamada devolve a solicitação ao estado inicial antes de agir
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolicitacaoModuloServiceBenchmark {
+
+    private SolicitacaoModuloService service;
+    private Usuario usuario;
+    private SolicitacaoModulo solicitacao;
+    private CriarSolicitacoesLoteDTO lote;
+
+    @Setup
+    public void setup() {
+        usuario = Usuario.builder()
+                .id(1L)
+                .nome("Joao")
+                .email("joao@supera.com")
+                .departamento(Departamento.TI)
+                .build();
+
+        List<Modulo> modulos = LongStream.rangeClosed(1, 20)
+                .mapToObj(id -> Modulo.builder()
+                        .id(id)
+                        .nome("Modulo " + id)
+                        .descricao("Modulo " + id)
+                        .exigeAprovacaoGestor(id % 2 == 0)
+                        .exigeAprovacaoSeguranca(true)
+                        .prazoExpiracaoDias(30)
+                        .ativo(true)
+                        .build())
+                .toList();
+
+        solicitacao = SolicitacaoModulo.builder()
+                .id(1L)
+                .solicitante(usuario)
+                .modulo(modulos.get(0))
+                .dataAbertura(LocalDateTime.now())
+                .build();
+
+        ModuloRepository moduloRepository = RepositorioEmMemoria.de(ModuloRepository.class, Map.of(
+                "findAll", args -> modulos,
+                "buscarAtivos", args -> new ArrayList<>((Collection<?>) args[0])
+        ));
+
+        UsuarioRepository usuarioRepository = RepositorioEmMemoria.de(UsuarioRepository.class, Map.of(
+                "findById", args -> Optional.of(usuario),
+                "getReferenceById", args -> usuario,
+                "buscarModulosAtivos", args -> List.of(),
+                "possuiModulo", args -> false,
+                "concederModulo", args -> 1,
+                "revogarModulo", args -> 1
+        ));
+
+        SolicitacaoModuloRepository solicitacaoRepository = RepositorioEmMemoria.de(SolicitacaoModuloRepository.class, Map.of(
+                "findById", args -> Optional.of(solicitacao),
+                "existsBySolicitanteAndModuloAndStatusIn", args -> false,
+                "buscarModulosComPendencia", args -> List.of(),
+                "save", args -> args[0],
+                "saveAll", args -> new ArrayList<>((List<?>) args[0])
+        ));
+
+        AuditoriaOutboxRepository outboxRepository = RepositorioEmMemoria.de(AuditoriaOutboxRepository.class, Map.of(
+                "save", args -> args[0]
+        ));
+
+        service = new SolicitacaoModuloService(
+                solicitacaoRepository,
+                RepositorioEmMemoria.de(SolicitacaoArquivadaRepository.class, Map.of()),
+                usuarioRepository,
+                new RestricoesUnicasAcessos(null),
+                new ModuloCatalogoService(moduloRepository, new ObjectMapper()),
+                evento -> { },
+                new SolicitacaoMetricas(new SimpleMeterRegistry()),
+                new AuditoriaService(outboxRepository, evento -> { }),
+                new SemTransacao()
+        );
+
+        lote = new CriarSolicitacoesLoteDTO(LongStream.rangeClosed(1, 10).boxed().toList());
+    }
+
+    @Benchmark
+    public SolicitacaoResponseDTO criarSolicitacao() {
+        return service.criarSolicitacao(usuario, new CriarSolicitacaoDTO(2L));
+    }
+
+    @Benchmark
+    public List<ItemCriacaoLoteDTO> criarSolicitacoesEmLote() {
+        return service.criarSolicitacoes(usuario, lote);
+    }
+
+    @Benchmark
+    public SolicitacaoResponseDTO aprovarAguardandoSeguranca() {
+        reiniciar(StatusSolicitacao.AGUARDANDO_SEGURANCA);
+        return service.aprovarSolicitacao(1L, usuario);
+    }
+
+    @Benchmark
+    public SolicitacaoResponseDTO reprovarAguardandoGestor() {
+        reiniciar(StatusSolicitacao.AGUARDANDO_GESTOR);
+        return service.reprovarSolicitacao(1L, usuario, "fora do escopo");
+    }
+
+    private void reiniciar(StatusSolicitacao status) {
+        solicitacao.setStatus(status);
+        solicitacao.setDataAprovacao(null);
+        solicitacao.setDataReprovacao(null);
+        solicitacao.setDataExpiracao(null);
+    }
+
+    //sem banco não há o que commitar: mede só a regra de negócio
+    private static class SemTransacao implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definicao) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -1,23 +1,47 @@
 package com.supera.acessos.solicitacao.service;
 
+import com.supera.acessos.acesso.event.AcessoConcedido;
+import com.supera.acessos.acesso.event.AcessoRevogado;
+import com.supera.acessos.auditoria.service.AuditoriaService;
 import com.supera.acessos.exceptions.ApiException;
 import com.supera.acessos.modulo.entity.Modulo;
-import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.modulo.dto.ModuloDTO;
+import com.supera.acessos.modulo.service.ModuloCatalogoService;
 import com.supera.acessos.solicitacao.dto.CriarSolicitacaoDTO;
+import com.supera.acessos.solicitacao.dto.CriarSolicitacoesLoteDTO;
+import com.supera.acessos.solicitacao.dto.CursorSolicitacao;
+import com.supera.acessos.solicitacao.dto.FiltroSolicitacoesDTO;
+import com.supera.acessos.solicitacao.dto.ItemCriacaoLoteDTO;
+import com.supera.acessos.solicitacao.dto.PaginaDTO;
+import com.supera.acessos.solicitacao.dto.ResultadoCriacao;
+import com.supera.acessos.solicitacao.dto.SolicitacaoResponseDTO;
 import com.supera.acessos.solicitacao.entity.SolicitacaoModulo;
 import com.supera.acessos.solicitacao.entity.StatusSolicitacao;
+import com.supera.acessos.solicitacao.repository.SolicitacaoArquivadaRepository;
 import com.supera.acessos.solicitacao.repository.SolicitacaoModuloRepository;
 import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.RestricoesUnicasAcessos;
 import com.supera.acessos.usuario.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,11 +52,31 @@ class SolicitacaoModuloServiceTest {
     @Mock
     private SolicitacaoModuloRepository solicitacaoRepository;
 
+    @Mock
+    private SolicitacaoArquivadaRepository arquivadaRepository;
+
     @Mock
     private UsuarioRepository usuarioRepository;
 
     @Mock
-    private ModuloRepository moduloRepository;
+    private RestricoesUnicasAcessos restricoesAcessos;
+
+    @Mock
+    private ModuloCatalogoService moduloCatalogo;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AuditoriaService auditoria;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private SolicitacaoMetricas metricas = new SolicitacaoMetricas(meterRegistry);
 
     @InjectMocks
     private SolicitacaoModuloService service;
@@ -63,8 +107,14 @@ class SolicitacaoModuloServiceTest {
         CriarSolicitacaoDTO dto = new CriarSolicitacaoDTO(modulo.getId());
 
         //mock das dependências
-        when(moduloRepository.findById(modulo.getId()))
-                .thenReturn(Optional.of(modulo));
+        when(usuarioRepository.findById(usuario.getId()))
+                .thenReturn(Optional.of(usuario));
+
+        when(moduloCatalogo.buscarPorId(modulo.getId()))
+                .thenReturn(Optional.of(ModuloDTO.de(modulo)));
+
+        when(moduloCatalogo.confirmarAtivos(List.of(modulo.getId())))
+                .thenReturn(Set.of(modulo.getId()));
 
         when(solicitacaoRepository.existsBySolicitanteAndModuloAndStatusIn(
                 any(), any(), any()))
@@ -75,13 +125,13 @@ class SolicitacaoModuloServiceTest {
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
         //execucao
-        SolicitacaoModulo solicitacao = service.criarSolicitacao(usuario, dto);
+        SolicitacaoResponseDTO solicitacao = service.criarSolicitacao(usuario, dto);
 
         //asserts
         assertNotNull(solicitacao);
-        assertEquals(usuario, solicitacao.getSolicitante());
-        assertEquals(modulo, solicitacao.getModulo());
-        assertEquals(StatusSolicitacao.ABERTA, solicitacao.getStatus());
+        assertEquals(usuario.getId(), solicitacao.solicitante().id());
+        assertEquals(modulo.getId(), solicitacao.modulo().id());
+        assertEquals(StatusSolicitacao.ABERTA, solicitacao.status());
 
         //verifica se chamou o repository
         verify(solicitacaoRepository, times(1)).save(any());
@@ -96,8 +146,11 @@ class SolicitacaoModuloServiceTest {
         CriarSolicitacaoDTO dto = new CriarSolicitacaoDTO(modulo.getId());
 
         //mock do modulo
-        when(moduloRepository.findById(modulo.getId()))
-                .thenReturn(Optional.of(modulo));
+        when(usuarioRepository.findById(usuario.getId()))
+                .thenReturn(Optional.of(usuario));
+
+        when(moduloCatalogo.buscarPorId(modulo.getId()))
+                .thenReturn(Optional.of(ModuloDTO.de(modulo)));
 
         //execução e verificacao
         ApiException ex = assertThrows(
@@ -112,12 +165,18 @@ class SolicitacaoModuloServiceTest {
     void naoDeveCriarSolicitacaoQuandoUsuarioJaTemAcesso() {
 
         //simula que o usuario já tem o módulo
-        usuario.getModulosAtivos().add(modulo);
+        when(usuarioRepository.possuiModulo(usuario.getId(), modulo.getId())).thenReturn(true);
 
         CriarSolicitacaoDTO dto = new CriarSolicitacaoDTO(modulo.getId());
 
-        when(moduloRepository.findById(modulo.getId()))
-                .thenReturn(Optional.of(modulo));
+        when(usuarioRepository.findById(usuario.getId()))
+                .thenReturn(Optional.of(usuario));
+
+        when(moduloCatalogo.buscarPorId(modulo.getId()))
+                .thenReturn(Optional.of(ModuloDTO.de(modulo)));
+
+        when(moduloCatalogo.confirmarAtivos(List.of(modulo.getId())))
+                .thenReturn(Set.of(modulo.getId()));
 
         ApiException ex = assertThrows(
                 ApiException.class,
@@ -132,13 +191,19 @@ class SolicitacaoModuloServiceTest {
 
         CriarSolicitacaoDTO dto = new CriarSolicitacaoDTO(modulo.getId());
 
-        when(moduloRepository.findById(modulo.getId()))
-                .thenReturn(Optional.of(modulo));
+        when(usuarioRepository.findById(usuario.getId()))
+                .thenReturn(Optional.of(usuario));
+
+        when(moduloCatalogo.buscarPorId(modulo.getId()))
+                .thenReturn(Optional.of(ModuloDTO.de(modulo)));
+
+        when(moduloCatalogo.confirmarAtivos(List.of(modulo.getId())))
+                .thenReturn(Set.of(modulo.getId()));
 
         //simula que existe solicitação pendente
         when(solicitacaoRepository.existsBySolicitanteAndModuloAndStatusIn(
                 eq(usuario),
-                eq(modulo),
+                argThat(m -> m.getId().equals(modulo.getId())),
                 any()
         )).thenReturn(true);
 
@@ -148,6 +213,52 @@ class SolicitacaoModuloServiceTest {
         );
 
         assertEquals("Já existe solicitação pendente para este módulo", ex.getMessage());
+        assertEquals(HttpStatus.CONFLICT, ex.getStatus());
+    }
+
+    @Test
+    void deveCriarSolicitacoesEmLoteInformandoResultadoPorModulo() {
+
+        ModuloDTO gestor = new ModuloDTO(11L, "Compras", "Compras", true, false, 30, true);
+        ModuloDTO inativo = new ModuloDTO(12L, "Legado", "Legado", false, false, 0, false);
+        ModuloDTO comPendencia = new ModuloDTO(13L, "RH", "RH", false, true, 30, true);
+
+        when(moduloCatalogo.buscarPorId(anyLong())).thenReturn(Optional.empty());
+        when(moduloCatalogo.buscarPorId(10L)).thenReturn(Optional.of(ModuloDTO.de(modulo)));
+        when(moduloCatalogo.buscarPorId(11L)).thenReturn(Optional.of(gestor));
+        when(moduloCatalogo.buscarPorId(12L)).thenReturn(Optional.of(inativo));
+        when(moduloCatalogo.buscarPorId(13L)).thenReturn(Optional.of(comPendencia));
+        when(moduloCatalogo.confirmarAtivos(List.of(10L, 11L, 13L))).thenReturn(Set.of(10L, 11L, 13L));
+
+        List<Long> pedidos = List.of(10L, 11L, 12L, 13L, 99L, 11L);
+
+        when(usuarioRepository.buscarModulosAtivos(usuario.getId(), List.of(10L, 11L, 12L, 13L, 99L)))
+                .thenReturn(List.of(10L));
+        when(solicitacaoRepository.buscarModulosComPendencia(eq(usuario.getId()), any(), any()))
+                .thenReturn(List.of(13L));
+        when(usuarioRepository.getReferenceById(usuario.getId())).thenReturn(usuario);
+        when(solicitacaoRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<SolicitacaoModulo> novas = invocation.getArgument(0);
+            novas.forEach(n -> n.setId(100L + n.getModulo().getId()));
+            return novas;
+        });
+
+        List<ItemCriacaoLoteDTO> itens = service.criarSolicitacoes(usuario, new CriarSolicitacoesLoteDTO(pedidos));
+
+        //repetidos contam uma vez
+        assertEquals(5, itens.size());
+        assertEquals(ResultadoCriacao.JA_POSSUI_ACESSO, itens.get(0).resultado());
+        assertEquals(ResultadoCriacao.CRIADA, itens.get(1).resultado());
+        assertEquals(111L, itens.get(1).solicitacaoId());
+        assertEquals(StatusSolicitacao.AGUARDANDO_GESTOR, itens.get(1).status());
+        assertEquals(ResultadoCriacao.MODULO_INATIVO, itens.get(2).resultado());
+        assertEquals(ResultadoCriacao.PENDENTE_EXISTENTE, itens.get(3).resultado());
+        assertEquals(ResultadoCriacao.MODULO_NAO_ENCONTRADO, itens.get(4).resultado());
+
+        //um único saveAll, sem consultas por módulo
+        verify(solicitacaoRepository, times(1)).saveAll(anyList());
+        verify(solicitacaoRepository, never()).existsBySolicitanteAndModuloAndStatusIn(any(), any(), any());
+        verify(usuarioRepository, never()).findById(any());
     }
 
     @Test
@@ -169,13 +280,21 @@ class SolicitacaoModuloServiceTest {
         when(solicitacaoRepository.save(any()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
-        SolicitacaoModulo resposta = service.aprovarSolicitacao(1L, usuario);
+        SolicitacaoResponseDTO resposta = service.aprovarSolicitacao(1L, usuario);
 
-        assertEquals(StatusSolicitacao.AGUARDANDO_SEGURANCA, resposta.getStatus());
-        assertNull(resposta.getDataAprovacao()); // ainda não aprovada
-        assertTrue(usuario.getModulosAtivos().isEmpty()); // nenhum acesso concedido
+        assertEquals(StatusSolicitacao.AGUARDANDO_SEGURANCA, resposta.status());
+        assertNull(resposta.dataAprovacao()); // ainda não aprovada
+        verify(usuarioRepository, never()).concederModulo(any(), any()); // nenhum acesso concedido
 
         verify(solicitacaoRepository, times(1)).save(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+
+        //transição, tempo desde a abertura e duração da operação
+        assertEquals(1, meterRegistry.get("solicitacao.transicoes")
+                .tags("de", "AGUARDANDO_GESTOR", "para", "AGUARDANDO_SEGURANCA").counter().count());
+        assertEquals(1, meterRegistry.get("solicitacao.tempo.desde.abertura")
+                .tag("status", "AGUARDANDO_SEGURANCA").timer().count());
+        assertEquals(1, meterRegistry.get("solicitacao.operacao").tag("operacao", "aprovar").timer().count());
     }
 
     @Test
@@ -198,16 +317,70 @@ class SolicitacaoModuloServiceTest {
         when(solicitacaoRepository.save(any()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
-        SolicitacaoModulo resposta = service.aprovarSolicitacao(1L, usuario);
+        SolicitacaoResponseDTO resposta = service.aprovarSolicitacao(1L, usuario);
 
-        assertEquals(StatusSolicitacao.APROVADA, resposta.getStatus());
-        assertNotNull(resposta.getDataAprovacao());
-        assertNotNull(resposta.getDataExpiracao());
+        assertEquals(StatusSolicitacao.APROVADA, resposta.status());
+        assertNotNull(resposta.dataAprovacao());
+        assertNotNull(resposta.dataExpiracao());
 
-        //usuário recebeu o módulo
-        assertTrue(usuario.getModulosAtivos().contains(modulo));
+        //usuário recebeu o módulo numa única linha, sem carregar os acessos que já tinha
+        verify(usuarioRepository).concederModulo(usuario.getId(), modulo.getId());
+        verify(usuarioRepository, never()).save(any());
 
         verify(solicitacaoRepository, times(1)).save(any());
+        verify(eventPublisher).publishEvent(new AcessoConcedido(usuario.getId(), modulo.getId()));
+
+        //quem aprovou fica na trilha de auditoria
+        verify(auditoria).registrar(solicitacao, StatusSolicitacao.AGUARDANDO_SEGURANCA, usuario, null);
+    }
+
+    @Test
+    void deveRepetirAprovacaoQuandoOutraOperacaoConcedeuOMesmoAcesso() {
+
+        //cada tentativa relê a solicitação do banco
+        when(solicitacaoRepository.findById(1L)).thenAnswer(invocation -> Optional.of(aguardandoSeguranca()));
+
+        //nome como o banco reporta; quem decide se é a PK de usuarios_modulos é o catálogo
+        when(restricoesAcessos.contem("PUBLIC.USUARIOS_MODULOS_PKEY")).thenReturn(true);
+        doThrow(violacao("23505", "PUBLIC.USUARIOS_MODULOS_PKEY"))
+                .when(usuarioRepository).concederModulo(usuario.getId(), modulo.getId());
+
+        ApiException ex = assertThrows(ApiException.class, () -> service.aprovarSolicitacao(1L, usuario));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatus());
+        verify(usuarioRepository, times(3)).concederModulo(usuario.getId(), modulo.getId());
+    }
+
+    @Test
+    void naoDeveRepetirAprovacaoQuandoViolacaoForDeChaveEstrangeira() {
+
+        when(solicitacaoRepository.findById(1L)).thenAnswer(invocation -> Optional.of(aguardandoSeguranca()));
+
+        //mesma tabela, outra restrição: não é concessão concorrente
+        DataIntegrityViolationException violacao = violacao("23503", "FK_USUARIOS_MODULOS_USUARIO");
+        doThrow(violacao).when(usuarioRepository).concederModulo(usuario.getId(), modulo.getId());
+
+        assertSame(violacao, assertThrows(DataIntegrityViolationException.class,
+                () -> service.aprovarSolicitacao(1L, usuario)));
+        verify(usuarioRepository, times(1)).concederModulo(usuario.getId(), modulo.getId());
+    }
+
+    private SolicitacaoModulo aguardandoSeguranca() {
+        modulo.setExigeAprovacaoSeguranca(true);
+        return SolicitacaoModulo.builder()
+                .id(1L)
+                .solicitante(usuario)
+                .modulo(modulo)
+                .status(StatusSolicitacao.AGUARDANDO_SEGURANCA)
+                .dataAbertura(LocalDateTime.now())
+                .build();
+    }
+
+    //como o hibernate entrega a violação depois da tradução do spring
+    private static DataIntegrityViolationException violacao(String sqlState, String restricao) {
+        SQLException causa = new SQLException("violação de " + restricao, sqlState);
+        return new DataIntegrityViolationException("violação",
+                new ConstraintViolationException("violação", causa, restricao));
     }
 
     @Test
@@ -229,12 +402,13 @@ class SolicitacaoModuloServiceTest {
 
         String motivo = "Informações insuficientes";
 
-        SolicitacaoModulo resposta =
+        SolicitacaoResponseDTO resposta =
                 service.reprovarSolicitacao(1L, usuario, motivo);
 
-        assertEquals(StatusSolicitacao.REPROVADA, resposta.getStatus());
-        assertEquals(motivo, resposta.getMotivoRecusa());
-        assertNotNull(resposta.getDataReprovacao());
+        assertEquals(StatusSolicitacao.REPROVADA, resposta.status());
+        assertEquals(motivo, resposta.motivoRecusa());
+        assertNotNull(resposta.dataReprovacao());
+        verify(auditoria).registrar(solicitacao, StatusSolicitacao.AGUARDANDO_GESTOR, usuario, motivo);
 
         verify(solicitacaoRepository, times(1)).save(any());
     }
@@ -264,9 +438,9 @@ class SolicitacaoModuloServiceTest {
     }
 
     @Test
-    void deveExpirarSolicitacaoQuandoDataExpirada() {
+    void deveExpirarSolicitacaoVencidaAoTentarCancelar() {
 
-        //solicitacao já vencida
+        //solicitacao já vencida que o job ainda não processou
         SolicitacaoModulo solicitacao = SolicitacaoModulo.builder()
                 .id(1L)
                 .solicitante(usuario)
@@ -276,22 +450,24 @@ class SolicitacaoModuloServiceTest {
                 .dataExpiracao(LocalDateTime.now().minusDays(5)) // expirada
                 .build();
 
-        usuario.getModulosAtivos().add(modulo); // usuário tinha acesso
+        when(usuarioRepository.findById(usuario.getId()))
+                .thenReturn(Optional.of(usuario));
 
         when(solicitacaoRepository.findById(1L))
                 .thenReturn(Optional.of(solicitacao));
 
-        when(solicitacaoRepository.save(any()))
-                .thenAnswer(invocation -> invocation.getArgument(0));
-
-        SolicitacaoModulo resposta = service.detalharSolicitacao(1L, usuario);
+        ApiException ex = assertThrows(
+                ApiException.class,
+                () -> service.cancelarSolicitacao(1L, usuario)
+        );
 
-        assertEquals(StatusSolicitacao.EXPIRADA, resposta.getStatus());
-        assertFalse(usuario.getModulosAtivos().contains(modulo)); // módulo removido
-        assertNotNull(resposta.getDataExpiracao()); // expiração continua registrada
+        assertEquals("Solicitação não pode ser cancelada.", ex.getMessage());
+        assertEquals(StatusSolicitacao.EXPIRADA, solicitacao.getStatus());
+        verify(usuarioRepository).revogarModulo(usuario.getId(), modulo.getId()); // módulo removido
+        assertNotNull(solicitacao.getDataExpiracao()); // expiração continua registrada
 
-        verify(usuarioRepository, times(1)).save(usuario);
         verify(solicitacaoRepository, times(1)).save(solicitacao);
+        verify(eventPublisher).publishEvent(new AcessoRevogado(usuario.getId(), modulo.getId()));
     }
 
     @Test
@@ -307,7 +483,8 @@ class SolicitacaoModuloServiceTest {
                 .dataExpiracao(LocalDateTime.now().minusDays(5)) // expirada
                 .build();
 
-        usuario.getModulosAtivos().remove(modulo); // já deveria ter expirado antes
+        when(usuarioRepository.findById(usuario.getId()))
+                .thenReturn(Optional.of(usuario));
 
         when(solicitacaoRepository.findById(1L))
                 .thenReturn(Optional.of(antiga));
@@ -316,18 +493,18 @@ class SolicitacaoModuloServiceTest {
         when(solicitacaoRepository.save(any()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
-        SolicitacaoModulo nova = service.renovarSolicitacao(1L, usuario);
+        SolicitacaoResponseDTO nova = service.renovarSolicitacao(1L, usuario);
 
         assertNotNull(nova);
-        assertEquals(usuario, nova.getSolicitante());
-        assertEquals(modulo, nova.getModulo());
+        assertEquals(usuario.getId(), nova.solicitante().id());
+        assertEquals(modulo.getId(), nova.modulo().id());
 
         //nova solicitação deve começar como ABERTA ou AGUARDANDO_GESTOR
         assertTrue(
-                nova.getStatus() == StatusSolicitacao.ABERTA ||
-                        nova.getStatus() == StatusSolicitacao.AGUARDANDO_GESTOR ||
-                        nova.getStatus() == StatusSolicitacao.AGUARDANDO_SEGURANCA ||
-                        nova.getStatus() == StatusSolicitacao.APROVADA
+                nova.status() == StatusSolicitacao.ABERTA ||
+                        nova.status() == StatusSolicitacao.AGUARDANDO_GESTOR ||
+                        nova.status() == StatusSolicitacao.AGUARDANDO_SEGURANCA ||
+                        nova.status() == StatusSolicitacao.APROVADA
         );
 
         verify(solicitacaoRepository, times(1)).save(any());
@@ -346,6 +523,9 @@ class SolicitacaoModuloServiceTest {
                 .dataExpiracao(LocalDateTime.now().plusDays(5)) // AINDA VALIDA
                 .build();
 
+        when(usuarioRepository.findById(usuario.getId()))
+                .thenReturn(Optional.of(usuario));
+
         when(solicitacaoRepository.findById(1L))
                 .thenReturn(Optional.of(antiga));
 
@@ -374,8 +554,8 @@ class SolicitacaoModuloServiceTest {
                 .dataExpiracao(LocalDateTime.now().plusDays(7))
                 .build();
 
-        //usuário atualmente tem o módulo
-        usuario.getModulosAtivos().add(modulo);
+        when(usuarioRepository.findById(usuario.getId()))
+                .thenReturn(Optional.of(usuario));
 
         when(solicitacaoRepository.findById(1L))
                 .thenReturn(Optional.of(solicitacao));
@@ -383,18 +563,15 @@ class SolicitacaoModuloServiceTest {
         when(solicitacaoRepository.save(any()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
-        when(usuarioRepository.save(any()))
-                .thenAnswer(invocation -> invocation.getArgument(0));
-
-        SolicitacaoModulo resposta = service.cancelarSolicitacao(1L, usuario);
+        SolicitacaoResponseDTO resposta = service.cancelarSolicitacao(1L, usuario);
 
-        assertEquals(StatusSolicitacao.CANCELADA, resposta.getStatus());
-        assertNotNull(resposta.getDataCancelamento());
+        assertEquals(StatusSolicitacao.CANCELADA, resposta.status());
+        assertNotNull(resposta.dataCancelamento());
 
         //usuário nao deve mais ter o módulo
-        assertFalse(usuario.getModulosAtivos().contains(modulo));
+        verify(usuarioRepository).revogarModulo(usuario.getId(), modulo.getId());
+        verify(eventPublisher).publishEvent(new AcessoRevogado(usuario.getId(), modulo.getId()));
 
-        verify(usuarioRepository, times(1)).save(usuario);
         verify(solicitacaoRepository, times(1)).save(solicitacao);
     }
 
@@ -412,6 +589,9 @@ class SolicitacaoModuloServiceTest {
                 .motivoRecusa("faltou justificativa")
                 .build();
 
+        when(usuarioRepository.findById(usuario.getId()))
+                .thenReturn(Optional.of(usuario));
+
         when(solicitacaoRepository.findById(1L))
                 .thenReturn(Optional.of(solicitacao));
 
@@ -422,15 +602,15 @@ class SolicitacaoModuloServiceTest {
 
         assertEquals("Solicitação não pode ser cancelada.", ex.getMessage());
 
-        //nao deve salvar nenhum dos dois
+        //nao deve salvar nem revogar nada
         verify(solicitacaoRepository, never()).save(any());
-        verify(usuarioRepository, never()).save(any());
+        verify(usuarioRepository, never()).revogarModulo(any(), any());
     }
 
     @Test
-    void deveDetalharESimultaneamenteExpirarSolicitacaoSeNecessario() {
+    void deveDetalharSemAlterarSolicitacaoVencida() {
 
-        // Solicitação já expirada
+        // Solicitação vencida: quem expira é o ExpiracaoSolicitacaoService
         SolicitacaoModulo solicitacao = SolicitacaoModulo.builder()
                 .id(1L)
                 .solicitante(usuario)
@@ -440,25 +620,65 @@ class SolicitacaoModuloServiceTest {
                 .dataExpiracao(LocalDateTime.now().minusDays(2)) // expirada
                 .build();
 
-        // Usuário possuía acesso
-        usuario.getModulosAtivos().add(modulo);
+        when(solicitacaoRepository.buscarResumoPorId(1L))
+                .thenReturn(Optional.of(SolicitacaoResponseDTO.de(solicitacao)));
 
-        when(solicitacaoRepository.findById(1L))
-                .thenReturn(Optional.of(solicitacao));
+        SolicitacaoResponseDTO resposta = service.detalharSolicitacao(1L, usuario);
 
-        when(solicitacaoRepository.save(any()))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        // detalhar é leitura pura
+        assertEquals(StatusSolicitacao.APROVADA, resposta.status());
+
+        verify(solicitacaoRepository, never()).save(any());
+        verify(usuarioRepository, never()).save(any());
+    }
 
-        SolicitacaoModulo resposta = service.detalharSolicitacao(1L, usuario);
+    @Test
+    void deveRetornarProximoCursorQuandoHaMaisItensQueOLimite() {
 
-        // A solicitação deve ser marcada como expirada
-        assertEquals(StatusSolicitacao.EXPIRADA, resposta.getStatus());
+        LocalDateTime agora = LocalDateTime.now();
 
-        // O usuário deve perder o módulo
-        assertFalse(usuario.getModulosAtivos().contains(modulo));
+        //o service pede limite + 1 para saber se há próxima página
+        when(solicitacaoRepository.listarPaginaDoUsuario(
+                eq(usuario.getId()), any(), any(), any(), isNull(), isNull(), eq(Limit.of(3))))
+                .thenReturn(List.of(
+                        resposta(30L, agora),
+                        resposta(20L, agora.minusDays(1)),
+                        resposta(10L, agora.minusDays(2))
+                ));
 
-        // O sistema deve ter salvo as alterações
-        verify(solicitacaoRepository, times(1)).save(solicitacao);
-        verify(usuarioRepository, times(1)).save(usuario);
+        PaginaDTO<SolicitacaoResponseDTO> pagina = service.listarSolicitacoesDoUsuario(
+                usuario, new FiltroSolicitacoesDTO(null, null, null, null), null, 2);
+
+        assertEquals(2, pagina.itens().size());
+        assertNotNull(pagina.proximoCursor());
+
+        CursorSolicitacao cursor = CursorSolicitacao.decodificar(pagina.proximoCursor());
+        assertEquals(20L, cursor.id());
+        assertEquals(agora.minusDays(1), cursor.dataAbertura());
+    }
+
+    @Test
+    void deveContinuarDoCursorInformado() {
+
+        LocalDateTime dataCursor = LocalDateTime.now().minusDays(1);
+        String cursor = new CursorSolicitacao(dataCursor, 20L).codificar();
+
+        when(solicitacaoRepository.listarPaginaDoUsuario(
+                eq(usuario.getId()), eq(dataCursor), eq(20L), any(), isNull(), isNull(), any()))
+                .thenReturn(List.of(resposta(10L, dataCursor.minusDays(1))));
+
+        PaginaDTO<SolicitacaoResponseDTO> pagina = service.listarSolicitacoesDoUsuario(
+                usuario, new FiltroSolicitacoesDTO(null, null, null, null), cursor, 20);
+
+        assertEquals(1, pagina.itens().size());
+        assertNull(pagina.proximoCursor()); // última página
+    }
+
+    private SolicitacaoResponseDTO resposta(Long id, LocalDateTime dataAbertura) {
+        return new SolicitacaoResponseDTO(
+                id, usuario.getId(), usuario.getNome(), usuario.getEmail(),
+                modulo.getId(), modulo.getNome(), true, StatusSolicitacao.AGUARDANDO_GESTOR,
+                dataAbertura, null, null, null, null, null
+        );
     }
-}
\ No newline at end of file
+}
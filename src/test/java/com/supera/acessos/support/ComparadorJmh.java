@@ -0,0 +1,67 @@
+package com.supera.acessos.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//compara dois resultados JSON do JMH (-rf json) e falha quando algum benchmark piorou além da tolerância
+//uso: mvn -Pbenchmark exec:exec@comparar -Djmh.base=<resultado anterior>.json [-Djmh.tolerancia=10]
+public final class ComparadorJmh {
+
+    private ComparadorJmh() {
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        Map<String, JsonNode> base = carregar(new File(args[0]));
+        Map<String, JsonNode> atual = carregar(new File(args[1]));
+        double tolerancia = Double.parseDouble(args[2]);
+
+        int regressoes = 0;
+
+        for (Map.Entry<String, JsonNode> entrada : atual.entrySet()) {
+            JsonNode anterior = base.get(entrada.getKey());
+
+            if (anterior == null) {
+                System.out.printf("%-90s novo%n", entrada.getKey());
+                continue;
+            }
+
+            double antes = anterior.path("primaryMetric").path("score").asDouble();
+            double depois = entrada.getValue().path("primaryMetric").path("score").asDouble();
+            String unidade = entrada.getValue().path("primaryMetric").path("scoreUnit").asText();
+
+            //em thrpt maior é melhor; nos modos de tempo menor é melhor
+            boolean vazao = "thrpt".equals(entrada.getValue().path("mode").asText());
+            double piora = (vazao ? antes - depois : depois - antes) / antes * 100;
+            boolean regressao = piora > tolerancia;
+
+            if (regressao) {
+                regressoes++;
+            }
+
+            System.out.printf("%-90s %12.3f -> %12.3f %-8s %+7.1f%% %s%n",
+                    entrada.getKey(), antes, depois, unidade, piora, regressao ? "REGRESSÃO" : "");
+        }
+
+        if (regressoes > 0) {
+            System.out.printf("%d benchmark(s) pioraram mais que %.1f%%%n", regressoes, tolerancia);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> carregar(File arquivo) throws IOException {
+        Map<String, JsonNode> porChave = new LinkedHashMap<>();
+
+        for (JsonNode resultado : new ObjectMapper().readTree(arquivo)) {
+            String chave = resultado.path("benchmark").asText() + resultado.path("params");
+            porChave.put(chave, resultado);
+        }
+
+        return porChave;
+    }
+}
@@ -0,0 +1,33 @@
+package com.supera.acessos.support;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+//implementação mínima de um repositório Spring Data para benchmarks: só os métodos informados
+//(por nome) funcionam, o resto lança UnsupportedOperationException
+public final class RepositorioEmMemoria {
+
+    private RepositorioEmMemoria() {
+    }
+
+    public static <T> T de(Class<T> tipo, Map<String, Function<Object[], Object>> metodos) {
+        Object proxy = Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (self, metodo, args) -> {
+
+            Function<Object[], Object> implementacao = metodos.get(metodo.getName());
+
+            if (implementacao != null) {
+                return implementacao.apply(args);
+            }
+
+            return switch (metodo.getName()) {
+                case "toString" -> tipo.getSimpleName() + " em memória";
+                case "hashCode" -> System.identityHashCode(self);
+                case "equals" -> self == args[0];
+                default -> throw new UnsupportedOperationException(metodo.getName());
+            };
+        });
+
+        return tipo.cast(proxy);
+    }
+}
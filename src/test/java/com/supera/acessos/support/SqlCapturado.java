@@ -0,0 +1,71 @@
+package com.supera.acessos.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//registra o SQL gerado pelo Hibernate nos testes
+//uso: spring.jpa.properties.hibernate.session_factory.statement_inspector=com.supera.acessos.support.SqlCapturado
+public class SqlCapturado implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new ArrayList<>();
+
+    //contagem por thread (a da requisição no servidor), usada pela carga para atribuir SQL a cada endpoint
+    private static final ThreadLocal<int[]> CONTAGEM = ThreadLocal.withInitial(() -> new int[1]);
+
+    //em carga longa guardar todo o SQL só consumiria memória
+    private static volatile boolean guardar = true;
+
+    @Override
+    public String inspect(String sql) {
+
+        //a reserva de ids da sequence sai uma vez a cada 50 inserts: contá-la deixaria o total por requisição
+        //dependente de quantos ids sobraram dos testes anteriores
+        if (!reservaDeIds(sql)) {
+            CONTAGEM.get()[0]++;
+        }
+
+        if (guardar) {
+            synchronized (STATEMENTS) {
+                STATEMENTS.add(sql);
+            }
+        }
+        return sql;
+    }
+
+    private static boolean reservaDeIds(String sql) {
+        String normalizado = sql.toLowerCase();
+        return normalizado.contains("next value for") || normalizado.contains("nextval(");
+    }
+
+    public static void guardarComandos(boolean valor) {
+        guardar = valor;
+    }
+
+    //devolve quantos comandos a thread atual executou desde a última chamada
+    public static int zerarContagemDaThread() {
+        int[] contagem = CONTAGEM.get();
+        int valor = contagem[0];
+        contagem[0] = 0;
+        return valor;
+    }
+
+    public static void limpar() {
+        synchronized (STATEMENTS) {
+            STATEMENTS.clear();
+        }
+    }
+
+    public static List<String> capturados() {
+        synchronized (STATEMENTS) {
+            return List.copyOf(STATEMENTS);
+        }
+    }
+
+    public static String ultimo() {
+        synchronized (STATEMENTS) {
+            return STATEMENTS.get(STATEMENTS.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.supera.acessos.usuario.repository;
+
+import com.supera.acessos.modulo.entity.Modulo;
+import com.supera.acessos.modulo.repository.ModuloRepository;
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//bancos de produção anteriores ao Flyway foram criados pelo ddl-auto e marcados como V1 sem rodar a migração:
+//a PK de usuarios_modulos tem o nome gerado pelo banco, e a concessão concorrente ainda tem que ser reconhecida
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ddlauto",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        //tabela sem entidade, que o ddl-auto não cria; o índice de acessos lê dela ao subir
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/migration/comum/V15__acessos_alteracoes.sql"
+})
+@ActiveProfiles("test")
+class RestricoesUnicasAcessosTest {
+
+    @Autowired
+    private RestricoesUnicasAcessos restricoes;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ModuloRepository moduloRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("delete from usuarios_modulos");
+        jdbcTemplate.update("delete from modulos");
+        jdbcTemplate.update("delete from usuarios");
+    }
+
+    @Test
+    void deveReconhecerAPkDeNomeGeradoENaoAChaveEstrangeira() {
+
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .nome("Joao")
+                .email("joao@supera.com")
+                .senha("hash")
+                .departamento(Departamento.TI)
+                .build());
+        Modulo modulo = moduloRepository.save(Modulo.builder()
+                .nome("Financeiro")
+                .descricao("Financeiro")
+                .prazoExpiracaoDias(30)
+                .ativo(true)
+                .build());
+
+        conceder(usuario.getId(), modulo.getId());
+
+        //a mesma concessão de novo: a PK barra, com o nome que o ddl-auto deu a ela
+        String pk = restricaoViolada(() -> conceder(usuario.getId(), modulo.getId()));
+        assertFalse(pk.toLowerCase().contains("pk_usuarios_modulos"), pk);
+        assertTrue(restricoes.contem(pk), pk);
+
+        //usuário inexistente: FK da mesma tabela, não é concessão concorrente
+        String fk = restricaoViolada(() -> conceder(usuario.getId() + 1000, modulo.getId()));
+        assertFalse(restricoes.contem(fk), fk);
+    }
+
+    private void conceder(long usuarioId, long moduloId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> usuarioRepository.concederModulo(usuarioId, moduloId));
+    }
+
+    private static String restricaoViolada(Runnable gravacao) {
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class, gravacao::run);
+        return assertInstanceOf(ConstraintViolationException.class, e.getCause()).getConstraintName();
+    }
+}
@@ -0,0 +1,97 @@
+package com.supera.acessos.usuario.service;
+
+import com.supera.acessos.usuario.entity.Departamento;
+import com.supera.acessos.usuario.entity.Usuario;
+import com.supera.acessos.usuario.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsuarioCacheServiceTest {
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void setup() {
+        usuario = Usuario.builder()
+                .id(1L)
+                .nome("Joao")
+                .email("joao@supera.com")
+                .senha("hash")
+                .departamento(Departamento.TI)
+                .build();
+    }
+
+    @Test
+    void deveBuscarNoBancoNaPrimeiraVezEDepoisUsarOCache() {
+
+        UsuarioCacheService cache = new UsuarioCacheService(usuarioRepository, 10, 300);
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+
+        Usuario primeiro = cache.buscarPorId(1L).orElseThrow();
+        Usuario segundo = cache.buscarPorId(1L).orElseThrow();
+
+        assertSame(primeiro, segundo);
+        assertEquals("joao@supera.com", primeiro.getEmail());
+
+        //snapshot sem senha
+        assertNull(primeiro.getSenha());
+        verify(usuarioRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void usuarioRemovidoNaoDeveSerResolvidoDepoisDeInvalidado() {
+
+        UsuarioCacheService cache = new UsuarioCacheService(usuarioRepository, 10, 300);
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario), Optional.empty());
+
+        assertTrue(cache.buscarPorId(1L).isPresent());
+
+        cache.invalidar(1L);
+
+        assertTrue(cache.buscarPorId(1L).isEmpty());
+
+        //ausência não fica no cache: a próxima busca vai ao banco de novo
+        assertTrue(cache.buscarPorId(1L).isEmpty());
+        verify(usuarioRepository, times(3)).findById(1L);
+    }
+
+    @Test
+    void entradaVencidaDeveSerRecarregada() {
+
+        //ttl zero: toda entrada já nasce vencida
+        UsuarioCacheService cache = new UsuarioCacheService(usuarioRepository, 10, 0);
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+
+        cache.buscarPorId(1L);
+        cache.buscarPorId(1L);
+
+        verify(usuarioRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void deveDescartarOMenosUsadoAoPassarDoTamanhoMaximo() {
+
+        UsuarioCacheService cache = new UsuarioCacheService(usuarioRepository, 1, 300);
+        when(usuarioRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(Usuario.builder().id(invocation.getArgument(0)).build()));
+
+        cache.buscarPorId(1L);
+        cache.buscarPorId(2L);
+        cache.buscarPorId(1L);
+
+        verify(usuarioRepository, times(2)).findById(1L);
+        verify(usuarioRepository, times(1)).findById(2L);
+    }
+}